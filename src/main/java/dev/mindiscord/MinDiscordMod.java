@@ -3,6 +3,8 @@ package dev.mindiscord;
 import dev.mindiscord.api.MinDiscordApi;
 import dev.mindiscord.core.MinDiscordRuntime;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -11,8 +13,19 @@ public final class MinDiscordMod implements ModInitializer {
 
   @Override public void onInitialize() {
     MinDiscordRuntime runtime = MinDiscordRuntime.init();
-    MinDiscordApi.install(runtime.bus());
+    MinDiscordApi.install(runtime.bus(), runtime.routeRegistry());
     dev.mindiscord.commands.CommandRegistrar.registerAll(runtime);
+    registerLifecycle(runtime::onServerTick, runtime::close);
     LOGGER.info("MinDiscord initialized");
   }
+
+  /**
+   * Ticks the runtime and closes it once the server has stopped, which drains the queue and saves
+   * limiter and runtime-route state. Closing after {@code SERVER_STOPPING} lets other mods' shutdown
+   * announcements still be queued.
+   */
+  static void registerLifecycle(Runnable onTick, Runnable onStopped) {
+    ServerTickEvents.END_SERVER_TICK.register(server -> onTick.run());
+    ServerLifecycleEvents.SERVER_STOPPED.register(server -> onStopped.run());
+  }
 }
@@ -1,9 +1,95 @@
 package dev.mindiscord.api;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 public interface AnnounceBus {
   CompletableFuture<SendResult> send(String route, String content);
   CompletableFuture<SendResult> send(String route, WebhookMessage msg);
   CompletableFuture<SendResult> send(String route, Embed embed);
+
+  /**
+   * Sends {@code msg} to {@code route}, counted against {@code limitKey} (a player, an island, ...)
+   * when the operator configured {@code rateLimit.perKey} for the route. A message over that limit
+   * completes with {@code KEY_LIMITED}, unless sampling lets it through. A {@code null} key or a
+   * route without a per-key limit behaves like {@link #send(String, WebhookMessage)}.
+   */
+  CompletableFuture<SendResult> send(String route, String limitKey, WebhookMessage msg);
+
+  /**
+   * Validates and serializes {@code msg} once for repeated sends.
+   *
+   * @throws IllegalArgumentException if the message breaks a Discord limit
+   */
+  PreparedMessage prepare(WebhookMessage msg);
+
+  CompletableFuture<SendResult> send(String route, PreparedMessage msg);
+
+  /**
+   * Sends {@code msg} to every route in {@code routes}. The message is validated and serialized once
+   * and all deliveries are queued together.
+   */
+  BroadcastResult broadcast(Collection<String> routes, WebhookMessage msg);
+
+  BroadcastResult broadcast(Collection<String> routes, PreparedMessage msg);
+
+  /**
+   * Sends several messages, each to its own route. Every message is validated and serialized up
+   * front and the accepted ones are queued in a single step, with the overflow policy applied to
+   * each in order as if they had been sent one by one.
+   */
+  BatchResult sendAll(List<RoutedMessage> messages);
+
+  /**
+   * Fire-and-forget send: queues {@code content} without creating a future or {@link SendResult}.
+   * Delivery outcomes are still recorded in diagnostics and the ledger.
+   *
+   * @return {@code false} if the message was rejected before it could be queued (disabled, unknown
+   *     or disallowed route, invalid payload, queue full)
+   */
+  boolean post(String route, String content);
+
+  boolean post(String route, WebhookMessage msg);
+
+  boolean post(String route, PreparedMessage msg);
+
+  /**
+   * Returns a subscriber that delivers a stream of messages to {@code route}. Demand follows the
+   * route's spare rate-limit tokens and the free queue space, so a publisher that honours it slows
+   * down instead of overflowing the queue. Content-only messages that pile up while earlier ones are
+   * in flight are merged, newline-separated, into as few Discord messages as fit.
+   */
+  Flow.Subscriber<WebhookMessage> subscribe(String route);
+
+  /**
+   * Registers a reusable message shape. Text and URL fields may contain {@code {name}} placeholders
+   * for each entry of {@code params}. A template with the same id in {@code mindiscord.json5} takes
+   * precedence, so operators can restyle it without a plugin update.
+   *
+   * @throws IllegalArgumentException if the template is invalid
+   */
+  void registerTemplate(String templateId, List<String> params, WebhookMessage template);
+
+  /** Sends template {@code templateId} with {@code args} filling its params in declared order. */
+  CompletableFuture<SendResult> sendTemplate(String route, String templateId, Object... args);
+
+  /** Sends with {@code ?wait=true}; the result carries the created Discord message id. */
+  CompletableFuture<SendResult> sendTracked(String route, WebhookMessage msg);
+
+  /**
+   * Replaces the content/embeds of a message previously created through {@code route}. Edits to the
+   * same message that are still queued are coalesced so only the latest payload is sent.
+   */
+  CompletableFuture<SendResult> edit(String route, String messageId, WebhookMessage msg);
+
+  CompletableFuture<SendResult> delete(String route, String messageId);
+
+  /**
+   * Returns a view of this bus whose requests also count against {@code callerId}'s limit in
+   * {@code rateLimit.perCaller} (or its {@code default} entry). Plugins typically call this once
+   * with their mod id and keep the result.
+   */
+  AnnounceBus forCaller(String callerId);
 }
@@ -0,0 +1,31 @@
+package dev.mindiscord.api;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * File attached to a {@link WebhookMessage}. Exactly one of {@code path} or {@code data} should be
+ * set. Files are streamed from disk at delivery time and never loaded onto the heap; buffers are sent
+ * from their current position to their limit and must not be modified until the send completes.
+ */
+public final class Attachment {
+  public String filename;
+  public String description;
+  public Path path;
+  public ByteBuffer data;
+
+  public static Attachment ofFile(Path path) {
+    Attachment attachment = new Attachment();
+    attachment.path = path;
+    Path name = path.getFileName();
+    attachment.filename = name != null ? name.toString() : "file";
+    return attachment;
+  }
+
+  public static Attachment ofBytes(String filename, ByteBuffer data) {
+    Attachment attachment = new Attachment();
+    attachment.filename = filename;
+    attachment.data = data;
+    return attachment;
+  }
+}
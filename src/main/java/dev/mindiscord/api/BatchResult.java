@@ -0,0 +1,11 @@
+package dev.mindiscord.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outcome of {@link AnnounceBus#sendAll}: one future per message, in the order given, and
+ * {@code all}, which completes with every result, in the same order, once the last one finishes.
+ */
+public record BatchResult(
+    List<CompletableFuture<SendResult>> results, CompletableFuture<List<SendResult>> all) {}
@@ -0,0 +1,13 @@
+package dev.mindiscord.api;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outcome of {@link AnnounceBus#broadcast}: one future per requested route, in the order given, and
+ * {@code all}, which completes with every route's result once the last one finishes. Routes that
+ * resolve to the same webhook share a single delivery and therefore the same future.
+ */
+public record BroadcastResult(
+    Map<String, CompletableFuture<SendResult>> routes,
+    CompletableFuture<Map<String, SendResult>> all) {}
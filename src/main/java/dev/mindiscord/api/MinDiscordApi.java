@@ -4,6 +4,7 @@ import java.util.Optional;
 
 public final class MinDiscordApi {
   private static volatile AnnounceBus BUS;
+  private static volatile RouteRegistry ROUTES;
 
   private MinDiscordApi(){}
 
@@ -11,8 +12,42 @@ public final class MinDiscordApi {
     return Optional.ofNullable(BUS);
   }
 
+  public static Optional<RouteRegistry> routes() {
+    return Optional.ofNullable(ROUTES);
+  }
+
+  /**
+   * {@link RouteRegistry#registerRoute(String, String, RouteLimits, boolean)} on the installed
+   * registry.
+   *
+   * @return {@code false} if MinDiscord is not installed yet
+   */
+  public static boolean registerRoute(String name, String url, RouteLimits limits, boolean persist) {
+    RouteRegistry routes = ROUTES;
+    if (routes == null) {
+      return false;
+    }
+    routes.registerRoute(name, url, limits, persist);
+    return true;
+  }
+
+  public static boolean registerRoute(String name, String url, RouteLimits limits) {
+    return registerRoute(name, url, limits, false);
+  }
+
+  /** {@link RouteRegistry#unregisterRoute}; {@code false} if not installed or not registered. */
+  public static boolean unregisterRoute(String name) {
+    RouteRegistry routes = ROUTES;
+    return routes != null && routes.unregisterRoute(name);
+  }
+
   // Called by the mod on bootstrap
   public static void install(AnnounceBus bus) {
     BUS = bus;
   }
+
+  public static void install(AnnounceBus bus, RouteRegistry routes) {
+    ROUTES = routes;
+    BUS = bus;
+  }
 }
@@ -0,0 +1,16 @@
+package dev.mindiscord.api;
+
+/**
+ * Immutable message returned by {@link AnnounceBus#prepare}. It has been validated, had the
+ * configured default username/avatar applied, and serialized once; sending it again only queues the
+ * cached bytes. Later changes to the original {@link WebhookMessage}, its embeds or a config reload
+ * do not affect it. Instances are only accepted by the bus that created them.
+ */
+public interface PreparedMessage {
+  /** Size of the cached JSON payload in bytes. */
+  int payloadBytes();
+
+  int embedCount();
+
+  int attachmentCount();
+}
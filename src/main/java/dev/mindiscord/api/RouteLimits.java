@@ -0,0 +1,16 @@
+package dev.mindiscord.api;
+
+/**
+ * Rate limit for a route registered at runtime: {@code tokensPerMinute} sustained, with bursts of
+ * up to {@code burst} messages.
+ */
+public record RouteLimits(int tokensPerMinute, int burst) {
+  public RouteLimits {
+    if (tokensPerMinute <= 0) {
+      throw new IllegalArgumentException("tokensPerMinute must be > 0");
+    }
+    if (burst <= 0) {
+      throw new IllegalArgumentException("burst must be > 0");
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package dev.mindiscord.api;
+
+/**
+ * Adds and removes routes while the server runs, without editing the config or reloading it. A
+ * registered route wins over a configured one of the same name and, like any route, must still be
+ * admitted by {@code announce.allowedRoutes}. Safe to call from any thread; sends already in flight
+ * are not affected.
+ */
+public interface RouteRegistry {
+  /** Registers {@code name} for this run only. */
+  default void registerRoute(String name, String url, RouteLimits limits) {
+    registerRoute(name, url, limits, false);
+  }
+
+  /**
+   * Adds or replaces {@code name}, delivering to {@code url} (a webhook URL or {@code env:VAR}).
+   * {@code limits} of {@code null} uses the default per-route limit. With {@code persist}, the
+   * route is saved and registered again on the next start.
+   *
+   * @throws IllegalArgumentException if the name or URL is blank or the name has a wildcard
+   */
+  void registerRoute(String name, String url, RouteLimits limits, boolean persist);
+
+  /**
+   * Removes a route added with {@code registerRoute}, persisted or not. Configured routes are left
+   * alone. Messages already queued for it are still delivered.
+   *
+   * @return whether the route was registered
+   */
+  boolean unregisterRoute(String name);
+}
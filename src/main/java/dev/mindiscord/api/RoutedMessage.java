@@ -0,0 +1,11 @@
+package dev.mindiscord.api;
+
+import java.util.Objects;
+
+/** One entry of {@link AnnounceBus#sendAll}: a message and the route it goes to. */
+public record RoutedMessage(String route, WebhookMessage message) {
+  public RoutedMessage {
+    Objects.requireNonNull(route, "route");
+    Objects.requireNonNull(message, "message");
+  }
+}
@@ -1 +1,11 @@
-package dev.mindiscord.api; public record SendResult(boolean ok, String code, String message, String requestId) {}
\ No newline at end of file
+package dev.mindiscord.api;
+
+/**
+ * Outcome of a send. {@code messageId} is the Discord message id when the send waited for it
+ * ({@link AnnounceBus#sendTracked}) or addressed an existing message; otherwise {@code null}.
+ */
+public record SendResult(boolean ok, String code, String message, String requestId, String messageId) {
+  public SendResult(boolean ok, String code, String message, String requestId) {
+    this(ok, code, message, requestId, null);
+  }
+}
@@ -8,4 +8,5 @@ public final class WebhookMessage {
   public String content;
   public List<Embed> embeds;
   public AllowedMentions allowedMentions;
+  public List<Attachment> attachments;
 }
@@ -54,6 +54,14 @@ public final class CommandRegistrar {
     return true;
   }
 
+  /**
+   * A lone listing argument made only of digits is a page number ({@code /mindiscord routes 3});
+   * anything else is a filter. Returns the page, or {@code 0} for a filter.
+   */
+  static int pageArgument(String argument) {
+    return argument.matches("\\d{1,9}") ? Integer.parseInt(argument) : 0;
+  }
+
   static void logCommand(MinDiscordRuntime runtime, String command, boolean ok, String message) {
     runtime.bridge().logLedger(
         "command",
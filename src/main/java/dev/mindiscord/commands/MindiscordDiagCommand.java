@@ -1,5 +1,7 @@
 package dev.mindiscord.commands;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import dev.mindiscord.core.AnnounceBusImpl;
 import dev.mindiscord.core.Config;
@@ -15,10 +17,23 @@ public final class MindiscordDiagCommand {
 
   public static void register(
       LiteralArgumentBuilder<ServerCommandSource> root, MinDiscordRuntime runtime) {
-    root.then(CommandManager.literal("diag").executes(ctx -> execute(ctx.getSource(), runtime)));
+    root.then(CommandManager.literal("diag")
+        .executes(ctx -> execute(ctx.getSource(), runtime, null, 1))
+        .then(CommandManager.argument("filter", StringArgumentType.word())
+            .executes(ctx -> {
+              String argument = StringArgumentType.getString(ctx, "filter");
+              int page = CommandRegistrar.pageArgument(argument);
+              return execute(ctx.getSource(), runtime, page > 0 ? null : argument, Math.max(1, page));
+            })
+            .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                .executes(ctx -> execute(ctx.getSource(), runtime,
+                    StringArgumentType.getString(ctx, "filter"),
+                    IntegerArgumentType.getInteger(ctx, "page"))))));
   }
 
-  private static int execute(ServerCommandSource source, MinDiscordRuntime runtime) {
+  /** Route history and callback timings are paged and filtered like {@code /mindiscord routes}. */
+  private static int execute(
+      ServerCommandSource source, MinDiscordRuntime runtime, String filter, int page) {
     if (!CommandRegistrar.tryConsumeCooldown(source)) {
       return 0;
     }
@@ -33,7 +48,7 @@ public final class MindiscordDiagCommand {
       CommandRegistrar.logCommand(runtime, "diag", false, "DISABLED");
       return 0;
     }
-    AnnounceBusImpl.DiagnosticsSnapshot snapshot = runtime.diagnostics();
+    AnnounceBusImpl.DiagnosticsSnapshot snapshot = runtime.diagnostics(filter, page);
     source.sendFeedback(
         () ->
             Text.literal(
@@ -41,6 +56,28 @@ public final class MindiscordDiagCommand {
                     "Queue: %d/%d",
                     snapshot.queueSize(), snapshot.queueCapacity())),
         false);
+    snapshot.latency().forEach((host, stats) ->
+        source.sendFeedback(
+            () ->
+                Text.literal(
+                    String.format(
+                        "  %s | p50=%dms p90=%dms p99=%dms | timeout=%dms (n=%d)",
+                        host,
+                        stats.p50Ms(),
+                        stats.p90Ms(),
+                        stats.p99Ms(),
+                        stats.timeoutMs(),
+                        stats.samples())),
+            false));
+    source.sendFeedback(
+        () -> Text.literal(
+            "Routes with history: "
+                + snapshot.routeTotal()
+                + " page "
+                + snapshot.page()
+                + "/"
+                + snapshot.pages()),
+        false);
     if (snapshot.routes().isEmpty()) {
       source.sendFeedback(() -> Text.literal("  (no route history yet)"), false);
     } else {
@@ -51,16 +88,36 @@ public final class MindiscordDiagCommand {
             () ->
                 Text.literal(
                     String.format(
-                        "  - %s | lastSuccess=%s | lastFailure=%s (%s)",
+                        "  - %s | sent=%d failed=%d dropped=%d | lastSuccess=%s | lastFailure=%s (%s)",
                         entry.getKey(),
+                        info.sent(),
+                        info.failed(),
+                        info.dropped(),
                         formatInstant(info.lastSuccess()),
                         formatInstant(info.lastFailure()),
                         info.lastFailureCode() != null ? info.lastFailureCode() : "-")),
             false);
       }
     }
+    source.sendFeedback(
+        () -> Text.literal("Callbacks: completed on " + snapshot.completionMode()), false);
+    snapshot.callbacks().forEach((key, stats) ->
+        source.sendFeedback(
+            () ->
+                Text.literal(
+                    String.format(
+                        "  - %s | n=%d avg=%dus max=%dus",
+                        key,
+                        stats.count(),
+                        stats.avgMicros(),
+                        stats.maxMicros())),
+            false));
+    if (snapshot.page() < snapshot.pages()) {
+      String next = (filter != null ? filter + " " : "") + (snapshot.page() + 1);
+      source.sendFeedback(() -> Text.literal("  Next: /mindiscord diag " + next), false);
+    }
     CommandRegistrar.logCommand(runtime, "diag", true, null);
-    return snapshot.routes().size();
+    return snapshot.routeTotal();
   }
 
   private static String formatInstant(Instant instant) {
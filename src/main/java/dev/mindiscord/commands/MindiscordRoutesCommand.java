@@ -1,8 +1,11 @@
 package dev.mindiscord.commands;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import dev.mindiscord.core.Config;
 import dev.mindiscord.core.MinDiscordRuntime;
+import dev.mindiscord.core.Page;
 import dev.mindiscord.core.Router;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
@@ -13,10 +16,23 @@ public final class MindiscordRoutesCommand {
 
   public static void register(
       LiteralArgumentBuilder<ServerCommandSource> root, MinDiscordRuntime runtime) {
-    root.then(CommandManager.literal("routes").executes(ctx -> execute(ctx.getSource(), runtime)));
+    root.then(CommandManager.literal("routes")
+        .executes(ctx -> execute(ctx.getSource(), runtime, null, 1))
+        .then(CommandManager.argument("filter", StringArgumentType.word())
+            .executes(ctx -> {
+              String argument = StringArgumentType.getString(ctx, "filter");
+              int page = CommandRegistrar.pageArgument(argument);
+              return execute(ctx.getSource(), runtime, page > 0 ? null : argument, Math.max(1, page));
+            })
+            .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                .executes(ctx -> execute(ctx.getSource(), runtime,
+                    StringArgumentType.getString(ctx, "filter"),
+                    IntegerArgumentType.getInteger(ctx, "page"))))));
   }
 
-  private static int execute(ServerCommandSource source, MinDiscordRuntime runtime) {
+  /** Lists one page of routes whose names contain {@code filter}, or all when it is null. */
+  private static int execute(
+      ServerCommandSource source, MinDiscordRuntime runtime, String filter, int page) {
     if (!CommandRegistrar.tryConsumeCooldown(source)) {
       return 0;
     }
@@ -29,22 +45,31 @@ public final class MindiscordRoutesCommand {
       source.sendError(Text.literal("Routes command disabled via config"));
       return 0;
     }
-    var routes = runtime.routes();
+    // Show env: routes as they are now, not as they were at the last reload.
+    runtime.refreshEnvironment();
+    Page<Router.RouteInfo> routes = runtime.routes(filter, page);
     source.sendFeedback(
-        () -> Text.literal("MinDiscord routes (" + routes.size() + ")"),
+        () -> Text.literal(
+            "MinDiscord routes (" + routes.total() + ") page " + routes.page() + "/" + routes.pages()),
         false);
-    if (routes.isEmpty()) {
-      source.sendFeedback(() -> Text.literal("  (no routes configured)"), false);
+    if (routes.items().isEmpty()) {
+      source.sendFeedback(
+          () -> Text.literal(filter != null ? "  (no matching routes)" : "  (no routes configured)"),
+          false);
     } else {
       boolean redact = cfg.core().redactUrlsInCommands();
-      for (Router.RouteInfo info : routes) {
+      for (Router.RouteInfo info : routes.items()) {
         String value = formatRoute(info, redact);
         source.sendFeedback(
             () -> Text.literal("  - " + info.name() + ": " + value), false);
       }
     }
+    if (routes.page() < routes.pages()) {
+      String next = (filter != null ? filter + " " : "") + (routes.page() + 1);
+      source.sendFeedback(() -> Text.literal("  Next: /mindiscord routes " + next), false);
+    }
     CommandRegistrar.logCommand(runtime, "routes", true, null);
-    return routes.size();
+    return routes.total();
   }
 
   static String formatRoute(Router.RouteInfo info, boolean redact) {
@@ -1,36 +1,47 @@
 package dev.mindiscord.core;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import dev.mindiscord.api.AllowedMentions;
 import dev.mindiscord.api.AnnounceBus;
+import dev.mindiscord.api.BatchResult;
+import dev.mindiscord.api.BroadcastResult;
 import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.PreparedMessage;
+import dev.mindiscord.api.RoutedMessage;
 import dev.mindiscord.api.SendResult;
 import dev.mindiscord.api.WebhookMessage;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.net.URI;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
   private static final Logger LOGGER = LogManager.getLogger("MinDiscord/AnnounceBus");
-  private static final ObjectMapper JSON =
-      new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
   private static final Duration DEFAULT_RETRY_BASE = Duration.ofMillis(500);
   private static final Duration DEFAULT_RETRY_MAX = Duration.ofMillis(15_000);
   private static final boolean DEFAULT_RETRY_JITTER = true;
+  /** {@link #tickBufferState}: free, being used by its owner, or taken over by close(). */
+  private static final int TICK_IDLE = 0;
+  private static final int TICK_BUSY = 1;
+  private static final int TICK_CLOSED = 2;
+  private static final int SPINS_BEFORE_YIELD = 64;
+  /** Caller key of the {@link CallerBus} currently submitting on this thread, if any. */
+  private static final ThreadLocal<String> CALLER = new ThreadLocal<>();
 
   private final Router router;
   private final DispatchQueue queue;
@@ -41,6 +52,17 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
   private final TimeSource timeSource;
   private final Sleeper sleeper;
   private final Diagnostics diagnostics = new Diagnostics();
+  private final RouteHealth health = new RouteHealth();
+  private final ConcurrentHashMap<String, PendingRequest> pendingEdits = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+  private final CompletionDispatcher completions;
+  // Requests submitted on the server thread during the current tick (queue.tickAligned). The
+  // server thread uses it between an IDLE->BUSY CAS and a write back to IDLE, and never waits: once
+  // close() has swapped in CLOSED, from any thread, the list is the closer's to drain and the
+  // server thread sends directly instead.
+  private final ArrayList<PendingRequest> tickBuffer = new ArrayList<>();
+  private final AtomicInteger tickBufferState = new AtomicInteger(TICK_IDLE);
+  private volatile Thread serverThread;
   private final SendWorker worker;
   private final Thread workerThread;
   private final AtomicBoolean closed = new AtomicBoolean();
@@ -65,6 +87,7 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
     this.bridge = bridge;
     this.timeSource = timeSource;
     this.sleeper = sleeper;
+    this.completions = new CompletionDispatcher(timeSource);
     this.worker = new SendWorker();
     applyConfig(initialConfig);
     this.workerThread = new Thread(worker, "MinDiscord-Worker");
@@ -76,296 +99,774 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
     Objects.requireNonNull(config, "config");
     this.config = config;
     router.update(config);
-    queue.configure(config.queue().capacity(), config.queue().overflowPolicy());
+    List<PendingRequest> evicted =
+        queue.configure(
+            config.queue().capacity(), config.queue().maxBytes(), config.queue().overflowPolicy());
     rateLimiter.configure(config.rateLimit());
+    health.configure(config.failover());
     transport.configure(config.transport());
     worker.updateTransport(config.transport());
+    completions.configure(config.completion());
+    for (PendingRequest dropped : evicted) {
+      discard(dropped);
+    }
   }
 
   @Override
   public CompletableFuture<SendResult> send(String route, String content) {
-    WebhookMessage msg = new WebhookMessage();
-    msg.content = content;
-    return send(route, msg);
+    SendResult rejected = checkEnabled();
+    if (rejected != null) {
+      return CompletableFuture.completedFuture(rejected);
+    }
+    Config cfg = this.config;
+    Config.Defaults defaults = cfg.defaults();
+    PreparedPayload payload;
+    try {
+      payload =
+          PreparedPayload.ofJson(
+              PayloadWriter.writeContent(content, defaults.username(), defaults.avatarUrl()), 0);
+    } catch (PayloadWriter.InvalidPayloadException e) {
+      return CompletableFuture.completedFuture(
+          new SendResult(false, "BAD_PAYLOAD", e.getMessage(), RequestIds.nextText()));
+    }
+    return dispatch(
+        cfg.ruleEngine().route(route, content),
+        payload,
+        PendingRequest.Operation.EXECUTE,
+        null,
+        RequestIds.next());
   }
 
   @Override
   public CompletableFuture<SendResult> send(String route, WebhookMessage message) {
     Objects.requireNonNull(message, "message");
-    if (closed.get()) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "GIVE_UP", "MinDiscord shutting down", UUID.randomUUID().toString()));
+    return submit(route, message, PendingRequest.Operation.EXECUTE, null);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, String limitKey, WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
+    Config cfg = this.config;
+    route = cfg.ruleEngine().route(route, message);
+    Config.RateLimit.KeyLimit limit =
+        limitKey != null ? cfg.rateLimit().keyLimitFor(route) : null;
+    // Disallowed routes fail in submit() without spending the key's allowance.
+    if (limit == null || checkEnabled() != null || router.resolveAllowed(route) == null) {
+      return submitRouted(route, message, PendingRequest.Operation.EXECUTE, null);
+    }
+    long refused = rateLimiter.admitKey(route, limitKey, limit, timeSource);
+    if (refused < 0L) {
+      if (limit.overLimit() != Config.RateLimit.OverLimit.SAMPLE
+          || -refused % limit.sampleEvery() != 0L) {
+        return CompletableFuture.completedFuture(
+            new SendResult(
+                false, "KEY_LIMITED", "Over the per-key limit for " + limitKey, RequestIds.nextText()));
+      }
+    } else if (refused > 0L && limit.overLimit() == Config.RateLimit.OverLimit.SUMMARIZE) {
+      message = withSummary(message, refused);
     }
+    return submitRouted(route, message, PendingRequest.Operation.EXECUTE, null);
+  }
+
+  /** A copy of {@code message} noting {@code refused} suppressed messages, if the note fits. */
+  private static WebhookMessage withSummary(WebhookMessage message, long refused) {
+    String note = "(+" + refused + " more suppressed)";
+    String content = message.content;
+    String joined = content == null || content.isBlank() ? note : content + '\n' + note;
+    if (joined.length() > PayloadWriter.MAX_CONTENT) {
+      return message;
+    }
+    WebhookMessage copy = new WebhookMessage();
+    copy.username = message.username;
+    copy.avatarUrl = message.avatarUrl;
+    copy.content = joined;
+    copy.embeds = message.embeds;
+    copy.allowedMentions = message.allowedMentions;
+    copy.attachments = message.attachments;
+    return copy;
+  }
+
+  @Override
+  public CompletableFuture<SendResult> sendTracked(String route, WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
+    return submit(route, message, PendingRequest.Operation.EXECUTE_WAIT, null);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> edit(String route, String messageId, WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
+    return submit(route, message, PendingRequest.Operation.EDIT, requireMessageId(messageId));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> delete(String route, String messageId) {
+    return submit(route, null, PendingRequest.Operation.DELETE, requireMessageId(messageId));
+  }
+
+  @Override
+  public PreparedMessage prepare(WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
     Config cfg = this.config;
-    UUID requestId = UUID.randomUUID();
-    if (!cfg.core().enabled()) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "DISABLED", "MinDiscord disabled via config", requestId.toString()));
+    try {
+      return PreparedPayload.of(message, cfg.defaults(), cfg.attachments());
+    } catch (PayloadWriter.InvalidPayloadException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to encode payload", e);
     }
-    if (!cfg.announce().enabled()) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "DISABLED", "Announcements disabled via config", requestId.toString()));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, PreparedMessage message) {
+    Objects.requireNonNull(message, "message");
+    if (!(message instanceof PreparedPayload payload)) {
+      throw new IllegalArgumentException("PreparedMessage was not created by this bus");
     }
-    WebhookMessage normalized = normalize(message, cfg.defaults());
-    String validationError = validate(normalized);
-    if (validationError != null) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "BAD_PAYLOAD", validationError, requestId.toString()));
+    SendResult rejected = checkEnabled();
+    if (rejected != null) {
+      return CompletableFuture.completedFuture(rejected);
     }
-    if (!cfg.announce().isRouteAllowed(route)) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "ROUTE_DISABLED", "Route not allowed by configuration", requestId.toString()));
+    return dispatch(route, payload, PendingRequest.Operation.EXECUTE, null, RequestIds.next());
+  }
+
+  @Override
+  public BroadcastResult broadcast(Collection<String> routes, WebhookMessage message) {
+    Objects.requireNonNull(routes, "routes");
+    Objects.requireNonNull(message, "message");
+    SendResult failure = checkEnabled();
+    PreparedPayload payload = null;
+    if (failure == null) {
+      Config cfg = this.config;
+      try {
+        payload = PreparedPayload.of(message, cfg.defaults(), cfg.attachments());
+      } catch (PayloadWriter.InvalidPayloadException e) {
+        failure = new SendResult(false, "BAD_PAYLOAD", e.getMessage(), RequestIds.nextText());
+      } catch (IOException e) {
+        failure =
+            new SendResult(
+                false, "BAD_PAYLOAD", "Failed to encode payload", RequestIds.nextText());
+      }
     }
-    Router.RouteResolution resolution = router.resolve(route);
-    if (!resolution.ok()) {
-      String code = "BAD_ROUTE";
-      String messageText;
-      if (resolution.status() == Router.Status.ENV_MISSING) {
-        messageText =
-            "Route "
-                + resolution.requestedRoute()
-                + " missing env:"
-                + Objects.requireNonNullElse(resolution.envVariable(), "");
-      } else {
-        messageText = "Unknown route: " + resolution.requestedRoute();
+    return broadcast(routes, payload, failure);
+  }
+
+  @Override
+  public BroadcastResult broadcast(Collection<String> routes, PreparedMessage message) {
+    Objects.requireNonNull(routes, "routes");
+    Objects.requireNonNull(message, "message");
+    if (!(message instanceof PreparedPayload payload)) {
+      throw new IllegalArgumentException("PreparedMessage was not created by this bus");
+    }
+    return broadcast(routes, payload, checkEnabled());
+  }
+
+  /**
+   * Builds one request per distinct webhook, all sharing {@code payload}'s bytes, and queues them in a
+   * single queue operation. When {@code failure} is set every route completes with it.
+   */
+  private BroadcastResult broadcast(
+      Collection<String> routes, PreparedPayload payload, SendResult failure) {
+    Map<String, CompletableFuture<SendResult>> results = new LinkedHashMap<>();
+    Map<String, CompletableFuture<SendResult>> byUrl = new HashMap<>();
+    List<PendingRequest> batch = new ArrayList<>(routes.size());
+    long now = timeSource.nanoTime();
+    for (String route : routes) {
+      if (results.containsKey(route)) {
+        continue;
       }
-      return CompletableFuture.completedFuture(
-          new SendResult(false, code, messageText, requestId.toString()));
+      if (failure != null) {
+        results.put(route, CompletableFuture.completedFuture(failure));
+        continue;
+      }
+      long requestId = RequestIds.next();
+      Router.RouteResolution resolution = router.resolveAllowed(route);
+      SendResult rejected = routeFailure(resolution, requestId);
+      if (rejected != null) {
+        results.put(route, CompletableFuture.completedFuture(rejected));
+        continue;
+      }
+      CompletableFuture<SendResult> future = byUrl.get(resolution.url());
+      if (future == null) {
+        PendingRequest pending =
+            newRequest(requestId, resolution, payload, PendingRequest.Operation.EXECUTE, null, now);
+        future = pending.future();
+        byUrl.put(resolution.url(), future);
+        batch.add(pending);
+      }
+      results.put(route, future);
     }
-    String json;
-    int payloadBytes;
-    int embedCount = normalized.embeds != null ? normalized.embeds.size() : 0;
-    try {
-      json = buildPayload(normalized);
-      payloadBytes = json.getBytes(StandardCharsets.UTF_8).length;
-    } catch (Exception e) {
-      return CompletableFuture.completedFuture(
-          new SendResult(false, "BAD_PAYLOAD", "Failed to encode payload", requestId.toString()));
+    offerAll(batch);
+    return new BroadcastResult(Collections.unmodifiableMap(results), allOf(results));
+  }
+
+  @Override
+  public BatchResult sendAll(List<RoutedMessage> messages) {
+    Objects.requireNonNull(messages, "messages");
+    List<CompletableFuture<SendResult>> results = new ArrayList<>(messages.size());
+    SendResult failure = checkEnabled();
+    if (failure != null) {
+      CompletableFuture<SendResult> failed = CompletableFuture.completedFuture(failure);
+      messages.forEach(ignored -> results.add(failed));
+      return new BatchResult(Collections.unmodifiableList(results), allOf(results));
     }
-    CompletableFuture<SendResult> future = new CompletableFuture<>();
-    PendingRequest pending =
-        new PendingRequest(
-            requestId,
-            resolution,
-            json,
-            payloadBytes,
-            embedCount,
-            future,
-            timeSource.now());
-    DispatchQueue.QueuePushResult push = queue.enqueue(pending);
-    if (!push.isEnqueued()) {
-      future.complete(new SendResult(false, "QUEUE_FULL", "Queue full", requestId.toString()));
-      return future;
+    List<PendingRequest> batch = new ArrayList<>(messages.size());
+    Config cfg = this.config;
+    long now = timeSource.nanoTime();
+    for (RoutedMessage item : messages) {
+      long requestId = RequestIds.next();
+      PreparedPayload payload;
+      try {
+        payload = PreparedPayload.of(item.message(), cfg.defaults(), cfg.attachments());
+      } catch (PayloadWriter.InvalidPayloadException e) {
+        results.add(
+            CompletableFuture.completedFuture(
+                new SendResult(false, "BAD_PAYLOAD", e.getMessage(), RequestIds.format(requestId))));
+        continue;
+      } catch (IOException e) {
+        results.add(
+            CompletableFuture.completedFuture(
+                new SendResult(
+                    false, "BAD_PAYLOAD", "Failed to encode payload", RequestIds.format(requestId))));
+        continue;
+      }
+      Router.RouteResolution resolution =
+          router.resolveAllowed(cfg.ruleEngine().route(item.route(), item.message()));
+      SendResult rejected = routeFailure(resolution, requestId);
+      if (rejected != null) {
+        results.add(CompletableFuture.completedFuture(rejected));
+        continue;
+      }
+      PendingRequest pending =
+          newRequest(requestId, resolution, payload, PendingRequest.Operation.EXECUTE, null, now);
+      results.add(pending.future());
+      batch.add(pending);
     }
-    PendingRequest dropped = push.dropped();
-    if (dropped != null) {
-      dropped.completeQueueFull();
+    offerAll(batch);
+    return new BatchResult(Collections.unmodifiableList(results), allOf(results));
+  }
+
+  /** Queues {@code batch} under one queue lock acquisition and a single worker wakeup. */
+  private void offerAll(List<PendingRequest> batch) {
+    if (batch.isEmpty()) {
+      return;
     }
-    return future;
+    if (buffersForTick() && tickBufferState.compareAndSet(TICK_IDLE, TICK_BUSY)) {
+      tickBuffer.addAll(batch);
+      tickBufferState.set(TICK_IDLE);
+      return;
+    }
+    enqueueAll(batch);
+  }
+
+  private void enqueueAll(List<PendingRequest> batch) {
+    DispatchQueue.BatchPushResult push = queue.enqueueAll(batch);
+    for (PendingRequest rejected : push.rejected()) {
+      discard(rejected);
+    }
+    for (PendingRequest dropped : push.dropped()) {
+      discard(dropped);
+    }
+  }
+
+  private static CompletableFuture<Map<String, SendResult>> allOf(
+      Map<String, CompletableFuture<SendResult>> results) {
+    return CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> {
+          Map<String, SendResult> all = new LinkedHashMap<>();
+          results.forEach((route, future) -> all.put(route, future.join()));
+          return Collections.unmodifiableMap(all);
+        });
   }
 
   @Override
-  public CompletableFuture<SendResult> send(String route, Embed embed) {
-    Objects.requireNonNull(embed, "embed");
-    WebhookMessage msg = new WebhookMessage();
-    msg.embeds = List.of(embed);
-    return send(route, msg);
+  public Flow.Subscriber<WebhookMessage> subscribe(String route) {
+    return new RouteSubscriber(route, this, CALLER.get());
   }
 
-  public DiagnosticsSnapshot diagnostics() {
-    Config cfg = this.config;
-    return new DiagnosticsSnapshot(
-        queue.size(), cfg.queue().capacity(), Map.copyOf(diagnostics.snapshot()));
+  @Override
+  public AnnounceBus forCaller(String callerId) {
+    if (callerId == null || callerId.isBlank()) {
+      throw new IllegalArgumentException("callerId may not be blank");
+    }
+    return new CallerBus(this, callerId);
   }
 
-  public List<Router.RouteInfo> routes() { return new ArrayList<>(router.snapshot()); }
+  /** Runs {@code action} with its requests attributed to {@code caller}'s rate-limit tier. */
+  <T> T asCaller(String caller, Supplier<T> action) {
+    String previous = CALLER.get();
+    CALLER.set(caller);
+    try {
+      return action.get();
+    } finally {
+      if (previous != null) {
+        CALLER.set(previous);
+      } else {
+        CALLER.remove();
+      }
+    }
+  }
+
+  boolean isClosed() {
+    return closed.get();
+  }
+
+  /**
+   * How many messages {@code route} can usefully have outstanding: its unspent rate-limit tokens,
+   * capped by free queue slots, and never less than one so a stream keeps moving.
+   */
+  int demandWindow(String route) {
+    Router.RouteResolution resolution = router.resolve(route);
+    String rateKey =
+        resolution != null && resolution.resolvedRoute() != null
+            ? resolution.resolvedRoute()
+            : "default";
+    int headroom = config.queue().capacity() - queue.size();
+    return Math.max(1, Math.min(rateLimiter.available(rateKey, timeSource), headroom));
+  }
+
+  private static CompletableFuture<List<SendResult>> allOf(
+      List<CompletableFuture<SendResult>> results) {
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> results.stream().map(CompletableFuture::join).toList());
+  }
 
   @Override
-  public void close() {
-    if (closed.compareAndSet(false, true)) {
-      worker.stop();
-      queue.close();
-      workerThread.interrupt();
+  public void registerTemplate(String templateId, List<String> params, WebhookMessage template) {
+    MessageTemplate compiled =
+        MessageTemplate.compile(templateId, params, template, config.defaults());
+    templates.put(templateId, compiled);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> sendTemplate(String route, String templateId, Object... args) {
+    Objects.requireNonNull(templateId, "templateId");
+    SendResult rejected = checkEnabled();
+    if (rejected != null) {
+      return CompletableFuture.completedFuture(rejected);
+    }
+    long requestId = RequestIds.next();
+    Config cfg = this.config;
+    MessageTemplate template = cfg.templates().get(templateId);
+    if (template == null) {
+      template = templates.get(templateId);
+    }
+    if (template == null) {
+      return CompletableFuture.completedFuture(
+          new SendResult(
+              false, "BAD_PAYLOAD", "Unknown template: " + templateId, RequestIds.format(requestId)));
+    }
+    PreparedPayload payload;
+    try {
+      byte[] json = template.render(args != null ? args : new Object[0]);
+      payload = PreparedPayload.ofJson(json, template.embedCount);
+    } catch (PayloadWriter.InvalidPayloadException e) {
+      return CompletableFuture.completedFuture(
+          new SendResult(false, "BAD_PAYLOAD", e.getMessage(), RequestIds.format(requestId)));
+    }
+    return dispatch(route, payload, PendingRequest.Operation.EXECUTE, null, requestId);
+  }
+
+  /**
+   * Applies the configured rules to new messages, then submits. Edits and deletes stay on the
+   * route they were asked for: the message lives on that webhook.
+   */
+  private CompletableFuture<SendResult> submit(
+      String route, WebhookMessage message, PendingRequest.Operation operation, String messageId) {
+    if (message != null && operation != PendingRequest.Operation.EDIT) {
+      route = config.ruleEngine().route(route, message);
+    }
+    return submitRouted(route, message, operation, messageId);
+  }
+
+  private CompletableFuture<SendResult> submitRouted(
+      String route, WebhookMessage message, PendingRequest.Operation operation, String messageId) {
+    SendResult rejected = checkEnabled();
+    if (rejected != null) {
+      return CompletableFuture.completedFuture(rejected);
+    }
+    long requestId = RequestIds.next();
+    PreparedPayload payload = null;
+    if (message != null) {
+      Config cfg = this.config;
       try {
-        workerThread.join(2000);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+        payload =
+            operation == PendingRequest.Operation.EDIT
+                ? PreparedPayload.forEdit(message)
+                : PreparedPayload.of(message, cfg.defaults(), cfg.attachments());
+      } catch (PayloadWriter.InvalidPayloadException e) {
+        return CompletableFuture.completedFuture(
+            new SendResult(false, "BAD_PAYLOAD", e.getMessage(), RequestIds.format(requestId)));
+      } catch (IOException e) {
+        return CompletableFuture.completedFuture(
+            new SendResult(
+                false, "BAD_PAYLOAD", "Failed to encode payload", RequestIds.format(requestId)));
       }
     }
+    return dispatch(route, payload, operation, messageId, requestId);
   }
 
-  private static WebhookMessage normalize(WebhookMessage original, Config.Defaults defaults) {
-    WebhookMessage copy = copyOf(original);
-    if (copy.username == null || copy.username.isBlank()) {
-      copy.username = defaults.username();
+  /** ROUTE_DISABLED for a {@code null} resolution (route not allowed), BAD_ROUTE if unresolved. */
+  private static SendResult routeFailure(Router.RouteResolution resolution, long requestId) {
+    if (resolution == null) {
+      return new SendResult(
+          false, "ROUTE_DISABLED", "Route not allowed by configuration", RequestIds.format(requestId));
     }
-    if ((copy.avatarUrl == null || copy.avatarUrl.isBlank()) && !defaults.avatarUrl().isBlank()) {
-      copy.avatarUrl = defaults.avatarUrl();
+    if (resolution.ok()) {
+      return null;
     }
-    return copy;
+    String messageText;
+    if (resolution.status() == Router.Status.ENV_MISSING) {
+      messageText =
+          "Route "
+              + resolution.requestedRoute()
+              + " missing env:"
+              + Objects.requireNonNullElse(resolution.envVariable(), "");
+    } else {
+      messageText = "Unknown route: " + resolution.requestedRoute();
+    }
+    return new SendResult(false, "BAD_ROUTE", messageText, RequestIds.format(requestId));
   }
 
-  private static WebhookMessage copyOf(WebhookMessage original) {
-    WebhookMessage copy = new WebhookMessage();
-    copy.username = original.username;
-    copy.avatarUrl = original.avatarUrl;
-    copy.content = original.content;
-    if (original.embeds != null) {
-      copy.embeds = new ArrayList<>(original.embeds);
+  /** {@code payload} is {@code null} only for deletes. */
+  private static PendingRequest newRequest(
+      long requestId,
+      Router.RouteResolution resolution,
+      PreparedPayload payload,
+      PendingRequest.Operation operation,
+      String messageId,
+      long enqueuedNanos) {
+    PendingRequest request =
+        buildRequest(requestId, resolution, payload, operation, messageId, enqueuedNanos);
+    request.callerKey = CALLER.get();
+    return request;
+  }
+
+  private static PendingRequest buildRequest(
+      long requestId,
+      Router.RouteResolution resolution,
+      PreparedPayload payload,
+      PendingRequest.Operation operation,
+      String messageId,
+      long enqueuedNanos) {
+    if (payload == null) {
+      return new PendingRequest(
+          requestId, resolution, operation, messageId, null, 0, 0, List.of(), 0L, enqueuedNanos);
     }
-    copy.allowedMentions = original.allowedMentions;
-    return copy;
+    return new PendingRequest(
+        requestId,
+        resolution,
+        operation,
+        messageId,
+        payload.json,
+        payload.json.length,
+        payload.embedCount,
+        payload.attachments,
+        payload.attachmentBytes,
+        enqueuedNanos);
   }
 
-  private static String validate(WebhookMessage message) {
-    if ((message.content == null || message.content.isBlank())
-        && (message.embeds == null || message.embeds.isEmpty())) {
-      return "Content or embeds required";
+  private SendResult checkEnabled() {
+    if (closed.get()) {
+      return new SendResult(false, "GIVE_UP", "MinDiscord shutting down", RequestIds.nextText());
     }
-    if (message.content != null && message.content.length() > 2000) {
-      return "Content exceeds 2000 characters";
+    Config cfg = this.config;
+    if (!cfg.core().enabled()) {
+      return new SendResult(
+          false, "DISABLED", "MinDiscord disabled via config", RequestIds.nextText());
     }
-    if (message.username != null && message.username.length() > 80) {
-      return "Username exceeds 80 characters";
+    if (!cfg.announce().enabled()) {
+      return new SendResult(
+          false, "DISABLED", "Announcements disabled via config", RequestIds.nextText());
     }
-    if (message.embeds != null) {
-      if (message.embeds.size() > 10) {
-        return "Too many embeds (max 10)";
-      }
-      for (Embed embed : message.embeds) {
-        String err = validateEmbed(embed);
-        if (err != null) {
-          return err;
-        }
+    return null;
+  }
+
+  /** Routes and queues an already validated payload; {@code payload} is null only for deletes. */
+  private CompletableFuture<SendResult> dispatch(
+      String route,
+      PreparedPayload payload,
+      PendingRequest.Operation operation,
+      String messageId,
+      long requestId) {
+    Router.RouteResolution resolution = router.resolveAllowed(route);
+    SendResult rejected = routeFailure(resolution, requestId);
+    if (rejected != null) {
+      return CompletableFuture.completedFuture(rejected);
+    }
+    String editKey = null;
+    if (operation == PendingRequest.Operation.EDIT) {
+      editKey = editKey(resolution.url(), messageId);
+      PendingRequest queued = pendingEdits.get(editKey);
+      if (queued != null
+          && queue.replacePayload(queued, payload.json, payload.embedCount)) {
+        return queued.future();
       }
     }
-    return null;
+    PendingRequest pending =
+        newRequest(requestId, resolution, payload, operation, messageId, timeSource.nanoTime());
+    CompletableFuture<SendResult> future = pending.future();
+    if (editKey != null) {
+      pendingEdits.put(editKey, pending);
+    }
+    offer(pending);
+    return future;
   }
 
-  private static String validateEmbed(Embed embed) {
-    if (embed == null) {
-      return "Embed cannot be null";
+  /** Queues {@code pending}, settling it and any evicted requests as QUEUE_FULL. */
+  private boolean offer(PendingRequest pending) {
+    if (buffersForTick() && tickBufferState.compareAndSet(TICK_IDLE, TICK_BUSY)) {
+      tickBuffer.add(pending);
+      tickBufferState.set(TICK_IDLE);
+      return true;
     }
-    if (embed.title != null && embed.title.length() > 256) {
-      return "Embed title too long";
+    DispatchQueue.QueuePushResult push = queue.enqueue(pending);
+    if (!push.isEnqueued()) {
+      discard(pending);
+      return false;
     }
-    if (embed.description != null && embed.description.length() > 4096) {
-      return "Embed description too long";
+    for (PendingRequest dropped : push.droppedAll()) {
+      discard(dropped);
     }
-    if (embed.footer != null && embed.footer.text != null && embed.footer.text.length() > 2048) {
-      return "Embed footer text too long";
+    return true;
+  }
+
+  private void discard(PendingRequest request) {
+    forgetEdit(request);
+    diagnostics.recordDropped(
+        request.resolvedRoute != null ? request.resolvedRoute : request.requestedRoute);
+    SendResult outcome = request.claimQueueFull();
+    if (outcome != null) {
+      completions.complete(request, outcome);
     }
-    if (embed.author != null && embed.author.name != null && embed.author.name.length() > 256) {
-      return "Embed author name too long";
+  }
+
+  @Override
+  public boolean post(String route, String content) {
+    if (checkEnabled() != null) {
+      return false;
     }
-    if (embed.fields != null) {
-      if (embed.fields.size() > 25) {
-        return "Embed has too many fields";
-      }
-      for (Embed.Field field : embed.fields) {
-        if (field.name != null && field.name.length() > 256) {
-          return "Embed field name too long";
-        }
-        if (field.value != null && field.value.length() > 1024) {
-          return "Embed field value too long";
-        }
-      }
+    Config cfg = this.config;
+    Config.Defaults defaults = cfg.defaults();
+    try {
+      return post(
+          cfg.ruleEngine().route(route, content),
+          PreparedPayload.ofJson(
+              PayloadWriter.writeContent(content, defaults.username(), defaults.avatarUrl()), 0));
+    } catch (PayloadWriter.InvalidPayloadException e) {
+      return false;
     }
-    return null;
   }
 
-  private static String buildPayload(WebhookMessage message) throws Exception {
-    ObjectNode root = JSON.createObjectNode();
-    if (message.username != null && !message.username.isBlank()) {
-      root.put("username", message.username);
+  @Override
+  public boolean post(String route, WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
+    if (checkEnabled() != null) {
+      return false;
     }
-    if (message.avatarUrl != null && !message.avatarUrl.isBlank()) {
-      root.put("avatar_url", message.avatarUrl);
+    Config cfg = this.config;
+    try {
+      return post(
+          cfg.ruleEngine().route(route, message),
+          PreparedPayload.of(message, cfg.defaults(), cfg.attachments()));
+    } catch (PayloadWriter.InvalidPayloadException | IOException e) {
+      return false;
     }
-    if (message.content != null) {
-      root.put("content", message.content);
+  }
+
+  @Override
+  public boolean post(String route, PreparedMessage message) {
+    Objects.requireNonNull(message, "message");
+    if (!(message instanceof PreparedPayload payload)) {
+      throw new IllegalArgumentException("PreparedMessage was not created by this bus");
     }
-    if (message.embeds != null && !message.embeds.isEmpty()) {
-      ArrayNode arr = root.putArray("embeds");
-      for (Embed embed : message.embeds) {
-        arr.add(serializeEmbed(embed));
-      }
+    return checkEnabled() == null && post(route, payload);
+  }
+
+  /** Fire-and-forget counterpart of {@link #dispatch}: no future or result is ever created. */
+  private boolean post(String route, PreparedPayload payload) {
+    Router.RouteResolution resolution = router.resolveAllowed(route);
+    if (resolution == null || !resolution.ok()) {
+      return false;
     }
-    if (message.allowedMentions != null) {
-      ObjectNode allowed = serializeAllowedMentions(message.allowedMentions);
-      if (allowed != null) {
-        root.set("allowed_mentions", allowed);
+    PendingRequest pending =
+        newRequest(
+            RequestIds.next(),
+            resolution,
+            payload,
+            PendingRequest.Operation.EXECUTE,
+            null,
+            timeSource.nanoTime());
+    pending.detach();
+    return offer(pending);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, Embed embed) {
+    Objects.requireNonNull(embed, "embed");
+    WebhookMessage msg = new WebhookMessage();
+    msg.embeds = List.of(embed);
+    return send(route, msg);
+  }
+
+  public DiagnosticsSnapshot diagnostics() {
+    return diagnostics(null, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Queue and latency state plus one page of per-route history and callback timings, both
+   * restricted to routes whose names contain {@code filter}.
+   */
+  public DiagnosticsSnapshot diagnostics(String filter, int page, int pageSize) {
+    Config cfg = this.config;
+    Page<Map.Entry<String, Diagnostics.RouteSnapshot>> routes =
+        diagnostics.page(filter, page, pageSize);
+    Page<Map.Entry<String, CompletionDispatcher.CallbackStats>> callbacks =
+        completions.page(filter, routes.page(), pageSize);
+    return new DiagnosticsSnapshot(
+        queue.size(),
+        cfg.queue().capacity(),
+        toMap(routes.items()),
+        transport.latency(),
+        completions.mode(),
+        toMap(callbacks.items()),
+        routes.total(),
+        routes.page(),
+        routes.pages());
+  }
+
+  private static <V> Map<String, V> toMap(List<Map.Entry<String, V>> entries) {
+    Map<String, V> map = new LinkedHashMap<>();
+    entries.forEach(entry -> map.put(entry.getKey(), entry.getValue()));
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * End-of-tick hook, called on the server thread. Queues the tick's buffered sends in one batch,
+   * then runs callbacks waiting for {@link Config.CompletionMode#SERVER_THREAD}.
+   */
+  public void onServerTick() {
+    serverThread = Thread.currentThread();
+    flushTick();
+    completions.drainServerThread();
+  }
+
+  private boolean buffersForTick() {
+    return Thread.currentThread() == serverThread && config.queue().tickAligned();
+  }
+
+  private void flushTick() {
+    if (!tickBufferState.compareAndSet(TICK_IDLE, TICK_BUSY)) {
+      // Closed: close() drained the buffer.
+      return;
+    }
+    try {
+      if (!tickBuffer.isEmpty()) {
+        // Completions settled here may send again; with the buffer BUSY those go to the queue.
+        enqueueAll(tickBuffer);
+        tickBuffer.clear();
       }
+    } finally {
+      // Fails only if a callback above closed the bus, which leaves the buffer CLOSED.
+      tickBufferState.compareAndSet(TICK_BUSY, TICK_IDLE);
     }
-    return JSON.writeValueAsString(root);
-  }
-
-  private static ObjectNode serializeEmbed(Embed embed) {
-    ObjectNode node = JSON.createObjectNode();
-    if (embed.title != null) node.put("title", embed.title);
-    if (embed.description != null) node.put("description", embed.description);
-    if (embed.url != null) node.put("url", embed.url);
-    if (embed.color != null) node.put("color", embed.color);
-    if (embed.author != null) {
-      ObjectNode author = JSON.createObjectNode();
-      if (embed.author.name != null) author.put("name", embed.author.name);
-      if (embed.author.url != null) author.put("url", embed.author.url);
-      if (embed.author.iconUrl != null) author.put("icon_url", embed.author.iconUrl);
-      node.set("author", author);
-    }
-    if (embed.footer != null) {
-      ObjectNode footer = JSON.createObjectNode();
-      if (embed.footer.text != null) footer.put("text", embed.footer.text);
-      if (embed.footer.iconUrl != null) footer.put("icon_url", embed.footer.iconUrl);
-      node.set("footer", footer);
-    }
-    if (embed.thumbnail != null && embed.thumbnail.url != null) {
-      ObjectNode thumb = JSON.createObjectNode();
-      thumb.put("url", embed.thumbnail.url);
-      node.set("thumbnail", thumb);
-    }
-    if (embed.image != null && embed.image.url != null) {
-      ObjectNode img = JSON.createObjectNode();
-      img.put("url", embed.image.url);
-      node.set("image", img);
-    }
-    if (embed.fields != null && !embed.fields.isEmpty()) {
-      ArrayNode fields = node.putArray("fields");
-      for (Embed.Field field : embed.fields) {
-        ObjectNode fn = JSON.createObjectNode();
-        if (field.name != null) fn.put("name", field.name);
-        if (field.value != null) fn.put("value", field.value);
-        fn.put("inline", field.inline);
-        fields.add(fn);
+  }
+
+  /**
+   * Takes the tick buffer away from the server thread and queues what it holds, so sends buffered
+   * this tick are delivered or settled by the queue's close whichever thread closes the bus. Waits
+   * only while the server thread is inside an add or a flush.
+   */
+  private void closeTickBuffer() {
+    for (int attempt = 0; ; attempt++) {
+      int state = tickBufferState.get();
+      if (state == TICK_CLOSED) {
+        return;
+      }
+      if (state == TICK_IDLE && tickBufferState.compareAndSet(TICK_IDLE, TICK_CLOSED)) {
+        break;
+      }
+      if (state == TICK_BUSY && Thread.currentThread() == serverThread) {
+        // Closed from a callback run by flushTick(), which finishes queuing the buffer itself.
+        tickBufferState.set(TICK_CLOSED);
+        return;
+      }
+      if (attempt < SPINS_BEFORE_YIELD) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
       }
     }
-    return node;
+    if (!tickBuffer.isEmpty()) {
+      enqueueAll(tickBuffer);
+      tickBuffer.clear();
+    }
   }
 
-  private static ObjectNode serializeAllowedMentions(AllowedMentions mentions) {
-    ObjectNode node = JSON.createObjectNode();
-    ArrayNode parse = JSON.createArrayNode();
-    if (mentions.parseEveryone) parse.add("everyone");
-    if (mentions.parseRoles) parse.add("roles");
-    if (mentions.parseUsers) parse.add("users");
-    if (!parse.isEmpty()) {
-      node.set("parse", parse);
+  public List<Router.RouteInfo> routes() { return router.snapshot(); }
+
+  public Page<Router.RouteInfo> routes(String filter, int page, int pageSize) {
+    return router.routes(filter, page, pageSize);
+  }
+
+  /** Re-reads the environment variables behind {@code env:} routes. */
+  public void refreshEnvironment() {
+    router.refreshEnvironment();
+  }
+
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      closeTickBuffer();
+      worker.stop();
+      for (PendingRequest pending : queue.close()) {
+        discard(pending);
+      }
+      workerThread.interrupt();
+      try {
+        workerThread.join(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      completions.close();
     }
-    if (mentions.roles != null && !mentions.roles.isEmpty()) {
-      ArrayNode roles = node.putArray("roles");
-      mentions.roles.forEach(roles::add);
+  }
+
+  private static String requireMessageId(String messageId) {
+    Objects.requireNonNull(messageId, "messageId");
+    if (messageId.isBlank() || !messageId.chars().allMatch(Character::isDigit)) {
+      throw new IllegalArgumentException("messageId must be a Discord snowflake");
     }
-    if (mentions.users != null && !mentions.users.isEmpty()) {
-      ArrayNode users = node.putArray("users");
-      mentions.users.forEach(users::add);
+    return messageId;
+  }
+
+  private static String editKey(String url, String messageId) {
+    return url + '#' + messageId;
+  }
+
+  private void forgetEdit(PendingRequest request) {
+    if (request.operation == PendingRequest.Operation.EDIT) {
+      pendingEdits.remove(editKey(request.url, request.messageId), request);
     }
-    return node.isEmpty() ? null : node;
   }
 
+  /**
+   * {@code routes} and {@code callbacks} hold one page; {@code routeTotal} counts every route with
+   * history that matched the filter.
+   */
   public record DiagnosticsSnapshot(
-      int queueSize, int queueCapacity, Map<String, Diagnostics.RouteSnapshot> routes) {}
+      int queueSize,
+      int queueCapacity,
+      Map<String, Diagnostics.RouteSnapshot> routes,
+      Map<String, WebhookTransport.LatencyStats> latency,
+      Config.CompletionMode completionMode,
+      Map<String, CompletionDispatcher.CallbackStats> callbacks,
+      int routeTotal,
+      int page,
+      int pages) {}
 
   private final class SendWorker implements Runnable {
+    // Only touched by the worker thread; reused so fire-and-forget requests allocate no result.
+    private final Outcome outcome = new Outcome();
     private volatile boolean running = true;
     private volatile Config.Transport transportConfig = Config.Transport.DEFAULTS;
 
@@ -393,67 +894,125 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
     }
 
     private void process(PendingRequest request) {
+      request.claim();
+      forgetEdit(request);
+      boolean settled = false;
       try {
         String rateKey = request.resolvedRoute != null ? request.resolvedRoute : "default";
-        Duration wait = rateLimiter.acquire(rateKey, timeSource);
-        if (!wait.isZero()) {
-          sleeper.sleep(wait);
+        // The webhook tier is charged to the webhook the first attempt will actually reach.
+        boolean failedOver =
+            request.failoverUrl != null && !health.isHealthy(request.url, timeSource.nanoTime());
+        long wait =
+            rateLimiter.acquireNanos(
+                failedOver ? request.failoverUrl : request.url,
+                rateKey,
+                request.callerKey,
+                timeSource);
+        if (wait > 0L) {
+          sleeper.sleep(Duration.ofNanos(wait));
         }
-        DeliveryResult result = deliver(request, transportConfig);
-        request.future.complete(result.result());
-        if (result.success()) {
-          diagnostics.recordSuccess(request.resolvedRoute, timeSource.now(), result.result().message());
+        Outcome result = deliver(request, transportConfig, failedOver);
+        if (request.wantsResult()) {
+          completions.complete(request, result.toResult(request.requestIdText()));
+        }
+        if (result.success) {
+          diagnostics.recordSuccess(request.resolvedRoute, timeSource.now(), result.message);
         } else {
           diagnostics.recordFailure(
               request.resolvedRoute != null ? request.resolvedRoute : "unknown",
               timeSource.now(),
-              result.result().code(),
-              result.result().message());
+              result.code,
+              result.message);
         }
+        settled = true;
         if (request.resolvedRoute != null) {
-          statsStore.record(request.resolvedRoute, result.success());
+          statsStore.record(request.resolvedRoute, result.success);
         }
         String requested = request.requestedRoute;
         String extraRequested = Objects.equals(request.resolvedRoute, requested) ? null : requested;
         bridge.logLedger(
             request.resolvedRoute != null ? request.resolvedRoute : "unknown",
-            result.success(),
-            result.result().code(),
-            request.requestId.toString(),
+            result.success,
+            result.code,
+            request.requestIdText(),
             request.resolvedRoute,
             extraRequested,
-            request.payloadBytes,
-            request.embedCount);
+            request.payloadBytes(),
+            request.embedCount());
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
-        request.future.complete(
-            new SendResult(false, "GIVE_UP", "Interrupted", request.requestId.toString()));
+        if (!settled) {
+          giveUp(request, "Interrupted");
+        }
       } catch (Exception e) {
         LOGGER.error("Worker failed: {}", e.toString());
-        request.future.complete(
-            new SendResult(false, "GIVE_UP", "Worker failure", request.requestId.toString()));
+        if (!settled) {
+          giveUp(request, "Worker failure");
+        }
       }
     }
 
-    private DeliveryResult deliver(PendingRequest request, Config.Transport transportConfig)
+    /** Settles a request the worker could not finish, like any other failed delivery. */
+    private void giveUp(PendingRequest request, String message) {
+      diagnostics.recordFailure(
+          request.resolvedRoute != null ? request.resolvedRoute : "unknown",
+          timeSource.now(),
+          "GIVE_UP",
+          message);
+      if (request.wantsResult()) {
+        completions.complete(
+            request, new SendResult(false, "GIVE_UP", message, request.requestIdText()));
+      }
+    }
+
+    private Outcome deliver(
+        PendingRequest request, Config.Transport transportConfig, boolean failedOver)
         throws InterruptedException {
       Duration delay = DEFAULT_RETRY_BASE;
       Duration maxDelay = DEFAULT_RETRY_MAX;
       int attempts = transportConfig.maxAttempts();
       String lastCode = null;
       String lastMessage = null;
+      byte[] payload = request.jsonPayload();
       for (int attempt = 1; attempt <= attempts; attempt++) {
-        WebhookTransport.TransportResponse response =
-            AnnounceBusImpl.this.transport.postJson(request.url, request.jsonPayload);
-        if (response.success()) {
-          String code = request.fallback ? "BAD_ROUTE_FALLBACK" : "OK";
-          String msg =
-              request.fallback
-                  ? "Sent via " + request.resolvedRoute + " (fallback)"
-                  : "Sent";
-          return DeliveryResult.success(new SendResult(true, code, msg, request.requestId.toString()));
+        String url = failedOver ? request.failoverUrl : request.url;
+        URI target = failedOver ? request.failoverTarget : request.target;
+        long started = timeSource.nanoTime();
+        WebhookTransport.TransportResponse response;
+        if (target == null) {
+          response =
+              new WebhookTransport.TransportResponse(
+                  false, -1, null, new IllegalArgumentException("Invalid webhook URL"));
+        } else if (!request.attachments.isEmpty()) {
+          response =
+              AnnounceBusImpl.this.transport.exchangeMultipart(
+                  request.operation.method, target, payload, request.attachments);
+        } else if (request.operation == PendingRequest.Operation.EXECUTE) {
+          response = AnnounceBusImpl.this.transport.postJson(target, payload);
+        } else {
+          response =
+              AnnounceBusImpl.this.transport.exchange(request.operation.method, target, payload);
         }
+        long finished = timeSource.nanoTime();
         int status = response.statusCode();
+        if (status == WebhookTransport.TransportResponse.UNREADABLE_ATTACHMENT) {
+          // Nothing reached the webhook, so its health is untouched and a retry would fail alike.
+          return outcome.set(false, "BAD_PAYLOAD", response.error().getMessage(), null);
+        }
+        // A missing or revoked webhook, not a bad message; edits and deletes 404 on the message.
+        boolean webhookGone =
+            (status == 401 || status == 403 || status == 404)
+                && (request.operation == PendingRequest.Operation.EXECUTE
+                    || request.operation == PendingRequest.Operation.EXECUTE_WAIT);
+        if (webhookGone) {
+          health.recordGone(url, finished);
+        } else {
+          boolean webhookFault = status == 429 || status >= 500 || status == -1;
+          health.recordResponse(url, !webhookFault, finished - started, finished);
+        }
+        if (response.success()) {
+          return successOutcome(request, response, failedOver);
+        }
         if (status == 429) {
           lastCode = "DISCORD_429";
           lastMessage = "Discord returned 429";
@@ -461,6 +1020,16 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
             break;
           }
           Duration wait = response.retryAfter();
+          if (wait != null && wait.isPositive()) {
+            rateLimiter.throttle(url, wait.toNanos(), timeSource);
+          }
+          if (!failedOver
+              && request.failoverUrl != null
+              && health.recordThrottle(url, wait, finished)) {
+            failedOver = true;
+            reserveFailover(request);
+            continue;
+          }
           if (wait == null || wait.isZero() || wait.isNegative()) {
             wait = applyJitter(delay, maxDelay);
           }
@@ -477,15 +1046,24 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
           if (attempt >= attempts) {
             break;
           }
+          if (!failedOver && request.failoverUrl != null && !health.isHealthy(url, finished)) {
+            failedOver = true;
+            reserveFailover(request);
+            continue;
+          }
           sleeper.sleep(applyJitter(delay, maxDelay));
           delay = nextDelay(delay, maxDelay);
           continue;
         }
+        if (webhookGone && !failedOver && request.failoverUrl != null && attempt < attempts) {
+          failedOver = true;
+          reserveFailover(request);
+          continue;
+        }
         if (status >= 400) {
           lastCode = "BAD_PAYLOAD";
           lastMessage = "Discord rejected payload (HTTP " + status + ")";
-          return DeliveryResult.failure(
-              new SendResult(false, lastCode, lastMessage, request.requestId.toString()));
+          return outcome.set(false, lastCode, lastMessage, null);
         }
         lastCode = "NETWORK_IO";
         lastMessage = "Unexpected transport failure";
@@ -495,7 +1073,29 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
               "Retries exhausted after %d attempts (last=%s)",
               transportConfig.maxAttempts(),
               lastCode != null ? lastCode : "unknown");
-      return DeliveryResult.failure(new SendResult(false, "GIVE_UP", message, request.requestId.toString()));
+      return outcome.set(false, "GIVE_UP", message, null);
+    }
+
+    /** Books the failover webhook's own slot before the first send moved to it mid-delivery. */
+    private void reserveFailover(PendingRequest request) throws InterruptedException {
+      long wait = rateLimiter.acquireWebhookNanos(request.failoverUrl, timeSource);
+      if (wait > 0L) {
+        sleeper.sleep(Duration.ofNanos(wait));
+      }
+    }
+
+    private Outcome successOutcome(
+        PendingRequest request, WebhookTransport.TransportResponse response, boolean failedOver) {
+      String messageId = request.messageId != null ? request.messageId : response.messageId();
+      if (failedOver) {
+        return outcome.set(
+            true, "FAILOVER", "Sent via " + request.failoverRoute + " (failover)", messageId);
+      }
+      if (request.fallback) {
+        return outcome.set(
+            true, "BAD_ROUTE_FALLBACK", "Sent via " + request.resolvedRoute + " (fallback)", messageId);
+      }
+      return outcome.set(true, "OK", "Sent", messageId);
     }
 
     private Duration nextDelay(Duration current, Duration maxDelay) {
@@ -515,9 +1115,22 @@ public final class AnnounceBusImpl implements AnnounceBus, AutoCloseable {
     }
   }
 
-  private record DeliveryResult(SendResult result, boolean success) {
-    static DeliveryResult success(SendResult result) { return new DeliveryResult(result, true); }
+  private static final class Outcome {
+    boolean success;
+    String code;
+    String message;
+    String messageId;
+
+    Outcome set(boolean success, String code, String message, String messageId) {
+      this.success = success;
+      this.code = code;
+      this.message = message;
+      this.messageId = messageId;
+      return this;
+    }
 
-    static DeliveryResult failure(SendResult result) { return new DeliveryResult(result, false); }
+    SendResult toResult(String requestId) {
+      return new SendResult(success, code, message, requestId, messageId);
+    }
   }
 }
@@ -0,0 +1,120 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.AnnounceBus;
+import dev.mindiscord.api.BatchResult;
+import dev.mindiscord.api.BroadcastResult;
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.PreparedMessage;
+import dev.mindiscord.api.RoutedMessage;
+import dev.mindiscord.api.SendResult;
+import dev.mindiscord.api.WebhookMessage;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/** {@link AnnounceBus#forCaller} view: every request it submits carries the caller's limiter key. */
+final class CallerBus implements AnnounceBus {
+  private final AnnounceBusImpl bus;
+  private final String caller;
+
+  CallerBus(AnnounceBusImpl bus, String caller) {
+    this.bus = bus;
+    this.caller = caller;
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, String content) {
+    return bus.asCaller(caller, () -> bus.send(route, content));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.send(route, msg));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, Embed embed) {
+    return bus.asCaller(caller, () -> bus.send(route, embed));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, String limitKey, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.send(route, limitKey, msg));
+  }
+
+  @Override
+  public PreparedMessage prepare(WebhookMessage msg) {
+    return bus.prepare(msg);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> send(String route, PreparedMessage msg) {
+    return bus.asCaller(caller, () -> bus.send(route, msg));
+  }
+
+  @Override
+  public BroadcastResult broadcast(Collection<String> routes, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.broadcast(routes, msg));
+  }
+
+  @Override
+  public BroadcastResult broadcast(Collection<String> routes, PreparedMessage msg) {
+    return bus.asCaller(caller, () -> bus.broadcast(routes, msg));
+  }
+
+  @Override
+  public BatchResult sendAll(List<RoutedMessage> messages) {
+    return bus.asCaller(caller, () -> bus.sendAll(messages));
+  }
+
+  @Override
+  public boolean post(String route, String content) {
+    return bus.asCaller(caller, () -> bus.post(route, content));
+  }
+
+  @Override
+  public boolean post(String route, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.post(route, msg));
+  }
+
+  @Override
+  public boolean post(String route, PreparedMessage msg) {
+    return bus.asCaller(caller, () -> bus.post(route, msg));
+  }
+
+  @Override
+  public Flow.Subscriber<WebhookMessage> subscribe(String route) {
+    return bus.asCaller(caller, () -> bus.subscribe(route));
+  }
+
+  @Override
+  public void registerTemplate(String templateId, List<String> params, WebhookMessage template) {
+    bus.registerTemplate(templateId, params, template);
+  }
+
+  @Override
+  public CompletableFuture<SendResult> sendTemplate(String route, String templateId, Object... args) {
+    return bus.asCaller(caller, () -> bus.sendTemplate(route, templateId, args));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> sendTracked(String route, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.sendTracked(route, msg));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> edit(String route, String messageId, WebhookMessage msg) {
+    return bus.asCaller(caller, () -> bus.edit(route, messageId, msg));
+  }
+
+  @Override
+  public CompletableFuture<SendResult> delete(String route, String messageId) {
+    return bus.asCaller(caller, () -> bus.delete(route, messageId));
+  }
+
+  @Override
+  public AnnounceBus forCaller(String callerId) {
+    return bus.forCaller(callerId);
+  }
+}
@@ -0,0 +1,166 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.SendResult;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Completes caller futures according to {@link Config.Completion}. Completing a future runs every
+ * callback chained on it without an explicit executor, so this keeps plugin code off the delivery
+ * worker and times it per caller ({@link dev.mindiscord.api.AnnounceBus#forCaller}), or per route
+ * for sends made without one.
+ */
+final class CompletionDispatcher implements AutoCloseable {
+  private final ConcurrentLinkedQueue<Runnable> serverThread = new ConcurrentLinkedQueue<>();
+  private final ConcurrentHashMap<String, CallbackState> callbacks = new ConcurrentHashMap<>();
+  private final TimeSource timeSource;
+
+  private volatile Config.CompletionMode mode = Config.CompletionMode.WORKER;
+  private volatile ExecutorService executor;
+  private int poolThreads;
+
+  CompletionDispatcher(TimeSource timeSource) {
+    this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+  }
+
+  synchronized void configure(Config.Completion completion) {
+    Config.CompletionMode next = completion.mode();
+    boolean samePool = next != Config.CompletionMode.POOL || completion.poolThreads() == poolThreads;
+    if (next == mode && samePool) {
+      return;
+    }
+    ExecutorService previous = executor;
+    executor =
+        switch (next) {
+          case POOL -> Executors.newFixedThreadPool(completion.poolThreads(), daemonThreads());
+          case VIRTUAL -> Executors.newThreadPerTaskExecutor(
+              Thread.ofVirtual().name("MinDiscord-Callback-", 0).factory());
+          case WORKER, SERVER_THREAD -> null;
+        };
+    poolThreads = completion.poolThreads();
+    mode = next;
+    if (previous != null) {
+      // Already queued completions still run; only new ones go to the replacement.
+      previous.shutdown();
+    }
+    if (next != Config.CompletionMode.SERVER_THREAD) {
+      runServerThreadBacklog();
+    }
+  }
+
+  Config.CompletionMode mode() {
+    return mode;
+  }
+
+  /** Hands {@code result} to {@code request}'s future on the configured thread. */
+  void complete(PendingRequest request, SendResult result) {
+    Runnable task = () -> completeTimed(request, result);
+    switch (mode) {
+      case WORKER -> task.run();
+      case SERVER_THREAD -> serverThread.add(task);
+      case POOL, VIRTUAL -> execute(task);
+    }
+  }
+
+  /** Runs completions queued for the server thread; call once per tick from that thread. */
+  void drainServerThread() {
+    Runnable task;
+    while ((task = serverThread.poll()) != null) {
+      task.run();
+    }
+  }
+
+  /** One page of callers' and routes' callback timings, ordered by name. */
+  Page<Map.Entry<String, CallbackStats>> page(String filter, int page, int pageSize) {
+    return Page.of(callbacks.keySet(), filter, page, pageSize, key -> {
+      CallbackState state = callbacks.get(key);
+      long count = state.count.sum();
+      long totalNanos = state.totalNanos.sum();
+      return Map.entry(
+          key,
+          new CallbackStats(
+              count,
+              count > 0 ? TimeUnit.NANOSECONDS.toMicros(totalNanos / count) : 0,
+              TimeUnit.NANOSECONDS.toMicros(state.maxNanos.get())));
+    });
+  }
+
+  /** Stops accepting pool work and runs anything still waiting for a server tick. */
+  @Override
+  public synchronized void close() {
+    ExecutorService previous = executor;
+    executor = null;
+    mode = Config.CompletionMode.WORKER;
+    if (previous != null) {
+      previous.shutdown();
+    }
+    runServerThreadBacklog();
+  }
+
+  private void runServerThreadBacklog() {
+    Runnable task;
+    while ((task = serverThread.poll()) != null) {
+      execute(task);
+    }
+  }
+
+  private void execute(Runnable task) {
+    ExecutorService target = executor;
+    if (target == null) {
+      task.run();
+      return;
+    }
+    try {
+      target.execute(task);
+    } catch (RejectedExecutionException e) {
+      // Raced a reconfiguration or close; completing on this thread beats never completing.
+      task.run();
+    }
+  }
+
+  private void completeTimed(PendingRequest request, SendResult result) {
+    long started = timeSource.nanoTime();
+    try {
+      request.complete(result);
+    } finally {
+      long elapsed = timeSource.nanoTime() - started;
+      // The callbacks are the caller's code, so their cost is charged to it rather than the route.
+      String key =
+          request.callerKey != null
+              ? request.callerKey
+              : request.requestedRoute != null ? request.requestedRoute : "unknown";
+      CallbackState state = callbacks.computeIfAbsent(key, k -> new CallbackState());
+      state.count.increment();
+      state.totalNanos.add(elapsed);
+      state.maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+  }
+
+  private static ThreadFactory daemonThreads() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "MinDiscord-Callback-" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static final class CallbackState {
+    final LongAdder count = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+  }
+
+  /** Completions run for a caller or route and the time their callbacks took, in microseconds. */
+  public record CallbackStats(long count, long avgMicros, long maxMicros) {}
+}
@@ -1,17 +1,23 @@
 package dev.mindiscord.core;
 
+import dev.mindiscord.api.WebhookMessage;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /** Immutable runtime configuration for MinDiscord. */
 public final class Config {
   private final Core core;
   private final Map<String, RouteDefinition> routes;
+  private final List<RouteDefinition> patternRoutes;
   private final Defaults defaults;
   private final Announce announce;
   private final Queue queue;
@@ -19,19 +25,32 @@ public final class Config {
   private final RateLimit rateLimit;
   private final Commands commands;
   private final Permissions permissions;
+  private final Failover failover;
+  private final Attachments attachments;
+  private final Completion completion;
+  private final Map<String, MessageTemplate> templates;
+  private final List<Rule> rules;
+  private final RuleEngine ruleEngine;
 
   private Config(
       Core core,
       Map<String, RouteDefinition> routes,
+      List<RouteDefinition> patternRoutes,
       Defaults defaults,
       Announce announce,
       Queue queue,
       Transport transport,
       RateLimit rateLimit,
       Commands commands,
-      Permissions permissions) {
+      Permissions permissions,
+      Failover failover,
+      Attachments attachments,
+      Completion completion,
+      Map<String, MessageTemplate> templates,
+      List<Rule> rules) {
     this.core = core;
     this.routes = routes;
+    this.patternRoutes = patternRoutes;
     this.defaults = defaults;
     this.announce = announce;
     this.queue = queue;
@@ -39,6 +58,12 @@ public final class Config {
     this.rateLimit = rateLimit;
     this.commands = commands;
     this.permissions = permissions;
+    this.failover = failover;
+    this.attachments = attachments;
+    this.completion = completion;
+    this.templates = templates;
+    this.rules = rules;
+    this.ruleEngine = RuleEngine.compile(rules, defaults);
   }
 
   public Core core() {
@@ -49,6 +74,11 @@ public final class Config {
     return routes;
   }
 
+  /** The routes whose names are patterns, so the router need not scan every route for them. */
+  List<RouteDefinition> patternRoutes() {
+    return patternRoutes;
+  }
+
   public Defaults defaults() {
     return defaults;
   }
@@ -77,6 +107,33 @@ public final class Config {
     return permissions;
   }
 
+  public Failover failover() {
+    return failover;
+  }
+
+  public Attachments attachments() {
+    return attachments;
+  }
+
+  public Completion completion() {
+    return completion;
+  }
+
+  /** Operator-defined templates, compiled against this config's {@link #defaults()}. */
+  Map<String, MessageTemplate> templates() {
+    return templates;
+  }
+
+  /** Content-based routing rules, in the order they are tried. */
+  public List<Rule> rules() {
+    return rules;
+  }
+
+  /** {@link #rules()} compiled for the send path. */
+  RuleEngine ruleEngine() {
+    return ruleEngine;
+  }
+
   public List<RouteDefinition> orderedRoutes() {
     return new ArrayList<>(routes.values());
   }
@@ -99,13 +156,25 @@ public final class Config {
     private RateLimit rateLimit = RateLimit.DEFAULTS;
     private Commands commands = Commands.DEFAULTS;
     private Permissions permissions = Permissions.DEFAULTS;
+    private Failover failover = Failover.DEFAULTS;
+    private Attachments attachments = Attachments.DEFAULTS;
+    private Completion completion = Completion.DEFAULTS;
+    private final Map<String, TemplateDefinition> templates = new LinkedHashMap<>();
+    private final List<Rule> rules = new ArrayList<>();
 
     public Builder core(Core core) {
       this.core = Objects.requireNonNull(core, "core");
       return this;
     }
 
+    /**
+     * Adds a route. A name containing {@code *} is a pattern ({@code drops.*}, {@code events.**})
+     * whose target may also be the name of another route.
+     */
     public Builder putRoute(String name, String target) {
+      if (RouteTrie.isPattern(name)) {
+        RouteTrie.checkPattern(name);
+      }
       routes.put(name, RouteDefinition.of(name, target));
       return this;
     }
@@ -151,19 +220,67 @@ public final class Config {
       return this;
     }
 
+    public Builder failover(Failover failover) {
+      this.failover = Objects.requireNonNull(failover, "failover");
+      return this;
+    }
+
+    public Builder attachments(Attachments attachments) {
+      this.attachments = Objects.requireNonNull(attachments, "attachments");
+      return this;
+    }
+
+    public Builder completion(Completion completion) {
+      this.completion = Objects.requireNonNull(completion, "completion");
+      return this;
+    }
+
+    /** Adds a message template; {@code {param}} placeholders are filled from {@code params} order. */
+    public Builder putTemplate(String id, List<String> params, WebhookMessage message) {
+      Objects.requireNonNull(id, "id");
+      templates.put(id, new TemplateDefinition(params, Objects.requireNonNull(message, "message")));
+      return this;
+    }
+
+    /** Appends a routing rule; rules are tried in the order added and the first match wins. */
+    public Builder addRule(Rule rule) {
+      rules.add(Objects.requireNonNull(rule, "rule"));
+      return this;
+    }
+
     public Config build() {
       Map<String, RouteDefinition> copy = Map.copyOf(routes);
+      failover.checkTargets(copy.keySet());
+      List<RouteDefinition> patterns = new ArrayList<>();
+      for (RouteDefinition definition : copy.values()) {
+        if (RouteTrie.isPattern(definition.name())) {
+          patterns.add(definition);
+        }
+      }
+      Map<String, MessageTemplate> compiled = new LinkedHashMap<>();
+      templates.forEach((id, definition) ->
+          compiled.put(
+              id,
+              MessageTemplate.compile(id, definition.params(), definition.message(), defaults)));
       return new Config(
           core,
           copy,
+          List.copyOf(patterns),
           defaults,
           announce.ensureDefaultsPresent(copy.keySet()),
           queue,
           transport,
           rateLimit.ensureDefaultsPresent(copy.keySet()),
           commands,
-          permissions);
+          permissions,
+          failover,
+          attachments,
+          completion,
+          Map.copyOf(compiled),
+          List.copyOf(rules));
     }
+
+    private record TemplateDefinition(List<String> params, WebhookMessage message) {}
   }
 
   public static final class Core {
@@ -262,11 +379,22 @@ public final class Config {
     private final boolean enabled;
     private final boolean allowFallbackToDefault;
     private final List<String> allowedRoutes;
+    private final Set<String> allowedNames;
+    private final RouteTrie<Boolean> allowedPatterns = new RouteTrie<>();
 
     public Announce(boolean enabled, boolean allowFallbackToDefault, List<String> allowedRoutes) {
       this.enabled = enabled;
       this.allowFallbackToDefault = allowFallbackToDefault;
       this.allowedRoutes = List.copyOf(Objects.requireNonNullElseGet(allowedRoutes, List::of));
+      Set<String> names = new HashSet<>();
+      for (String entry : this.allowedRoutes) {
+        if (RouteTrie.isPattern(entry)) {
+          allowedPatterns.add(entry, Boolean.TRUE);
+        } else {
+          names.add(entry);
+        }
+      }
+      this.allowedNames = Set.copyOf(names);
     }
 
     private Announce ensureDefaultsPresent(Set<String> routes) {
@@ -301,12 +429,23 @@ public final class Config {
       return allowedRoutes;
     }
 
+    /** The listed names that are not patterns. */
+    Set<String> allowedNames() {
+      return allowedNames;
+    }
+
+    /** The listed patterns, compiled. */
+    RouteTrie<Boolean> allowedPatterns() {
+      return allowedPatterns;
+    }
+
+    /** Whether {@code route} is listed or matches a listed pattern. */
     public boolean isRouteAllowed(String route) {
       if (allowedRoutes.isEmpty()) {
         return true;
       }
       String normalized = route == null || route.isBlank() ? "default" : route;
-      return allowedRoutes.contains(normalized);
+      return allowedNames.contains(normalized) || allowedPatterns.match(normalized) != null;
     }
   }
 
@@ -329,21 +468,42 @@ public final class Config {
   }
 
   public static final class Queue {
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
     static final Queue DEFAULTS = new Queue(512, 1, QueueOverflowPolicy.DROP_OLDEST);
     private final int capacity;
     private final int workerThreads;
     private final QueueOverflowPolicy overflowPolicy;
+    private final long maxBytes;
+    private final boolean tickAligned;
 
     public Queue(int capacity, int workerThreads, QueueOverflowPolicy overflowPolicy) {
+      this(capacity, workerThreads, overflowPolicy, DEFAULT_MAX_BYTES);
+    }
+
+    public Queue(int capacity, int workerThreads, QueueOverflowPolicy overflowPolicy, long maxBytes) {
+      this(capacity, workerThreads, overflowPolicy, maxBytes, false);
+    }
+
+    public Queue(
+        int capacity,
+        int workerThreads,
+        QueueOverflowPolicy overflowPolicy,
+        long maxBytes,
+        boolean tickAligned) {
       if (capacity <= 0) {
         throw new IllegalArgumentException("queue.capacity must be > 0");
       }
       if (workerThreads <= 0) {
         throw new IllegalArgumentException("queue.workerThreads must be > 0");
       }
+      if (maxBytes <= 0) {
+        throw new IllegalArgumentException("queue.maxBytes must be > 0");
+      }
       this.capacity = capacity;
       this.workerThreads = workerThreads;
       this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+      this.maxBytes = maxBytes;
+      this.tickAligned = tickAligned;
     }
 
     public int capacity() {
@@ -358,8 +518,92 @@ public final class Config {
       return overflowPolicy;
     }
 
+    /** Upper bound on queued payload plus attachment bytes. */
+    public long maxBytes() {
+      return maxBytes;
+    }
+
+    /**
+     * Whether sends made on the server thread are buffered and queued together at the end of the
+     * tick, instead of one by one.
+     */
+    public boolean tickAligned() {
+      return tickAligned;
+    }
+
     public Queue withOverflowPolicy(QueueOverflowPolicy policy) {
-      return new Queue(capacity, workerThreads, policy);
+      return new Queue(capacity, workerThreads, policy, maxBytes, tickAligned);
+    }
+  }
+
+  public static final class Attachments {
+    static final Attachments DEFAULTS = new Attachments(true, 10L * 1024 * 1024);
+    private final boolean enabled;
+    private final long maxBytesPerMessage;
+
+    public Attachments(boolean enabled, long maxBytesPerMessage) {
+      if (maxBytesPerMessage <= 0) {
+        throw new IllegalArgumentException("attachments.maxBytesPerMessage must be > 0");
+      }
+      this.enabled = enabled;
+      this.maxBytesPerMessage = maxBytesPerMessage;
+    }
+
+    public boolean enabled() {
+      return enabled;
+    }
+
+    /** Combined size limit for all files on one message (Discord's upload limit for the guild). */
+    public long maxBytesPerMessage() {
+      return maxBytesPerMessage;
+    }
+  }
+
+  /** Where caller futures are completed, and so where callbacks chained without an executor run. */
+  public static final class Completion {
+    static final Completion DEFAULTS = new Completion(CompletionMode.POOL, 2);
+    private final CompletionMode mode;
+    private final int poolThreads;
+
+    public Completion(CompletionMode mode, int poolThreads) {
+      if (poolThreads <= 0) {
+        throw new IllegalArgumentException("completion.poolThreads must be > 0");
+      }
+      this.mode = Objects.requireNonNull(mode, "mode");
+      this.poolThreads = poolThreads;
+    }
+
+    public CompletionMode mode() {
+      return mode;
+    }
+
+    /** Thread count for {@link CompletionMode#POOL}; ignored otherwise. */
+    public int poolThreads() {
+      return poolThreads;
+    }
+  }
+
+  public enum CompletionMode {
+    /** On the delivery worker itself; a slow callback delays every later delivery. */
+    WORKER,
+    /** On a small dedicated pool. */
+    POOL,
+    /** On a new virtual thread per completion. */
+    VIRTUAL,
+    /** On the server thread at the end of the next tick. */
+    SERVER_THREAD;
+
+    static CompletionMode from(String raw) {
+      if (raw == null || raw.isBlank()) {
+        return Completion.DEFAULTS.mode();
+      }
+      return switch (raw.toLowerCase(Locale.ROOT)) {
+        case "worker" -> WORKER;
+        case "pool" -> POOL;
+        case "virtual" -> VIRTUAL;
+        case "serverthread" -> SERVER_THREAD;
+        default -> throw new IllegalArgumentException("Unknown completion mode: " + raw);
+      };
     }
   }
 
@@ -368,8 +612,21 @@ public final class Config {
     private final int connectTimeoutMs;
     private final int readTimeoutMs;
     private final int maxAttempts;
+    private final boolean adaptiveTimeouts;
+    private final double timeoutMultiplier;
+    private final int minTimeoutMs;
 
     public Transport(int connectTimeoutMs, int readTimeoutMs, int maxAttempts) {
+      this(connectTimeoutMs, readTimeoutMs, maxAttempts, true, 3.0d, 1000);
+    }
+
+    public Transport(
+        int connectTimeoutMs,
+        int readTimeoutMs,
+        int maxAttempts,
+        boolean adaptiveTimeouts,
+        double timeoutMultiplier,
+        int minTimeoutMs) {
       if (connectTimeoutMs <= 0) {
         throw new IllegalArgumentException("transport.connectTimeoutMs must be > 0");
       }
@@ -379,15 +636,25 @@ public final class Config {
       if (maxAttempts <= 0) {
         throw new IllegalArgumentException("transport.maxAttempts must be > 0");
       }
+      if (timeoutMultiplier < 1.0d) {
+        throw new IllegalArgumentException("transport.timeoutMultiplier must be >= 1");
+      }
+      if (minTimeoutMs <= 0) {
+        throw new IllegalArgumentException("transport.minTimeoutMs must be > 0");
+      }
       this.connectTimeoutMs = connectTimeoutMs;
       this.readTimeoutMs = readTimeoutMs;
       this.maxAttempts = maxAttempts;
+      this.adaptiveTimeouts = adaptiveTimeouts;
+      this.timeoutMultiplier = timeoutMultiplier;
+      this.minTimeoutMs = Math.min(minTimeoutMs, readTimeoutMs);
     }
 
     public int connectTimeoutMs() {
       return connectTimeoutMs;
     }
 
+    /** Maximum request timeout; adaptive timeouts never exceed it. */
     public int readTimeoutMs() {
       return readTimeoutMs;
     }
@@ -395,31 +662,118 @@ public final class Config {
     public int maxAttempts() {
       return maxAttempts;
     }
+
+    public boolean adaptiveTimeouts() {
+      return adaptiveTimeouts;
+    }
+
+    /** Effective timeout is {@code p99 * timeoutMultiplier}, clamped to [minTimeoutMs, readTimeoutMs]. */
+    public double timeoutMultiplier() {
+      return timeoutMultiplier;
+    }
+
+    public int minTimeoutMs() {
+      return minTimeoutMs;
+    }
   }
 
   public static final class RateLimit {
+    static final int DEFAULT_IDLE_TTL_MS = 600_000;
+    static final int DEFAULT_MAX_KEYS = 10_000;
     static final RateLimit DEFAULTS =
         new RateLimit(Map.of("default", Rule.DEFAULT), QueueOverflowPolicy.DROP_OLDEST);
     private final Map<String, Rule> perRoute;
     private final QueueOverflowPolicy overflowPolicy;
+    private final Rule global;
+    private final Rule perWebhook;
+    private final Map<String, Rule> perCaller;
+    private final int idleTtlMs;
+    private final Map<String, KeyLimit> perKey;
+    private final int maxKeys;
+    /** Configured route names; those without their own rule get {@link Rule#DEFAULT}. */
+    private final Set<String> routes;
 
     public RateLimit(Map<String, Rule> perRoute, QueueOverflowPolicy overflowPolicy) {
+      this(perRoute, overflowPolicy, Rule.GLOBAL, Rule.WEBHOOK, Map.of());
+    }
+
+    public RateLimit(
+        Map<String, Rule> perRoute,
+        QueueOverflowPolicy overflowPolicy,
+        Rule global,
+        Rule perWebhook,
+        Map<String, Rule> perCaller) {
+      this(perRoute, overflowPolicy, global, perWebhook, perCaller, DEFAULT_IDLE_TTL_MS);
+    }
+
+    public RateLimit(
+        Map<String, Rule> perRoute,
+        QueueOverflowPolicy overflowPolicy,
+        Rule global,
+        Rule perWebhook,
+        Map<String, Rule> perCaller,
+        int idleTtlMs) {
+      this(perRoute, overflowPolicy, global, perWebhook, perCaller, idleTtlMs, Map.of(), DEFAULT_MAX_KEYS);
+    }
+
+    public RateLimit(
+        Map<String, Rule> perRoute,
+        QueueOverflowPolicy overflowPolicy,
+        Rule global,
+        Rule perWebhook,
+        Map<String, Rule> perCaller,
+        int idleTtlMs,
+        Map<String, KeyLimit> perKey,
+        int maxKeys) {
+      this(
+          perRoute, overflowPolicy, global, perWebhook, perCaller, idleTtlMs, perKey, maxKeys, Set.of());
+    }
+
+    private RateLimit(
+        Map<String, Rule> perRoute,
+        QueueOverflowPolicy overflowPolicy,
+        Rule global,
+        Rule perWebhook,
+        Map<String, Rule> perCaller,
+        int idleTtlMs,
+        Map<String, KeyLimit> perKey,
+        int maxKeys,
+        Set<String> routes) {
       if (perRoute == null || perRoute.isEmpty()) {
         throw new IllegalArgumentException("rateLimit.perRoute must contain at least one route");
       }
       this.perRoute = Map.copyOf(perRoute);
       this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+      this.global = Objects.requireNonNull(global, "global");
+      this.perWebhook = Objects.requireNonNull(perWebhook, "perWebhook");
+      this.perCaller = perCaller != null ? Map.copyOf(perCaller) : Map.of();
+      if (idleTtlMs <= 0) {
+        throw new IllegalArgumentException("rateLimit.idleTtlMs must be > 0");
+      }
+      this.idleTtlMs = idleTtlMs;
+      this.perKey = perKey != null ? Map.copyOf(perKey) : Map.of();
+      if (maxKeys <= 0) {
+        throw new IllegalArgumentException("rateLimit.maxKeys must be > 0");
+      }
+      this.maxKeys = maxKeys;
+      this.routes = routes;
     }
 
+    /**
+     * Keeps a reference to the route names rather than giving each one a rule entry, which would
+     * copy every route into {@link #perRoute()} on each load.
+     */
     private RateLimit ensureDefaultsPresent(Set<String> routes) {
-      Map<String, Rule> copy = new LinkedHashMap<>(perRoute);
-      copy.putIfAbsent("default", Rule.DEFAULT);
-      for (String route : routes) {
-        copy.putIfAbsent(route, Rule.DEFAULT);
+      Map<String, Rule> copy = perRoute;
+      if (!perRoute.containsKey("default")) {
+        copy = new LinkedHashMap<>(perRoute);
+        copy.put("default", Rule.DEFAULT);
       }
-      return new RateLimit(copy, overflowPolicy);
+      return new RateLimit(
+          copy, overflowPolicy, global, perWebhook, perCaller, idleTtlMs, perKey, maxKeys, routes);
     }
 
+    /** Explicit per-route rules; see {@link #ruleFor} for routes without one. */
     public Map<String, Rule> perRoute() {
       return perRoute;
     }
@@ -428,17 +782,64 @@ public final class Config {
       return overflowPolicy;
     }
 
+    /** Shared by every request; Discord allows about 50 requests per second per IP. */
+    public Rule global() {
+      return global;
+    }
+
+    /** Applied to each webhook URL separately, whichever routes point at it. */
+    public Rule perWebhook() {
+      return perWebhook;
+    }
+
+    public Map<String, Rule> perCaller() {
+      return perCaller;
+    }
+
+    /** How long a limiter may sit with a full bucket before it is dropped from memory. */
+    public int idleTtlMs() {
+      return idleTtlMs;
+    }
+
+    public Map<String, KeyLimit> perKey() {
+      return perKey;
+    }
+
+    /** Most limiter keys tracked at once across every route; beyond this new keys go unlimited. */
+    public int maxKeys() {
+      return maxKeys;
+    }
+
+    /** The per-key limit for {@code route}, its {@code default} entry, or {@code null} when none. */
+    public KeyLimit keyLimitFor(String route) {
+      KeyLimit limit = perKey.get(route);
+      return limit != null ? limit : perKey.get("default");
+    }
+
+    /** The rule for {@code caller}, its {@code default} entry, or {@code null} when unlimited. */
+    public Rule ruleForCaller(String caller) {
+      Rule rule = perCaller.get(caller);
+      return rule != null ? rule : perCaller.get("default");
+    }
+
+    /**
+     * The route's own rule; {@link Rule#DEFAULT} for a configured route without one; otherwise the
+     * {@code default} route's rule.
+     */
     public Rule ruleFor(String route) {
       String normalized = route == null || route.isBlank() ? "default" : route;
       Rule rule = perRoute.get(normalized);
       if (rule == null) {
-        rule = perRoute.get("default");
+        rule = routes.contains(normalized) ? Rule.DEFAULT : perRoute.get("default");
       }
       return rule != null ? rule : Rule.DEFAULT;
     }
 
     public record Rule(int tokensPerMinute, int burst) {
       static final Rule DEFAULT = new Rule(20, 10);
+      static final Rule GLOBAL = new Rule(3000, 50);
+      /** Discord's usual webhook bucket: 5 requests per 2 seconds. */
+      static final Rule WEBHOOK = new Rule(150, 5);
 
       public Rule {
         if (tokensPerMinute <= 0) {
@@ -452,6 +853,56 @@ public final class Config {
       public double refillTokensPerSecond() {
         return tokensPerMinute / 60.0;
       }
+
+      /** Time for one token to refill; the GCRA emission interval. */
+      public long emissionIntervalNanos() {
+        return 60_000_000_000L / tokensPerMinute;
+      }
+    }
+
+    /**
+     * At most {@code limit} messages per limiter key in any {@code windowMs}. Messages over it are
+     * handled by {@code overLimit}; with {@link OverLimit#SAMPLE} every {@code sampleEvery}th one
+     * is still sent.
+     */
+    public record KeyLimit(int limit, int windowMs, OverLimit overLimit, int sampleEvery) {
+      public KeyLimit {
+        if (limit <= 0) {
+          throw new IllegalArgumentException("limit must be > 0");
+        }
+        if (windowMs <= 0) {
+          throw new IllegalArgumentException("windowMs must be > 0");
+        }
+        Objects.requireNonNull(overLimit, "overLimit");
+        if (sampleEvery <= 0) {
+          throw new IllegalArgumentException("sampleEvery must be > 0");
+        }
+      }
+
+      long intervalNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(windowMs) / limit;
+      }
+    }
+
+    public enum OverLimit {
+      /** Complete with {@code KEY_LIMITED}. */
+      DROP,
+      /** Send one in every {@code sampleEvery}; drop the rest. */
+      SAMPLE,
+      /** Drop, and note how many were dropped on the key's next delivered message. */
+      SUMMARIZE;
+
+      static OverLimit from(String raw) {
+        if (raw == null || raw.isBlank()) {
+          return DROP;
+        }
+        return switch (raw.toLowerCase(Locale.ROOT)) {
+          case "drop" -> DROP;
+          case "sample" -> SAMPLE;
+          case "summarize" -> SUMMARIZE;
+          default -> throw new IllegalArgumentException("Unknown overLimit action: " + raw);
+        };
+      }
     }
   }
 
@@ -493,6 +944,141 @@ public final class Config {
     }
   }
 
+  /** Delivery-time failover from a route's primary webhook to a secondary route or target. */
+  public static final class Failover {
+    static final Failover DEFAULTS = new Failover(Map.of(), 3, 4000, 30_000);
+    private final Map<String, String> targets;
+    private final int failureThreshold;
+    private final int latencyThresholdMs;
+    private final int cooldownMs;
+
+    public Failover(
+        Map<String, String> targets, int failureThreshold, int latencyThresholdMs, int cooldownMs) {
+      if (failureThreshold <= 0) {
+        throw new IllegalArgumentException("failover.failureThreshold must be > 0");
+      }
+      if (latencyThresholdMs <= 0) {
+        throw new IllegalArgumentException("failover.latencyThresholdMs must be > 0");
+      }
+      if (cooldownMs <= 0) {
+        throw new IllegalArgumentException("failover.cooldownMs must be > 0");
+      }
+      Map<String, String> copy = new LinkedHashMap<>();
+      if (targets != null) {
+        targets.forEach((route, target) -> {
+          if (route != null && target != null && !target.isBlank()) {
+            copy.put(route, target.trim());
+          }
+        });
+      }
+      this.targets = Map.copyOf(copy);
+      this.failureThreshold = failureThreshold;
+      this.latencyThresholdMs = latencyThresholdMs;
+      this.cooldownMs = cooldownMs;
+    }
+
+    /** Route name to secondary target: either another route name or a URL / {@code env:} value. */
+    public Map<String, String> targets() {
+      return targets;
+    }
+
+    /** Rejects targets that are neither a configured route, an http(s) URL nor an env: value. */
+    void checkTargets(Set<String> routeNames) {
+      targets.forEach((route, target) -> {
+        if (!routeNames.contains(target)
+            && !target.regionMatches(true, 0, "http://", 0, 7)
+            && !target.regionMatches(true, 0, "https://", 0, 8)
+            && !target.regionMatches(true, 0, "env:", 0, 4)) {
+          throw new IllegalArgumentException(
+              "failover target for "
+                  + route
+                  + " is not a configured route, http(s) URL or env: value: "
+                  + target);
+        }
+      });
+    }
+
+    public int failureThreshold() {
+      return failureThreshold;
+    }
+
+    public int latencyThresholdMs() {
+      return latencyThresholdMs;
+    }
+
+    public int cooldownMs() {
+      return cooldownMs;
+    }
+  }
+
+  /**
+   * Sends a message to {@code to} instead of its requested route when every condition that is set
+   * holds: the requested route ({@code from}, a name or pattern), the effective username, a
+   * case-sensitive content substring or regular expression, and the colour of any embed.
+   */
+  public static final class Rule {
+    private final String from;
+    private final String username;
+    private final String contentContains;
+    private final Pattern contentMatches;
+    private final Integer embedColor;
+    private final String to;
+
+    public Rule(
+        String from,
+        String username,
+        String contentContains,
+        String contentMatches,
+        Integer embedColor,
+        String to) {
+      if (to == null || to.isBlank()) {
+        throw new IllegalArgumentException("rule needs a target route ('to')");
+      }
+      if (from == null && username == null && contentContains == null && contentMatches == null
+          && embedColor == null) {
+        throw new IllegalArgumentException("rule for " + to + " needs at least one condition");
+      }
+      if (RouteTrie.isPattern(from)) {
+        RouteTrie.checkPattern(from);
+      }
+      try {
+        this.contentMatches = contentMatches != null ? Pattern.compile(contentMatches) : null;
+      } catch (PatternSyntaxException e) {
+        throw new IllegalArgumentException(
+            "rule for " + to + " has an invalid contentMatches: " + e.getDescription(), e);
+      }
+      this.from = from;
+      this.username = username;
+      this.contentContains = contentContains;
+      this.embedColor = embedColor;
+      this.to = to.trim();
+    }
+
+    public String from() {
+      return from;
+    }
+
+    public String username() {
+      return username;
+    }
+
+    public String contentContains() {
+      return contentContains;
+    }
+
+    public Pattern contentMatches() {
+      return contentMatches;
+    }
+
+    public Integer embedColor() {
+      return embedColor;
+    }
+
+    public String to() {
+      return to;
+    }
+  }
+
   public static Config fromRaw(Raw raw) {
     if (raw == null) {
       return defaultConfig();
@@ -518,6 +1104,28 @@ public final class Config {
     builder.transport(raw.transport != null ? raw.transport.toTransport() : Transport.DEFAULTS);
     builder.commands(raw.commands != null ? raw.commands.toCommands() : Commands.DEFAULTS);
     builder.permissions(raw.permissions != null ? raw.permissions.toPermissions() : Permissions.DEFAULTS);
+    builder.failover(raw.failover != null ? raw.failover.toFailover() : Failover.DEFAULTS);
+    builder.attachments(
+        raw.attachments != null ? raw.attachments.toAttachments() : Attachments.DEFAULTS);
+    builder.completion(
+        raw.completion != null ? raw.completion.toCompletion() : Completion.DEFAULTS);
+    if (raw.templates != null) {
+      raw.templates.forEach((id, template) -> {
+        if (template == null || template.message == null) {
+          throw new IllegalArgumentException("Template " + id + " needs a message");
+        }
+        builder.putTemplate(id, template.params, template.message);
+      });
+    }
+    if (raw.rules != null) {
+      for (int i = 0; i < raw.rules.size(); i++) {
+        RawRule rule = raw.rules.get(i);
+        if (rule == null) {
+          throw new IllegalArgumentException("rules[" + i + "] is empty");
+        }
+        builder.addRule(rule.toRule(i));
+      }
+    }
     return builder.build();
   }
 
@@ -531,6 +1139,11 @@ public final class Config {
     public RawRateLimit rateLimit;
     public RawCommands commands;
     public RawPermissions permissions;
+    public RawFailover failover;
+    public RawAttachments attachments;
+    public RawCompletion completion;
+    public Map<String, RawTemplate> templates;
+    public List<RawRule> rules;
   }
 
   public static final class RawCore {
@@ -576,6 +1189,8 @@ public final class Config {
     public Integer capacity;
     public Integer workerThreads;
     public String overflowPolicy;
+    public Long maxBytes;
+    public Boolean tickAligned;
 
     Queue toQueue() {
       int cap = capacity != null ? capacity : Queue.DEFAULTS.capacity();
@@ -584,7 +1199,74 @@ public final class Config {
           overflowPolicy != null
               ? QueueOverflowPolicy.from(overflowPolicy)
               : Queue.DEFAULTS.overflowPolicy();
-      return new Queue(cap, workers, policy);
+      long bytes = maxBytes != null ? maxBytes : Queue.DEFAULTS.maxBytes();
+      boolean tick = tickAligned != null ? tickAligned : Queue.DEFAULTS.tickAligned();
+      return new Queue(cap, workers, policy, bytes, tick);
+    }
+  }
+
+  public static final class RawAttachments {
+    public Boolean enabled;
+    public Long maxBytesPerMessage;
+
+    Attachments toAttachments() {
+      boolean enabledValue = enabled != null ? enabled : Attachments.DEFAULTS.enabled();
+      long max =
+          maxBytesPerMessage != null
+              ? maxBytesPerMessage
+              : Attachments.DEFAULTS.maxBytesPerMessage();
+      return new Attachments(enabledValue, max);
+    }
+  }
+
+  public static final class RawCompletion {
+    public String mode;
+    public Integer poolThreads;
+
+    Completion toCompletion() {
+      int threads = poolThreads != null ? poolThreads : Completion.DEFAULTS.poolThreads();
+      return new Completion(CompletionMode.from(mode), threads);
+    }
+  }
+
+  public static final class RawTemplate {
+    public List<String> params;
+    public WebhookMessage message;
+  }
+
+  public static final class RawRule {
+    public String from;
+    public String username;
+    public String contentContains;
+    public String contentMatches;
+    /** {@code "#ff0000"}, {@code "0xff0000"} or a decimal number, as in embed JSON. */
+    public String embedColor;
+    public String to;
+
+    Rule toRule(int index) {
+      try {
+        return new Rule(from, username, contentContains, contentMatches, parseColor(embedColor), to);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid rules[" + index + "]: " + e.getMessage(), e);
+      }
+    }
+
+    private static Integer parseColor(String raw) {
+      if (raw == null || raw.isBlank()) {
+        return null;
+      }
+      String value = raw.trim();
+      try {
+        if (value.startsWith("#")) {
+          return Integer.parseInt(value.substring(1), 16);
+        }
+        if (value.regionMatches(true, 0, "0x", 0, 2)) {
+          return Integer.parseInt(value.substring(2), 16);
+        }
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("embedColor is not a colour: " + raw);
+      }
     }
   }
 
@@ -592,25 +1274,39 @@ public final class Config {
     public Integer connectTimeoutMs;
     public Integer readTimeoutMs;
     public Integer maxAttempts;
+    public Boolean adaptiveTimeouts;
+    public Double timeoutMultiplier;
+    public Integer minTimeoutMs;
 
     Transport toTransport() {
       int connect =
           connectTimeoutMs != null ? connectTimeoutMs : Transport.DEFAULTS.connectTimeoutMs();
       int read = readTimeoutMs != null ? readTimeoutMs : Transport.DEFAULTS.readTimeoutMs();
       int attempts = maxAttempts != null ? maxAttempts : Transport.DEFAULTS.maxAttempts();
-      return new Transport(connect, read, attempts);
+      boolean adaptive =
+          adaptiveTimeouts != null ? adaptiveTimeouts : Transport.DEFAULTS.adaptiveTimeouts();
+      double multiplier =
+          timeoutMultiplier != null ? timeoutMultiplier : Transport.DEFAULTS.timeoutMultiplier();
+      int min = minTimeoutMs != null ? minTimeoutMs : Transport.DEFAULTS.minTimeoutMs();
+      return new Transport(connect, read, attempts, adaptive, multiplier, min);
     }
   }
 
   public static final class RawRateLimit {
     public Map<String, RawRateLimitRule> perRoute;
     public String overflowPolicy;
+    public RawRateLimitRule global;
+    public RawRateLimitRule perWebhook;
+    public Map<String, RawRateLimitRule> perCaller;
+    public Integer idleTtlMs;
+    public Map<String, RawKeyLimit> perKey;
+    public Integer maxKeys;
 
     RateLimit toRateLimit() {
       Map<String, RateLimit.Rule> map = new LinkedHashMap<>();
       if (perRoute != null) {
         for (Map.Entry<String, RawRateLimitRule> entry : perRoute.entrySet()) {
-          map.put(entry.getKey(), entry.getValue().toRule(entry.getKey()));
+          map.put(entry.getKey(), entry.getValue().toRule("route " + entry.getKey()));
         }
       }
       if (!map.containsKey("default")) {
@@ -620,7 +1316,25 @@ public final class Config {
           overflowPolicy != null
               ? QueueOverflowPolicy.from(overflowPolicy)
               : RateLimit.DEFAULTS.overflowPolicy();
-      return new RateLimit(map, policy);
+      Map<String, RateLimit.Rule> callers = new LinkedHashMap<>();
+      if (perCaller != null) {
+        perCaller.forEach((caller, rule) -> callers.put(caller, rule.toRule("caller " + caller)));
+      }
+      Map<String, RateLimit.KeyLimit> keys = new LinkedHashMap<>();
+      if (perKey != null) {
+        perKey.forEach((route, limit) -> keys.put(route, limit.toKeyLimit(route)));
+      }
+      return new RateLimit(
+          map,
+          policy,
+          global != null ? global.toRule("global", RateLimit.Rule.GLOBAL) : RateLimit.Rule.GLOBAL,
+          perWebhook != null
+              ? perWebhook.toRule("perWebhook", RateLimit.Rule.WEBHOOK)
+              : RateLimit.Rule.WEBHOOK,
+          callers,
+          idleTtlMs != null ? idleTtlMs : RateLimit.DEFAULT_IDLE_TTL_MS,
+          keys,
+          maxKeys != null ? maxKeys : RateLimit.DEFAULT_MAX_KEYS);
     }
   }
 
@@ -629,13 +1343,36 @@ public final class Config {
     public Integer burst;
 
     RateLimit.Rule toRule(String name) {
-      int tokens =
-          tokensPerMinute != null ? tokensPerMinute : RateLimit.Rule.DEFAULT.tokensPerMinute();
-      int burstValue = burst != null ? burst : RateLimit.Rule.DEFAULT.burst();
+      return toRule(name, RateLimit.Rule.DEFAULT);
+    }
+
+    RateLimit.Rule toRule(String name, RateLimit.Rule defaults) {
+      int tokens = tokensPerMinute != null ? tokensPerMinute : defaults.tokensPerMinute();
+      int burstValue = burst != null ? burst : defaults.burst();
       try {
         return new RateLimit.Rule(tokens, burstValue);
       } catch (IllegalArgumentException e) {
-        throw new IllegalArgumentException("Invalid rate limit for route " + name + ": " + e.getMessage(), e);
+        throw new IllegalArgumentException("Invalid rate limit for " + name + ": " + e.getMessage(), e);
+      }
+    }
+  }
+
+  public static final class RawKeyLimit {
+    public Integer limit;
+    public Integer windowMs;
+    public String overLimit;
+    public Integer sampleEvery;
+
+    RateLimit.KeyLimit toKeyLimit(String route) {
+      try {
+        return new RateLimit.KeyLimit(
+            limit != null ? limit : 0,
+            windowMs != null ? windowMs : 0,
+            RateLimit.OverLimit.from(overLimit),
+            sampleEvery != null ? sampleEvery : 10);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "Invalid rateLimit.perKey for " + route + ": " + e.getMessage(), e);
       }
     }
   }
@@ -668,4 +1405,20 @@ public final class Config {
       return new Permissions(admin);
     }
   }
+
+  public static final class RawFailover {
+    public Map<String, String> routes;
+    public Integer failureThreshold;
+    public Integer latencyThresholdMs;
+    public Integer cooldownMs;
+
+    Failover toFailover() {
+      int threshold =
+          failureThreshold != null ? failureThreshold : Failover.DEFAULTS.failureThreshold();
+      int latency =
+          latencyThresholdMs != null ? latencyThresholdMs : Failover.DEFAULTS.latencyThresholdMs();
+      int cooldown = cooldownMs != null ? cooldownMs : Failover.DEFAULTS.cooldownMs();
+      return new Failover(routes, threshold, latency, cooldown);
+    }
+  }
 }
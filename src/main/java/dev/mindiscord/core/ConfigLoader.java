@@ -197,10 +197,49 @@ public final class ConfigLoader implements AutoCloseable {
               default: { tokensPerMinute: 20, burst: 10 },
               rareDrops: { tokensPerMinute: 6, burst: 3 }
             },
+            global: { tokensPerMinute: 3000, burst: 50 },
+            perWebhook: { tokensPerMinute: 150, burst: 5 },
+            perCaller: {},
+            idleTtlMs: 600000,
+            perKey: {
+              rareDrops: { limit: 3, windowMs: 600000, overLimit: "summarize" }
+            },
+            maxKeys: 10000,
             overflowPolicy: "dropOldest"
           },
-          queue: { capacity: 512, workerThreads: 1 },
-          transport: { connectTimeoutMs: 3000, readTimeoutMs: 5000, maxAttempts: 4 },
+          queue: { capacity: 512, workerThreads: 1, maxBytes: 67108864, tickAligned: false },
+          attachments: { enabled: true, maxBytesPerMessage: 10485760 },
+          completion: { mode: "pool", poolThreads: 2 },
+          transport: {
+            connectTimeoutMs: 3000,
+            readTimeoutMs: 5000,
+            maxAttempts: 4,
+            adaptiveTimeouts: true,
+            timeoutMultiplier: 3.0,
+            minTimeoutMs: 1000
+          },
+          failover: {
+            routes: { rareDrops: "default" },
+            failureThreshold: 3,
+            latencyThresholdMs: 4000,
+            cooldownMs: 30000
+          },
+          templates: {
+            rareDrop: {
+              params: ["player", "item", "x", "z"],
+              message: {
+                embeds: [{
+                  title: "{player} found {item}",
+                  color: 16755200,
+                  fields: [{ name: "Where", value: "x={x} z={z}", inline: true }]
+                }]
+              }
+            }
+          },
+          rules: [
+            { embedColor: "#ff0000", to: "alerts" },
+            { from: "rareDrops", username: "Herobrine", to: "staff" }
+          ],
           commands: {
             routes: { enabled: true },
             test: { enabled: true },
@@ -1,9 +1,9 @@
 package dev.mindiscord.core;
 
 import java.time.Instant;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class Diagnostics {
   private final ConcurrentHashMap<String, RouteState> states = new ConcurrentHashMap<>();
@@ -13,6 +13,7 @@ public final class Diagnostics {
       RouteState s = state != null ? state : new RouteState();
       s.lastSuccess = when;
       s.lastMessage = message;
+      s.sent++;
       s.lastFailure = null;
       s.lastFailureCode = null;
       return s;
@@ -25,21 +26,31 @@ public final class Diagnostics {
       s.lastFailure = when;
       s.lastFailureCode = code;
       s.lastMessage = message;
+      s.failed++;
       return s;
     });
   }
 
-  Map<String, RouteSnapshot> snapshot() {
-    Map<String, RouteSnapshot> copy = new LinkedHashMap<>();
-    states.entrySet().stream()
-        .sorted(Map.Entry.comparingByKey())
-        .forEach(entry -> {
-          RouteState state = entry.getValue();
-          copy.put(
-              entry.getKey(),
-              new RouteSnapshot(state.lastSuccess, state.lastFailure, state.lastFailureCode, state.lastMessage));
-        });
-    return copy;
+  /** Counts a request evicted or refused by the queue; no timestamps, so it is cheap to call. */
+  void recordDropped(String route) {
+    states.computeIfAbsent(route, key -> new RouteState()).dropped.increment();
+  }
+
+  /** One page of routes with history, ordered by name; only that page's snapshots are built. */
+  Page<Map.Entry<String, RouteSnapshot>> page(String filter, int page, int pageSize) {
+    return Page.of(states.keySet(), filter, page, pageSize, route -> {
+      RouteState state = states.get(route);
+      return Map.entry(
+          route,
+          new RouteSnapshot(
+              state.lastSuccess,
+              state.lastFailure,
+              state.lastFailureCode,
+              state.lastMessage,
+              state.sent,
+              state.failed,
+              state.dropped.sum()));
+    });
   }
 
   static final class RouteState {
@@ -47,8 +58,18 @@ public final class Diagnostics {
     volatile Instant lastFailure;
     volatile String lastFailureCode;
     volatile String lastMessage;
+    // Updated inside compute(), which serializes writers per route.
+    volatile long sent;
+    volatile long failed;
+    final LongAdder dropped = new LongAdder();
   }
 
   public record RouteSnapshot(
-      Instant lastSuccess, Instant lastFailure, String lastFailureCode, String lastMessage) {}
+      Instant lastSuccess,
+      Instant lastFailure,
+      String lastFailureCode,
+      String lastMessage,
+      long sent,
+      long failed,
+      long dropped) {}
 }
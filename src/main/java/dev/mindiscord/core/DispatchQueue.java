@@ -2,31 +2,45 @@ package dev.mindiscord.core;
 
 import dev.mindiscord.core.Config.QueueOverflowPolicy;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
-/** Bounded queue with configurable overflow policy. */
+/** Bounded queue with configurable overflow policy, limited by entry count and queued bytes. */
 final class DispatchQueue {
   private final ReentrantLock lock = new ReentrantLock();
   private final Condition notEmpty = lock.newCondition();
   private final ArrayDeque<PendingRequest> deque = new ArrayDeque<>();
 
   private volatile int maxSize = 2000;
+  private volatile long maxBytes = Config.Queue.DEFAULT_MAX_BYTES;
   private volatile QueueOverflowPolicy overflowPolicy = QueueOverflowPolicy.DROP_OLDEST;
   private volatile boolean closed;
+  private long queuedBytes;
 
-  void configure(int maxSize, QueueOverflowPolicy policy) {
+  List<PendingRequest> configure(int maxSize, QueueOverflowPolicy policy) {
+    return configure(maxSize, maxBytes, policy);
+  }
+
+  /**
+   * Applies new bounds, evicting the oldest requests that no longer fit. The evicted ones are
+   * returned for the caller to settle outside the lock, as with {@link #enqueue}.
+   */
+  List<PendingRequest> configure(int maxSize, long maxBytes, QueueOverflowPolicy policy) {
     Objects.requireNonNull(policy, "policy");
+    List<PendingRequest> dropped = List.of();
     lock.lock();
     try {
       this.maxSize = maxSize;
+      this.maxBytes = maxBytes;
       this.overflowPolicy = policy;
-      while (deque.size() > maxSize) {
-        PendingRequest dropped = deque.poll();
-        if (dropped != null) {
-          dropped.completeQueueFull();
+      while (deque.size() > maxSize || (queuedBytes > maxBytes && !deque.isEmpty())) {
+        if (dropped.isEmpty()) {
+          dropped = new ArrayList<>();
         }
+        dropped.add(poll());
       }
       if (!deque.isEmpty()) {
         notEmpty.signalAll();
@@ -34,26 +48,28 @@ final class DispatchQueue {
     } finally {
       lock.unlock();
     }
+    return dropped;
   }
 
   QueuePushResult enqueue(PendingRequest request) {
     lock.lock();
     try {
-      if (closed) {
+      if (closed || request.queuedBytes > maxBytes) {
         return QueuePushResult.rejected();
       }
-      if (deque.size() >= maxSize) {
-        return switch (overflowPolicy) {
-          case DROP_OLDEST -> {
-            PendingRequest dropped = deque.poll();
-            deque.add(request);
-            notEmpty.signal();
-            yield QueuePushResult.enqueuedWithDrop(dropped);
-          }
-          case DROP_NEWEST, REJECT -> QueuePushResult.rejected();
-        };
+      if (!fits(request)) {
+        if (overflowPolicy != QueueOverflowPolicy.DROP_OLDEST) {
+          return QueuePushResult.rejected();
+        }
+        List<PendingRequest> dropped = new ArrayList<>(1);
+        while (!fits(request)) {
+          dropped.add(poll());
+        }
+        add(request);
+        notEmpty.signal();
+        return QueuePushResult.enqueuedWithDrop(dropped);
       }
-      deque.add(request);
+      add(request);
       notEmpty.signal();
       return QueuePushResult.enqueued();
     } finally {
@@ -61,6 +77,70 @@ final class DispatchQueue {
     }
   }
 
+  /**
+   * Enqueues {@code requests} under a single lock acquisition, applying the overflow policy to each
+   * in order exactly as {@link #enqueue} would.
+   */
+  BatchPushResult enqueueAll(List<PendingRequest> requests) {
+    List<PendingRequest> rejected = List.of();
+    List<PendingRequest> dropped = List.of();
+    lock.lock();
+    try {
+      int added = 0;
+      for (PendingRequest request : requests) {
+        boolean reject =
+            closed
+                || request.queuedBytes > maxBytes
+                || (!fits(request) && overflowPolicy != QueueOverflowPolicy.DROP_OLDEST);
+        if (reject) {
+          if (rejected.isEmpty()) {
+            rejected = new ArrayList<>();
+          }
+          rejected.add(request);
+          continue;
+        }
+        while (!fits(request)) {
+          if (dropped.isEmpty()) {
+            dropped = new ArrayList<>();
+          }
+          dropped.add(poll());
+        }
+        add(request);
+        added++;
+      }
+      if (added > 0) {
+        notEmpty.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+    return new BatchPushResult(rejected, dropped);
+  }
+
+  /**
+   * Swaps a newer payload into a coalesced edit, moving the queued byte count by the size change.
+   * Fails if the worker already claimed the request, or if the request is queued and the larger
+   * payload would break the byte bound; the caller then queues the edit as a request of its own.
+   */
+  boolean replacePayload(PendingRequest request, byte[] jsonPayload, int embedCount) {
+    lock.lock();
+    try {
+      long delta = jsonPayload.length - request.payloadBytes();
+      if (request.queued && delta > 0 && queuedBytes + delta > maxBytes) {
+        return false;
+      }
+      if (!request.replacePayload(jsonPayload, jsonPayload.length, embedCount)) {
+        return false;
+      }
+      if (request.queued) {
+        queuedBytes += delta;
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   PendingRequest take() throws InterruptedException {
     lock.lock();
     try {
@@ -70,7 +150,7 @@ final class DispatchQueue {
         }
         notEmpty.await();
       }
-      return deque.poll();
+      return poll();
     } finally {
       lock.unlock();
     }
@@ -85,41 +165,84 @@ final class DispatchQueue {
     }
   }
 
-  void close() {
+  long queuedBytes() {
+    lock.lock();
+    try {
+      return queuedBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Refuses further requests and returns those still queued, for the caller to settle. */
+  List<PendingRequest> close() {
+    List<PendingRequest> remaining;
     lock.lock();
     try {
       closed = true;
-      for (PendingRequest pending : deque) {
-        pending.completeQueueFull();
+      remaining = new ArrayList<>(deque);
+      for (PendingRequest request : remaining) {
+        request.queued = false;
       }
       deque.clear();
+      queuedBytes = 0;
       notEmpty.signalAll();
     } finally {
       lock.unlock();
     }
+    return remaining;
+  }
+
+  private boolean fits(PendingRequest request) {
+    return deque.size() < maxSize && queuedBytes + request.queuedBytes <= maxBytes;
+  }
+
+  private void add(PendingRequest request) {
+    deque.add(request);
+    request.queued = true;
+    queuedBytes += request.queuedBytes;
+  }
+
+  private PendingRequest poll() {
+    PendingRequest request = deque.poll();
+    if (request != null) {
+      request.queued = false;
+      queuedBytes -= request.queuedBytes;
+    }
+    return request;
   }
 
   static final class QueuePushResult {
     enum State { ENQUEUED, REJECTED }
 
+    private static final QueuePushResult ENQUEUED = new QueuePushResult(State.ENQUEUED, List.of());
+    private static final QueuePushResult REJECTED = new QueuePushResult(State.REJECTED, List.of());
+
     private final State state;
-    private final PendingRequest dropped;
+    private final List<PendingRequest> dropped;
 
-    private QueuePushResult(State state, PendingRequest dropped) {
+    private QueuePushResult(State state, List<PendingRequest> dropped) {
       this.state = state;
       this.dropped = dropped;
     }
 
-    static QueuePushResult enqueued() { return new QueuePushResult(State.ENQUEUED, null); }
+    static QueuePushResult enqueued() { return ENQUEUED; }
 
-    static QueuePushResult enqueuedWithDrop(PendingRequest dropped) {
+    static QueuePushResult enqueuedWithDrop(List<PendingRequest> dropped) {
       return new QueuePushResult(State.ENQUEUED, dropped);
     }
 
-    static QueuePushResult rejected() { return new QueuePushResult(State.REJECTED, null); }
+    static QueuePushResult rejected() { return REJECTED; }
 
     boolean isEnqueued() { return state == State.ENQUEUED; }
 
-    PendingRequest dropped() { return dropped; }
+    /** Oldest request evicted to make room, or {@code null}. */
+    PendingRequest dropped() { return dropped.isEmpty() ? null : dropped.get(0); }
+
+    /** Every request evicted to make room; more than one when the byte bound forced it. */
+    List<PendingRequest> droppedAll() { return dropped; }
   }
+
+  /** Requests of a batch that were not accepted, and older requests evicted to fit the rest. */
+  record BatchPushResult(List<PendingRequest> rejected, List<PendingRequest> dropped) {}
 }
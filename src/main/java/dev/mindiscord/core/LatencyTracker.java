@@ -0,0 +1,48 @@
+package dev.mindiscord.core;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of recent request latencies for one host. Percentiles are recomputed every few
+ * samples rather than per request so the lookup on the send path stays a volatile read.
+ */
+final class LatencyTracker {
+  static final int WINDOW = 256;
+  static final int MIN_SAMPLES = 20;
+  private static final int RECOMPUTE_EVERY = 16;
+
+  private final long[] samples = new long[WINDOW];
+  private int next;
+  private int count;
+  private int sinceRecompute;
+  private volatile Percentiles percentiles = Percentiles.EMPTY;
+
+  synchronized void record(long latencyNanos) {
+    samples[next] = Math.max(0L, latencyNanos);
+    next = (next + 1) % WINDOW;
+    if (count < WINDOW) {
+      count++;
+    }
+    if (++sinceRecompute >= RECOMPUTE_EVERY || count == MIN_SAMPLES) {
+      sinceRecompute = 0;
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      percentiles =
+          new Percentiles(
+              count, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99));
+    }
+  }
+
+  Percentiles percentiles() {
+    return percentiles;
+  }
+
+  private static long percentile(long[] sorted, double q) {
+    int index = (int) Math.ceil(q * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  record Percentiles(int samples, long p50Nanos, long p90Nanos, long p99Nanos) {
+    static final Percentiles EMPTY = new Percentiles(0, 0L, 0L, 0L);
+  }
+}
@@ -0,0 +1,70 @@
+package dev.mindiscord.core;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps rate-limiter state across restarts in a small JSON file, so a restarted server does not
+ * burst its backlog into Discord limits that are still running. Only limiters still ahead of the
+ * clock are written, with their TATs as wall-clock times; whatever expired during the downtime is
+ * simply absent on the next start. Webhook URLs are stored as hashes, never in the clear.
+ */
+final class LimiterStateStore {
+  private static final Logger LOGGER = LogManager.getLogger("MinDiscord/RateLimit");
+
+  static final Path DEFAULT_PATH = Path.of("config/mindiscord-limits.json");
+
+  private final Path path;
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  LimiterStateStore(Path path) {
+    this.path = Objects.requireNonNull(path, "path");
+  }
+
+  /** Restores saved state into {@code registry}; a missing or unreadable file restores nothing. */
+  void restore(RateLimiterRegistry registry, TimeSource timeSource) {
+    if (!Files.isRegularFile(path)) {
+      return;
+    }
+    try {
+      Snapshot snapshot = mapper.readValue(path.toFile(), Snapshot.class);
+      registry.restoreState(snapshot, timeSource);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Ignoring unreadable rate-limit state in {}", path, e);
+    }
+  }
+
+  /** Writes {@code registry}'s live state, replacing the previous file in one move. */
+  void save(RateLimiterRegistry registry, TimeSource timeSource) {
+    Snapshot snapshot = registry.exportState(timeSource);
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      mapper.writeValue(temp.toFile(), snapshot);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to save rate-limit state to {}", path, e);
+    }
+  }
+
+  /**
+   * On-disk form. {@code tiers} maps tier name to key to TAT in epoch milliseconds; {@code keys}
+   * holds per-key limiter TATs the same way and {@code refused} their pending refusal counts.
+   */
+  public static final class Snapshot {
+    public long savedAtMillis;
+    public Map<String, Map<String, Long>> tiers = new LinkedHashMap<>();
+    public Map<String, Long> keys = new LinkedHashMap<>();
+    public Map<String, Long> refused = new LinkedHashMap<>();
+  }
+}
@@ -0,0 +1,347 @@
+package dev.mindiscord.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import dev.mindiscord.api.WebhookMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A message shape with {@code {param}} placeholders, compiled once into the UTF-8 JSON fragments
+ * between them. Rendering only escapes the arguments into a per-thread buffer between those
+ * fragments; Discord's length limits are re-checked from precomputed static lengths, and fields it
+ * requires from whether their static text is blank, so no tree, generator or intermediate string is
+ * built per send.
+ *
+ * <p>Placeholders may appear in text fields (content, username, embed title/description, field
+ * names/values, footer text, author name) and after a literal {@code http(s)://} prefix in URL
+ * fields. Arguments are inserted verbatim as JSON string content; they are never URL-encoded.
+ */
+final class MessageTemplate {
+  private static final JsonFactory JSON = new JsonFactory();
+  /** Placeholder position where the argument length is not limited (URLs). */
+  private static final int UNLIMITED = 0;
+  private static final int NOT_ALLOWED = -1;
+
+  final String id;
+  final List<String> params;
+  final int embedCount;
+  private final byte[][] fragments;
+  private final int[] slotParams;
+  private final Text[] texts;
+  private final int embedTotalStatic;
+
+  private MessageTemplate(
+      String id,
+      List<String> params,
+      int embedCount,
+      byte[][] fragments,
+      int[] slotParams,
+      Text[] texts,
+      int embedTotalStatic) {
+    this.id = id;
+    this.params = params;
+    this.embedCount = embedCount;
+    this.fragments = fragments;
+    this.slotParams = slotParams;
+    this.texts = texts;
+    this.embedTotalStatic = embedTotalStatic;
+  }
+
+  /**
+   * Compiles {@code message}, applying the default username/avatar where it leaves them blank.
+   *
+   * @throws IllegalArgumentException if the id, parameters or message shape are invalid
+   */
+  static MessageTemplate compile(
+      String id, List<String> params, WebhookMessage message, Config.Defaults defaults) {
+    if (id == null || id.isBlank()) {
+      throw new IllegalArgumentException("Template id may not be blank");
+    }
+    Objects.requireNonNull(message, "message");
+    List<String> names = params != null ? List.copyOf(params) : List.of();
+    Set<String> seen = new HashSet<>();
+    for (String name : names) {
+      if (!isIdentifier(name) || !seen.add(name)) {
+        throw new IllegalArgumentException(
+            "Template " + id + ": invalid or duplicate parameter '" + name + "'");
+      }
+    }
+    if (message.attachments != null && !message.attachments.isEmpty()) {
+      throw new IllegalArgumentException("Template " + id + ": templates cannot carry attachments");
+    }
+    byte[] json;
+    try {
+      json = PayloadWriter.write(message, defaults.username(), defaults.avatarUrl());
+    } catch (PayloadWriter.InvalidPayloadException e) {
+      throw new IllegalArgumentException("Template " + id + ": " + e.getMessage());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Template " + id + ": failed to encode", e);
+    }
+    int embedCount = message.embeds != null ? message.embeds.size() : 0;
+    return split(id, names, embedCount, json);
+  }
+
+  /**
+   * Walks the compiled JSON once to learn which limit each placeholder is subject to, then cuts the
+   * bytes at the same placeholders. Both passes see placeholders in document order.
+   */
+  private static MessageTemplate split(
+      String id, List<String> params, int embedCount, byte[] json) {
+    List<Text> texts = new ArrayList<>();
+    List<Integer> slotParams = new ArrayList<>();
+    int embedTotalStatic = 0;
+    try (JsonParser parser = JSON.createParser(json)) {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        if (token != JsonToken.VALUE_STRING) {
+          continue;
+        }
+        JsonStreamContext ctx = parser.getParsingContext();
+        String key = ctx.inObject() ? scope(ctx) + '.' + ctx.getCurrentName() : "";
+        String value = parser.getText();
+        int firstSlot = slotParams.size();
+        int placeholderChars = 0;
+        boolean staticBlank = true;
+        for (int i = 0; i < value.length(); i++) {
+          int end = placeholderEnd(value, i);
+          int param = end > 0 ? params.indexOf(value.substring(i + 1, end - 1)) : -1;
+          if (param >= 0) {
+            slotParams.add(param);
+            placeholderChars += end - i;
+            i = end - 1;
+          } else if (!Character.isWhitespace(value.charAt(i))) {
+            staticBlank = false;
+          }
+        }
+        int staticLength = value.length() - placeholderChars;
+        boolean counted = countsTowardEmbedTotal(key);
+        if (counted) {
+          embedTotalStatic += staticLength;
+        }
+        if (slotParams.size() == firstSlot) {
+          continue;
+        }
+        int limit = limitFor(key);
+        if (limit == NOT_ALLOWED) {
+          throw new IllegalArgumentException(
+              "Template " + id + ": placeholders are not allowed in " + describe(key));
+        }
+        String required = staticBlank ? requiredMessage(key, embedCount) : null;
+        texts.add(
+            new Text(
+                describe(key),
+                limit,
+                staticLength,
+                counted,
+                required,
+                firstSlot,
+                slotParams.size()));
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Template " + id + ": failed to compile", e);
+    }
+
+    List<byte[]> fragments = new ArrayList<>(slotParams.size() + 1);
+    int start = 0;
+    int slot = 0;
+    for (int i = 0; i < json.length; i++) {
+      int end = placeholderEnd(json, i);
+      if (end > 0
+          && params.contains(new String(json, i + 1, end - i - 2, StandardCharsets.US_ASCII))) {
+        fragments.add(Arrays.copyOfRange(json, start, i));
+        start = end;
+        i = end - 1;
+        slot++;
+      }
+    }
+    fragments.add(Arrays.copyOfRange(json, start, json.length));
+    if (slot != slotParams.size()) {
+      throw new IllegalStateException("Template " + id + ": placeholder scan mismatch");
+    }
+    int[] slots = new int[slotParams.size()];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = slotParams.get(i);
+    }
+    return new MessageTemplate(
+        id,
+        params,
+        embedCount,
+        fragments.toArray(new byte[0][]),
+        slots,
+        texts.toArray(new Text[0]),
+        embedTotalStatic);
+  }
+
+  /** Returns the JSON payload with {@code args} (in {@link #params} order) spliced in. */
+  byte[] render(Object[] args) throws PayloadWriter.InvalidPayloadException {
+    if (args.length != params.size()) {
+      throw new PayloadWriter.InvalidPayloadException(
+          "Template " + id + " expects " + params.size() + " arguments, got " + args.length);
+    }
+    String[] values = new String[args.length];
+    for (int i = 0; i < args.length; i++) {
+      values[i] = args[i] != null ? args[i].toString() : "";
+    }
+    int embedTotal = embedTotalStatic;
+    for (Text text : texts) {
+      int length = text.staticLength;
+      for (int s = text.fromSlot; s < text.toSlot; s++) {
+        length += values[slotParams[s]].length();
+      }
+      if (text.limit != UNLIMITED && length > text.limit) {
+        throw new PayloadWriter.InvalidPayloadException(
+            text.field + " exceeds " + text.limit + " characters");
+      }
+      if (text.counted) {
+        embedTotal += length - text.staticLength;
+      }
+      if (text.required != null && slotsBlank(text, values)) {
+        throw new PayloadWriter.InvalidPayloadException(text.required);
+      }
+    }
+    if (embedTotal > PayloadWriter.MAX_EMBED_TOTAL) {
+      throw new PayloadWriter.InvalidPayloadException("Embeds exceed 6000 characters in total");
+    }
+    ByteArrayBuilder out = PayloadWriter.buffer();
+    try {
+      for (int s = 0; s < slotParams.length; s++) {
+        out.write(fragments[s]);
+        PayloadWriter.writeEscaped(out, values[slotParams[s]]);
+      }
+      out.write(fragments[slotParams.length]);
+      return out.toByteArray();
+    } finally {
+      PayloadWriter.release(out);
+    }
+  }
+
+  private boolean slotsBlank(Text text, String[] values) {
+    for (int s = text.fromSlot; s < text.toSlot; s++) {
+      if (!values[slotParams[s]].isBlank()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Name of the object enclosing {@code ctx}: "" for the message, else embeds/fields/footer/... */
+  private static String scope(JsonStreamContext ctx) {
+    JsonStreamContext parent = ctx.getParent();
+    if (parent == null || parent.inRoot()) {
+      return "";
+    }
+    if (parent.inArray()) {
+      JsonStreamContext owner = parent.getParent();
+      return owner != null && owner.getCurrentName() != null ? owner.getCurrentName() : "";
+    }
+    return parent.getCurrentName();
+  }
+
+  private static int limitFor(String key) {
+    return switch (key) {
+      case ".content" -> PayloadWriter.MAX_CONTENT;
+      case ".username" -> PayloadWriter.MAX_USERNAME;
+      case "embeds.title" -> PayloadWriter.MAX_TITLE;
+      case "fields.name" -> PayloadWriter.MAX_FIELD_NAME;
+      case "author.name" -> PayloadWriter.MAX_AUTHOR_NAME;
+      case "embeds.description" -> PayloadWriter.MAX_DESCRIPTION;
+      case "fields.value" -> PayloadWriter.MAX_FIELD_VALUE;
+      case "footer.text" -> PayloadWriter.MAX_FOOTER_TEXT;
+      case ".avatar_url", "embeds.url", "author.url", "author.icon_url", "footer.icon_url",
+          "thumbnail.url", "image.url" -> UNLIMITED;
+      default -> NOT_ALLOWED;
+    };
+  }
+
+  /**
+   * PayloadWriter's error for a field that may not be blank, or {@code null} if it may. Content is
+   * required only when the message has no embed to carry it.
+   */
+  private static String requiredMessage(String key, int embedCount) {
+    return switch (key) {
+      case ".content" -> embedCount == 0 ? "Content, embeds or attachments required" : null;
+      case "fields.name", "fields.value" -> "Embed field name and value are required";
+      case "footer.text" -> "Embed footer text is required";
+      case "author.name" -> "Embed author name is required";
+      default -> null;
+    };
+  }
+
+  private static boolean countsTowardEmbedTotal(String key) {
+    return switch (key) {
+      case "embeds.title", "embeds.description", "fields.name", "fields.value", "footer.text",
+          "author.name" -> true;
+      default -> false;
+    };
+  }
+
+  private static String describe(String key) {
+    if (key.isEmpty()) {
+      return "allowed_mentions";
+    }
+    return key.charAt(0) == '.' ? key.substring(1) : key;
+  }
+
+  private static boolean isIdentifier(String name) {
+    if (name == null || name.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (!isIdentifierChar(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isIdentifierChar(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  /** Index just past the {@code }} of a {@code {identifier}} starting at {@code i}, or -1. */
+  private static int placeholderEnd(CharSequence text, int i) {
+    if (text.charAt(i) != '{') {
+      return -1;
+    }
+    int j = i + 1;
+    while (j < text.length() && isIdentifierChar(text.charAt(j))) {
+      j++;
+    }
+    return j > i + 1 && j < text.length() && text.charAt(j) == '}' ? j + 1 : -1;
+  }
+
+  private static int placeholderEnd(byte[] bytes, int i) {
+    if (bytes[i] != '{') {
+      return -1;
+    }
+    int j = i + 1;
+    while (j < bytes.length && isIdentifierChar(bytes[j])) {
+      j++;
+    }
+    return j > i + 1 && j < bytes.length && bytes[j] == '}' ? j + 1 : -1;
+  }
+
+  /**
+   * A string value containing slots {@code [fromSlot, toSlot)}, checked against {@code limit}.
+   * {@code required} is the error for rendering it blank, {@code null} if its static text is not
+   * blank or the field may be.
+   */
+  private record Text(
+      String field,
+      int limit,
+      int staticLength,
+      boolean counted,
+      String required,
+      int fromSlot,
+      int toSlot) {}
+}
@@ -1,8 +1,10 @@
 package dev.mindiscord.core;
 
 import dev.mindiscord.api.AnnounceBus;
+import dev.mindiscord.api.RouteRegistry;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 public final class MinDiscordRuntime implements AutoCloseable {
   private static volatile MinDiscordRuntime INSTANCE;
 
@@ -15,11 +17,17 @@ public final class MinDiscordRuntime implements AutoCloseable {
   private final StatsStore statsStore = new StatsStore(bridge);
   private final TimeSource timeSource = new SystemTimeSource();
   private final Sleeper sleeper = new ThreadSleeper();
+  private final LimiterStateStore limiterState = new LimiterStateStore(LimiterStateStore.DEFAULT_PATH);
+  private final RuntimeRoutes runtimeRoutes =
+      new RuntimeRoutes(router, rateLimiter, RuntimeRoutes.DEFAULT_PATH);
   private final AnnounceBusImpl bus;
+  private final AtomicBoolean closed = new AtomicBoolean();
 
   private MinDiscordRuntime() {
     this.configLoader = new ConfigLoader(bridge);
     Config initial = configLoader.current();
+    limiterState.restore(rateLimiter, timeSource);
+    runtimeRoutes.load();
     this.bus =
         new AnnounceBusImpl(
             router,
@@ -46,19 +54,47 @@ public final class MinDiscordRuntime implements AutoCloseable {
 
   public AnnounceBus bus() { return bus; }
 
+  /** Adds and removes routes without touching the config file; see {@link RuntimeRoutes}. */
+  public RouteRegistry routeRegistry() { return runtimeRoutes; }
+
   public AnnounceBusImpl.DiagnosticsSnapshot diagnostics() { return bus.diagnostics(); }
 
+  /** {@link AnnounceBusImpl#diagnostics(String, int, int)} for one command page. */
+  public AnnounceBusImpl.DiagnosticsSnapshot diagnostics(String filter, int page) {
+    return bus.diagnostics(filter, page, Page.DEFAULT_SIZE);
+  }
+
   public List<Router.RouteInfo> routes() { return bus.routes(); }
 
+  public Page<Router.RouteInfo> routes(String filter, int page) {
+    return bus.routes(filter, page, Page.DEFAULT_SIZE);
+  }
+
+  /** Re-reads {@code env:} route targets without reloading the config file. */
+  public void refreshEnvironment() {
+    bus.refreshEnvironment();
+  }
+
   public MinCoreBridge bridge() { return bridge; }
 
+  /** Called from the server thread at the end of every tick. */
+  public void onServerTick() {
+    bus.onServerTick();
+  }
+
   public Config config() {
     return configLoader.current();
   }
 
+  /** Stops delivery and saves limiter and runtime-route state; later calls do nothing. */
   @Override
   public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
     bus.close();
+    runtimeRoutes.close();
+    limiterState.save(rateLimiter, timeSource);
     configLoader.close();
   }
 
@@ -0,0 +1,125 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.Attachment;
+import java.io.FileNotFoundException;
+import java.net.URLConnection;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams a webhook payload plus files as {@code multipart/form-data}. Files are read by
+ * {@link HttpRequest.BodyPublishers#ofFile} in chunks and buffers are published without copying, so
+ * attachments never have to fit on the heap.
+ */
+final class MultipartBody {
+  private static final String CRLF = "\r\n";
+
+  private final String boundary;
+  private final HttpRequest.BodyPublisher publisher;
+
+  private MultipartBody(String boundary, HttpRequest.BodyPublisher publisher) {
+    this.boundary = boundary;
+    this.publisher = publisher;
+  }
+
+  /** @throws FileNotFoundException if a file attachment is gone or unreadable since prepare */
+  static MultipartBody of(byte[] json, List<Attachment> attachments) throws FileNotFoundException {
+    String boundary = "MinDiscord-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    List<HttpRequest.BodyPublisher> parts = new ArrayList<>(attachments.size() * 3 + 2);
+    parts.add(
+        text(
+            "--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"payload_json\"" + CRLF
+                + "Content-Type: application/json" + CRLF + CRLF));
+    parts.add(HttpRequest.BodyPublishers.ofByteArray(json));
+    parts.add(text(CRLF));
+    for (int i = 0; i < attachments.size(); i++) {
+      Attachment attachment = attachments.get(i);
+      String filename = sanitize(attachment.filename);
+      String type = URLConnection.guessContentTypeFromName(filename);
+      parts.add(
+          text(
+              "--" + boundary + CRLF
+                  + "Content-Disposition: form-data; name=\"files[" + i + "]\"; filename=\""
+                  + filename + "\"" + CRLF
+                  + "Content-Type: " + (type != null ? type : "application/octet-stream")
+                  + CRLF + CRLF));
+      if (attachment.path != null && !Files.isReadable(attachment.path)) {
+        throw new FileNotFoundException(
+            "Attachment not readable: " + attachment.path.getFileName());
+      }
+      parts.add(
+          attachment.path != null
+              ? HttpRequest.BodyPublishers.ofFile(attachment.path)
+              : ofBuffer(attachment.data));
+      parts.add(text(CRLF));
+    }
+    parts.add(text("--" + boundary + "--" + CRLF));
+    return new MultipartBody(
+        boundary, HttpRequest.BodyPublishers.concat(parts.toArray(HttpRequest.BodyPublisher[]::new)));
+  }
+
+  String contentType() {
+    return "multipart/form-data; boundary=" + boundary;
+  }
+
+  HttpRequest.BodyPublisher publisher() {
+    return publisher;
+  }
+
+  /** Quotes are not escapable in Content-Disposition, so they are replaced along with line breaks. */
+  static String sanitize(String filename) {
+    if (filename == null || filename.isBlank()) {
+      return "file";
+    }
+    return filename.replace('"', '\'').replace('\r', '_').replace('\n', '_');
+  }
+
+  private static HttpRequest.BodyPublisher text(String text) {
+    return HttpRequest.BodyPublishers.ofString(text, StandardCharsets.UTF_8);
+  }
+
+  private static HttpRequest.BodyPublisher ofBuffer(ByteBuffer data) {
+    if (data.hasArray()) {
+      return HttpRequest.BodyPublishers.ofByteArray(
+          data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+    return HttpRequest.BodyPublishers.fromPublisher(new BufferPublisher(data), data.remaining());
+  }
+
+  /** Publishes a read-only view of a (typically direct) buffer once per subscription. */
+  private static final class BufferPublisher implements Flow.Publisher<ByteBuffer> {
+    private final ByteBuffer data;
+
+    BufferPublisher(ByteBuffer data) {
+      this.data = data;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      ByteBuffer view = data.asReadOnlyBuffer();
+      AtomicBoolean done = new AtomicBoolean();
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+          if (n > 0 && done.compareAndSet(false, true)) {
+            subscriber.onNext(view);
+            subscriber.onComplete();
+          }
+        }
+
+        @Override
+        public void cancel() {
+          done.set(true);
+        }
+      });
+    }
+  }
+}
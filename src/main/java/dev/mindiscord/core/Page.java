@@ -0,0 +1,67 @@
+package dev.mindiscord.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * One page of a name-ordered listing, for commands that must not print tens of thousands of lines.
+ * {@code page} is 1-based and clamped into range; {@code total} counts every name that passed the
+ * filter.
+ */
+public record Page<T>(List<T> items, int total, int page, int pages) {
+  public static final int DEFAULT_SIZE = 10;
+
+  /** Like {@link #ofSorted}, for names in no particular order; only the matches are sorted. */
+  static <T> Page<T> of(
+      Collection<String> names, String filter, int page, int size, Function<String, T> item) {
+    String[] matches = filter(names.toArray(new String[0]), filter);
+    Arrays.sort(matches);
+    return slice(matches, page, size, item);
+  }
+
+  /**
+   * Filters already ordered {@code names} by a case-insensitive substring ({@code null}, blank or
+   * {@code *} keeps all) and builds items for the requested page only. Items {@code item} maps to
+   * {@code null}, such as names removed meanwhile, are left out.
+   */
+  static <T> Page<T> ofSorted(
+      String[] names, String filter, int page, int size, Function<String, T> item) {
+    return slice(filter(names, filter), page, size, item);
+  }
+
+  private static String[] filter(String[] names, String filter) {
+    if (filter == null || filter.isBlank() || filter.equals("*")) {
+      return names;
+    }
+    String needle = filter.toLowerCase(Locale.ROOT);
+    List<String> kept = new ArrayList<>();
+    for (String name : names) {
+      if (name.toLowerCase(Locale.ROOT).contains(needle)) {
+        kept.add(name);
+      }
+    }
+    return kept.toArray(new String[0]);
+  }
+
+  private static <T> Page<T> slice(
+      String[] matches, int page, int size, Function<String, T> item) {
+    int pageSize = Math.max(1, size);
+    int pages = Math.max(1, (matches.length + pageSize - 1) / pageSize);
+    int current = Math.min(Math.max(1, page), pages);
+    int from = (current - 1) * pageSize;
+    int to = Math.min(matches.length, from + pageSize);
+    List<T> items = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      T value = item.apply(matches[i]);
+      if (value != null) {
+        items.add(value);
+      }
+    }
+    return new Page<>(Collections.unmodifiableList(items), matches.length, current, pages);
+  }
+}
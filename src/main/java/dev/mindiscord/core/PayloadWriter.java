@@ -0,0 +1,380 @@
+package dev.mindiscord.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import dev.mindiscord.api.AllowedMentions;
+import dev.mindiscord.api.Attachment;
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.WebhookMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Validates and writes webhook payloads in a single pass. Every documented Discord limit is checked
+ * while the streaming {@link JsonGenerator} emits the field, straight into a per-thread UTF-8
+ * buffer, so an invalid message is rejected before it can cost a rate-limit token or an HTTP 400.
+ * The only allocation proportional to the payload is the final {@code byte[]}.
+ */
+final class PayloadWriter {
+  static final int MAX_CONTENT = 2000;
+  static final int MAX_USERNAME = 80;
+  static final int MAX_EMBEDS = 10;
+  static final int MAX_EMBED_TOTAL = 6000;
+  static final int MAX_TITLE = 256;
+  static final int MAX_DESCRIPTION = 4096;
+  static final int MAX_FIELDS = 25;
+  static final int MAX_FIELD_NAME = 256;
+  static final int MAX_FIELD_VALUE = 1024;
+  static final int MAX_FOOTER_TEXT = 2048;
+  static final int MAX_AUTHOR_NAME = 256;
+  static final int MAX_MENTION_IDS = 100;
+
+  private static final JsonFactory JSON = new JsonFactory();
+  private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] USERNAME_FIELD = "\"username\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] AVATAR_FIELD = "\"avatar_url\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] CONTENT_FIELD = "\"content\":\"".getBytes(StandardCharsets.US_ASCII);
+  private static final int MAX_RETAINED_BYTES = 64 * 1024;
+  private static final ThreadLocal<ByteArrayBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new ByteArrayBuilder(2048));
+
+  private PayloadWriter() {}
+
+  /** Returns the UTF-8 payload; its length is the payload size. */
+  static byte[] write(WebhookMessage message) throws InvalidPayloadException, IOException {
+    return write(message, "", "");
+  }
+
+  /**
+   * Writes {@code message} with {@code username}/{@code avatarUrl} substituted where the message
+   * leaves them blank, so the caller's object never has to be copied. Passing {@code null} for both
+   * omits the author overrides entirely, which is what webhook message edits require.
+   */
+  static byte[] write(WebhookMessage message, String username, String avatarUrl)
+      throws InvalidPayloadException, IOException {
+    ByteArrayBuilder out = buffer();
+    try {
+      try (JsonGenerator gen = JSON.createGenerator(out)) {
+        writeMessage(gen, message, username, avatarUrl);
+      }
+      return out.toByteArray();
+    } finally {
+      release(out);
+    }
+  }
+
+  /**
+   * Fast path for {@code send(route, String)}: the same bytes {@link #write} produces for a
+   * content-only message, written without a {@link WebhookMessage} or a {@link JsonGenerator}.
+   */
+  static byte[] writeContent(String content, String username, String avatarUrl)
+      throws InvalidPayloadException {
+    check(content != null && !content.isBlank(), "Content, embeds or attachments required");
+    check(content.length() <= MAX_CONTENT, "Content exceeds 2000 characters");
+    boolean hasUsername = username != null && !username.isBlank();
+    boolean hasAvatar = avatarUrl != null && !avatarUrl.isBlank();
+    if (hasUsername) {
+      check(username.length() <= MAX_USERNAME, "Username exceeds 80 characters");
+    }
+    if (hasAvatar) {
+      check(isHttpUrl(avatarUrl), "Avatar URL must be http(s)");
+    }
+    ByteArrayBuilder out = buffer();
+    try {
+      out.append('{');
+      if (hasUsername) {
+        writeStringField(out, USERNAME_FIELD, username);
+        out.append(',');
+      }
+      if (hasAvatar) {
+        writeStringField(out, AVATAR_FIELD, avatarUrl);
+        out.append(',');
+      }
+      writeStringField(out, CONTENT_FIELD, content);
+      out.append('}');
+      return out.toByteArray();
+    } finally {
+      release(out);
+    }
+  }
+
+  private static void writeStringField(ByteArrayBuilder out, byte[] nameAndQuote, String value) {
+    out.write(nameAndQuote);
+    writeEscaped(out, value);
+    out.append('"');
+  }
+
+  /** JSON string escaping straight to UTF-8, matching what Jackson's generator emits. */
+  static void writeEscaped(ByteArrayBuilder out, String value) {
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        if (c == '"' || c == '\\') {
+          out.append('\\');
+          out.append(c);
+        } else if (c >= 0x20) {
+          out.append(c);
+        } else {
+          writeControl(out, c);
+        }
+      } else if (c < 0x800) {
+        out.append(0xC0 | (c >> 6));
+        out.append(0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // Jackson's generator escapes supplementary characters as surrogate pairs; do the same.
+        writeUnicodeEscape(out, c);
+      } else {
+        out.append(0xE0 | (c >> 12));
+        out.append(0x80 | ((c >> 6) & 0x3F));
+        out.append(0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  private static void writeControl(ByteArrayBuilder out, char c) {
+    switch (c) {
+      case '\b' -> writeShortEscape(out, 'b');
+      case '\t' -> writeShortEscape(out, 't');
+      case '\n' -> writeShortEscape(out, 'n');
+      case '\f' -> writeShortEscape(out, 'f');
+      case '\r' -> writeShortEscape(out, 'r');
+      default -> writeUnicodeEscape(out, c);
+    }
+  }
+
+  private static void writeShortEscape(ByteArrayBuilder out, char c) {
+    out.append('\\');
+    out.append(c);
+  }
+
+  private static void writeUnicodeEscape(ByteArrayBuilder out, char c) {
+    out.append('\\');
+    out.append('u');
+    for (int shift = 12; shift >= 0; shift -= 4) {
+      out.append(HEX[(c >> shift) & 0xF]);
+    }
+  }
+
+  /** The calling thread's reusable output buffer, emptied; hand it back with {@link #release}. */
+  static ByteArrayBuilder buffer() {
+    ByteArrayBuilder out = BUFFER.get();
+    out.reset();
+    return out;
+  }
+
+  static void release(ByteArrayBuilder out) {
+    if (out.size() > MAX_RETAINED_BYTES) {
+      // Do not pin an unusually large block to the (server) thread forever.
+      BUFFER.remove();
+    }
+    out.reset();
+  }
+
+  private static void writeMessage(
+      JsonGenerator gen, WebhookMessage message, String defaultUsername, String defaultAvatarUrl)
+      throws InvalidPayloadException, IOException {
+    boolean author = defaultUsername != null || defaultAvatarUrl != null;
+    String username = author ? orDefault(message.username, defaultUsername) : null;
+    String avatarUrl = author ? orDefault(message.avatarUrl, defaultAvatarUrl) : null;
+    boolean hasContent = message.content != null && !message.content.isBlank();
+    boolean hasEmbeds = message.embeds != null && !message.embeds.isEmpty();
+    boolean hasAttachments = message.attachments != null && !message.attachments.isEmpty();
+    if (!hasContent && !hasEmbeds && !hasAttachments) {
+      throw new InvalidPayloadException("Content, embeds or attachments required");
+    }
+    gen.writeStartObject();
+    if (username != null && !username.isBlank()) {
+      check(username.length() <= MAX_USERNAME, "Username exceeds 80 characters");
+      gen.writeStringField("username", username);
+    }
+    if (avatarUrl != null && !avatarUrl.isBlank()) {
+      check(isHttpUrl(avatarUrl), "Avatar URL must be http(s)");
+      gen.writeStringField("avatar_url", avatarUrl);
+    }
+    if (message.content != null) {
+      check(message.content.length() <= MAX_CONTENT, "Content exceeds 2000 characters");
+      gen.writeStringField("content", message.content);
+    }
+    if (hasEmbeds) {
+      check(message.embeds.size() <= MAX_EMBEDS, "Too many embeds (max 10)");
+      int total = 0;
+      gen.writeArrayFieldStart("embeds");
+      for (Embed embed : message.embeds) {
+        total += writeEmbed(gen, embed);
+        check(total <= MAX_EMBED_TOTAL, "Embeds exceed 6000 characters combined");
+      }
+      gen.writeEndArray();
+    }
+    if (message.allowedMentions != null) {
+      writeAllowedMentions(gen, message.allowedMentions);
+    }
+    if (hasAttachments) {
+      gen.writeArrayFieldStart("attachments");
+      for (int i = 0; i < message.attachments.size(); i++) {
+        Attachment attachment = message.attachments.get(i);
+        gen.writeStartObject();
+        gen.writeNumberField("id", i);
+        gen.writeStringField("filename", MultipartBody.sanitize(attachment.filename));
+        if (attachment.description != null) {
+          check(attachment.description.length() <= 1024, "Attachment description too long");
+          gen.writeStringField("description", attachment.description);
+        }
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  /** Writes one embed and returns the characters it contributes to the 6000 combined limit. */
+  private static int writeEmbed(JsonGenerator gen, Embed embed)
+      throws InvalidPayloadException, IOException {
+    check(embed != null, "Embed cannot be null");
+    int chars = 0;
+    gen.writeStartObject();
+    if (embed.title != null) {
+      check(embed.title.length() <= MAX_TITLE, "Embed title too long");
+      chars += embed.title.length();
+      gen.writeStringField("title", embed.title);
+    }
+    if (embed.description != null) {
+      check(embed.description.length() <= MAX_DESCRIPTION, "Embed description too long");
+      chars += embed.description.length();
+      gen.writeStringField("description", embed.description);
+    }
+    if (embed.url != null) {
+      check(isHttpUrl(embed.url), "Embed URL must be http(s)");
+      gen.writeStringField("url", embed.url);
+    }
+    if (embed.color != null) {
+      check(embed.color >= 0 && embed.color <= 0xFFFFFF, "Embed color must be 0x000000-0xFFFFFF");
+      gen.writeNumberField("color", embed.color);
+    }
+    if (embed.author != null) {
+      check(embed.author.name != null && !embed.author.name.isBlank(), "Embed author name is required");
+      check(embed.author.name.length() <= MAX_AUTHOR_NAME, "Embed author name too long");
+      chars += embed.author.name.length();
+      gen.writeObjectFieldStart("author");
+      gen.writeStringField("name", embed.author.name);
+      if (embed.author.url != null) {
+        check(isHttpUrl(embed.author.url), "Embed author URL must be http(s)");
+        gen.writeStringField("url", embed.author.url);
+      }
+      if (embed.author.iconUrl != null) {
+        check(isMediaUrl(embed.author.iconUrl), "Embed author icon must be http(s) or attachment://");
+        gen.writeStringField("icon_url", embed.author.iconUrl);
+      }
+      gen.writeEndObject();
+    }
+    if (embed.footer != null) {
+      check(embed.footer.text != null && !embed.footer.text.isBlank(), "Embed footer text is required");
+      check(embed.footer.text.length() <= MAX_FOOTER_TEXT, "Embed footer text too long");
+      chars += embed.footer.text.length();
+      gen.writeObjectFieldStart("footer");
+      gen.writeStringField("text", embed.footer.text);
+      if (embed.footer.iconUrl != null) {
+        check(isMediaUrl(embed.footer.iconUrl), "Embed footer icon must be http(s) or attachment://");
+        gen.writeStringField("icon_url", embed.footer.iconUrl);
+      }
+      gen.writeEndObject();
+    }
+    if (embed.thumbnail != null && embed.thumbnail.url != null) {
+      check(isMediaUrl(embed.thumbnail.url), "Embed thumbnail must be http(s) or attachment://");
+      gen.writeObjectFieldStart("thumbnail");
+      gen.writeStringField("url", embed.thumbnail.url);
+      gen.writeEndObject();
+    }
+    if (embed.image != null && embed.image.url != null) {
+      check(isMediaUrl(embed.image.url), "Embed image must be http(s) or attachment://");
+      gen.writeObjectFieldStart("image");
+      gen.writeStringField("url", embed.image.url);
+      gen.writeEndObject();
+    }
+    if (embed.fields != null && !embed.fields.isEmpty()) {
+      check(embed.fields.size() <= MAX_FIELDS, "Embed has too many fields");
+      gen.writeArrayFieldStart("fields");
+      for (Embed.Field field : embed.fields) {
+        check(field != null, "Embed field cannot be null");
+        check(
+            field.name != null && !field.name.isBlank() && field.value != null && !field.value.isBlank(),
+            "Embed field name and value are required");
+        check(field.name.length() <= MAX_FIELD_NAME, "Embed field name too long");
+        check(field.value.length() <= MAX_FIELD_VALUE, "Embed field value too long");
+        chars += field.name.length() + field.value.length();
+        gen.writeStartObject();
+        gen.writeStringField("name", field.name);
+        gen.writeStringField("value", field.value);
+        gen.writeBooleanField("inline", field.inline);
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+    return chars;
+  }
+
+  private static void writeAllowedMentions(JsonGenerator gen, AllowedMentions mentions)
+      throws InvalidPayloadException, IOException {
+    boolean parse = mentions.parseEveryone || mentions.parseRoles || mentions.parseUsers;
+    boolean roles = mentions.roles != null && !mentions.roles.isEmpty();
+    boolean users = mentions.users != null && !mentions.users.isEmpty();
+    if (!parse && !roles && !users) {
+      return;
+    }
+    check(!(roles && mentions.parseRoles), "Allowed mentions cannot combine parseRoles with roles");
+    check(!(users && mentions.parseUsers), "Allowed mentions cannot combine parseUsers with users");
+    gen.writeObjectFieldStart("allowed_mentions");
+    if (parse) {
+      gen.writeArrayFieldStart("parse");
+      if (mentions.parseEveryone) gen.writeString("everyone");
+      if (mentions.parseRoles) gen.writeString("roles");
+      if (mentions.parseUsers) gen.writeString("users");
+      gen.writeEndArray();
+    }
+    if (roles) {
+      check(mentions.roles.size() <= MAX_MENTION_IDS, "Too many allowed role mentions (max 100)");
+      gen.writeArrayFieldStart("roles");
+      for (String role : mentions.roles) {
+        gen.writeString(role);
+      }
+      gen.writeEndArray();
+    }
+    if (users) {
+      check(mentions.users.size() <= MAX_MENTION_IDS, "Too many allowed user mentions (max 100)");
+      gen.writeArrayFieldStart("users");
+      for (String user : mentions.users) {
+        gen.writeString(user);
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  private static String orDefault(String value, String fallback) {
+    return value != null && !value.isBlank() ? value : fallback;
+  }
+
+  private static boolean isHttpUrl(String url) {
+    return url.regionMatches(true, 0, "https://", 0, 8) || url.regionMatches(true, 0, "http://", 0, 7);
+  }
+
+  private static boolean isMediaUrl(String url) {
+    return isHttpUrl(url) || url.startsWith("attachment://");
+  }
+
+  private static void check(boolean condition, String message) throws InvalidPayloadException {
+    if (!condition) {
+      throw new InvalidPayloadException(message);
+    }
+  }
+
+  /** A message that Discord would reject; the text is returned to the caller as BAD_PAYLOAD. */
+  static final class InvalidPayloadException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    InvalidPayloadException(String message) {
+      super(message, null, false, false);
+    }
+  }
+}
@@ -1,45 +1,210 @@
 package dev.mindiscord.core;
 
+import dev.mindiscord.api.Attachment;
 import dev.mindiscord.api.SendResult;
-import java.time.Instant;
-import java.util.UUID;
+import java.net.URI;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 final class PendingRequest {
-  final UUID requestId;
+  final long requestId;
   final String requestedRoute;
   final String resolvedRoute;
   final String url;
-  final String jsonPayload;
-  final int payloadBytes;
-  final int embedCount;
   final boolean fallback;
-  final CompletableFuture<SendResult> future;
+  final String failoverRoute;
+  final String failoverUrl;
+  /** Where this operation goes on each webhook; {@code null} if the URL is not a valid URI. */
+  final URI target;
+  final URI failoverTarget;
   final Router.RouteResolution resolution;
-  final Instant enqueuedAt;
+  final long enqueuedNanos;
+  final Operation operation;
+  final String messageId;
+  final List<Attachment> attachments;
+  final long attachmentBytes;
+  /**
+   * Bytes charged against the queue's byte bound; changes only through {@link
+   * DispatchQueue#replacePayload}, so it is guarded by the queue's lock.
+   */
+  long queuedBytes;
+  /** Whether the queue's byte count includes this request; guarded by the queue's lock. */
+  boolean queued;
+  /** Rate-limit caller tier key, or {@code null}; set before the request is queued. */
+  String callerKey;
+
+  // Replaced while a queued edit is coalesced; read by the worker only after claim().
+  private byte[] jsonPayload;
+  private int payloadBytes;
+  private int embedCount;
+  private boolean claimed;
+  // Created only when a caller asks for it; the outcome is kept so a late future() still completes.
+  private CompletableFuture<SendResult> future;
+  private SendResult result;
+  private String requestIdText;
+  private boolean detached;
 
   PendingRequest(
-      UUID requestId,
+      long requestId,
       Router.RouteResolution resolution,
-      String jsonPayload,
+      byte[] jsonPayload,
       int payloadBytes,
       int embedCount,
-      CompletableFuture<SendResult> future,
-      Instant enqueuedAt) {
+      long enqueuedNanos) {
+    this(
+        requestId,
+        resolution,
+        Operation.EXECUTE,
+        null,
+        jsonPayload,
+        payloadBytes,
+        embedCount,
+        List.of(),
+        0L,
+        enqueuedNanos);
+  }
+
+  PendingRequest(
+      long requestId,
+      Router.RouteResolution resolution,
+      Operation operation,
+      String messageId,
+      byte[] jsonPayload,
+      int payloadBytes,
+      int embedCount,
+      List<Attachment> attachments,
+      long attachmentBytes,
+      long enqueuedNanos) {
     this.requestId = requestId;
     this.requestedRoute = resolution.requestedRoute();
     this.resolvedRoute = resolution.resolvedRoute();
     this.url = resolution.url();
+    this.operation = operation;
+    this.messageId = messageId;
     this.jsonPayload = jsonPayload;
     this.payloadBytes = payloadBytes;
     this.embedCount = embedCount;
+    this.attachments = attachments;
+    this.attachmentBytes = attachmentBytes;
+    this.queuedBytes = payloadBytes + attachmentBytes;
     this.fallback = resolution.status() == Router.Status.FALLBACK;
-    this.future = future;
+    // A message lives on the webhook that created it, so edits and deletes never fail over.
+    boolean messageScoped = operation == Operation.EDIT || operation == Operation.DELETE;
+    this.failoverRoute = messageScoped ? null : resolution.failoverRoute();
+    this.failoverUrl = messageScoped ? null : resolution.failoverUrl();
+    this.target = target(resolution.uri(), url);
+    this.failoverTarget = messageScoped ? null : target(resolution.failoverUri(), failoverUrl);
     this.resolution = resolution;
-    this.enqueuedAt = enqueuedAt;
+    this.enqueuedNanos = enqueuedNanos;
+  }
+
+  /**
+   * Swaps in a newer payload for a queued edit; fails once the worker has claimed the request. Only
+   * {@link DispatchQueue#replacePayload} calls this, so the queue's byte count follows the change.
+   */
+  synchronized boolean replacePayload(byte[] jsonPayload, int payloadBytes, int embedCount) {
+    if (claimed) {
+      return false;
+    }
+    this.jsonPayload = jsonPayload;
+    this.payloadBytes = payloadBytes;
+    this.embedCount = embedCount;
+    this.queuedBytes = payloadBytes + attachmentBytes;
+    return true;
+  }
+
+  /** Freezes the payload before delivery. */
+  synchronized void claim() {
+    claimed = true;
+  }
+
+  synchronized byte[] jsonPayload() {
+    return jsonPayload;
+  }
+
+  synchronized int payloadBytes() {
+    return payloadBytes;
   }
 
-  void completeQueueFull() {
-    future.complete(new SendResult(false, "QUEUE_FULL", "Queue full", requestId.toString()));
+  synchronized int embedCount() {
+    return embedCount;
+  }
+
+  /** Executes reuse the route's parsed URI; other operations derive theirs once, here. */
+  private URI target(URI webhook, String webhookUrl) {
+    if (webhook == null || operation == Operation.EXECUTE) {
+      return webhook;
+    }
+    String derived =
+        operation == Operation.EXECUTE_WAIT
+            ? WebhookTransport.withWait(webhookUrl)
+            : WebhookTransport.messageUrl(webhookUrl, messageId);
+    try {
+      return URI.create(derived);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** Marks a fire-and-forget request: no future will be asked for and no result is built. */
+  synchronized void detach() {
+    detached = true;
+  }
+
+  synchronized boolean wantsResult() {
+    return !detached;
+  }
+
+  /** The caller's future, created on first use. */
+  synchronized CompletableFuture<SendResult> future() {
+    if (future == null) {
+      future = result != null ? CompletableFuture.completedFuture(result) : new CompletableFuture<>();
+    }
+    return future;
+  }
+
+  /** Records the outcome; like {@link CompletableFuture#complete}, only the first call counts. */
+  void complete(SendResult outcome) {
+    CompletableFuture<SendResult> target;
+    synchronized (this) {
+      if (result != null || detached) {
+        return;
+      }
+      result = outcome;
+      target = future;
+    }
+    if (target != null) {
+      target.complete(outcome);
+    }
+  }
+
+  String requestIdText() {
+    String text = requestIdText;
+    if (text == null) {
+      text = RequestIds.format(requestId);
+      requestIdText = text;
+    }
+    return text;
+  }
+
+  /** Claims a dropped request; returns its QUEUE_FULL result, or {@code null} if detached. */
+  SendResult claimQueueFull() {
+    claim();
+    return wantsResult()
+        ? new SendResult(false, "QUEUE_FULL", "Queue full", requestIdText())
+        : null;
+  }
+
+  enum Operation {
+    EXECUTE("POST"),
+    EXECUTE_WAIT("POST"),
+    EDIT("PATCH"),
+    DELETE("DELETE");
+
+    final String method;
+
+    Operation(String method) {
+      this.method = method;
+    }
   }
 }
@@ -0,0 +1,124 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.Attachment;
+import dev.mindiscord.api.PreparedMessage;
+import dev.mindiscord.api.WebhookMessage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Validated, serialized form of a {@link WebhookMessage}. The caller's message is never retained:
+ * the JSON is written straight from it and attachments are snapshotted, so nothing the caller does
+ * afterwards can change what is sent. Built per send, or once via {@code AnnounceBus.prepare} and
+ * then shared by every send of that handle.
+ */
+final class PreparedPayload implements PreparedMessage {
+  static final int MAX_ATTACHMENTS = 10;
+
+  final byte[] json;
+  final int embedCount;
+  final List<Attachment> attachments;
+  final long attachmentBytes;
+
+  private PreparedPayload(
+      byte[] json, int embedCount, List<Attachment> attachments, long attachmentBytes) {
+    this.json = json;
+    this.embedCount = embedCount;
+    this.attachments = attachments;
+    this.attachmentBytes = attachmentBytes;
+  }
+
+  /** Payload for an execute: blank username/avatar fall back to {@code defaults}. */
+  static PreparedPayload of(
+      WebhookMessage message, Config.Defaults defaults, Config.Attachments limits)
+      throws PayloadWriter.InvalidPayloadException, IOException {
+    return of(message, defaults.username(), defaults.avatarUrl(), limits);
+  }
+
+  /** Wraps JSON that has already been validated, e.g. a rendered {@link MessageTemplate}. */
+  static PreparedPayload ofJson(byte[] json, int embedCount) {
+    return new PreparedPayload(json, embedCount, List.of(), 0L);
+  }
+
+  /** Webhook message edits cannot change the author or add files, so neither is written. */
+  static PreparedPayload forEdit(WebhookMessage message)
+      throws PayloadWriter.InvalidPayloadException, IOException {
+    if (message.attachments != null && !message.attachments.isEmpty()) {
+      throw new PayloadWriter.InvalidPayloadException("Attachments cannot be added by edits");
+    }
+    return of(message, null, null, Config.Attachments.DEFAULTS);
+  }
+
+  private static PreparedPayload of(
+      WebhookMessage message, String username, String avatarUrl, Config.Attachments limits)
+      throws PayloadWriter.InvalidPayloadException, IOException {
+    byte[] json = PayloadWriter.write(message, username, avatarUrl);
+    int embedCount = message.embeds != null ? message.embeds.size() : 0;
+    if (message.attachments == null || message.attachments.isEmpty()) {
+      return new PreparedPayload(json, embedCount, List.of(), 0L);
+    }
+    List<Attachment> attachments = snapshot(message.attachments, limits);
+    return new PreparedPayload(json, embedCount, attachments, totalBytes(attachments, limits));
+  }
+
+  @Override
+  public int payloadBytes() { return json.length; }
+
+  @Override
+  public int embedCount() { return embedCount; }
+
+  @Override
+  public int attachmentCount() { return attachments.size(); }
+
+  /** Buffers are duplicated so the caller moving position/limit later cannot change what is sent. */
+  private static List<Attachment> snapshot(List<Attachment> originals, Config.Attachments limits)
+      throws PayloadWriter.InvalidPayloadException {
+    if (!limits.enabled()) {
+      throw new PayloadWriter.InvalidPayloadException("Attachments disabled via config");
+    }
+    if (originals.size() > MAX_ATTACHMENTS) {
+      throw new PayloadWriter.InvalidPayloadException("Too many attachments (max 10)");
+    }
+    Attachment[] copies = new Attachment[originals.size()];
+    for (int i = 0; i < copies.length; i++) {
+      Attachment original = originals.get(i);
+      if (original == null || (original.path == null) == (original.data == null)) {
+        throw new PayloadWriter.InvalidPayloadException("Attachment needs exactly one of path or data");
+      }
+      Attachment copy = new Attachment();
+      copy.filename = original.filename;
+      copy.description = original.description;
+      copy.path = original.path;
+      copy.data = original.data != null ? original.data.duplicate() : null;
+      copies[i] = copy;
+    }
+    return List.of(copies);
+  }
+
+  /** Files are only stat'ed, never read. */
+  private static long totalBytes(List<Attachment> attachments, Config.Attachments limits)
+      throws PayloadWriter.InvalidPayloadException {
+    long total = 0;
+    for (Attachment attachment : attachments) {
+      if (attachment.path != null) {
+        try {
+          if (!Files.isRegularFile(attachment.path) || !Files.isReadable(attachment.path)) {
+            throw new IOException("not a readable file");
+          }
+          total += Files.size(attachment.path);
+        } catch (IOException e) {
+          throw new PayloadWriter.InvalidPayloadException(
+              "Attachment not readable: " + attachment.path.getFileName());
+        }
+      } else {
+        total += attachment.data.remaining();
+      }
+      if (total > limits.maxBytesPerMessage()) {
+        throw new PayloadWriter.InvalidPayloadException(
+            "Attachments exceed " + limits.maxBytesPerMessage() + " bytes");
+      }
+    }
+    return total;
+  }
+}
@@ -1,70 +1,623 @@
 package dev.mindiscord.core;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
+/**
+ * Rate limiters using GCRA: each key stores only its theoretical arrival time (TAT) in an
+ * {@link AtomicLong}, advanced by CAS. A full bucket is any TAT at or before now; each acquire
+ * pushes the TAT one emission interval further, and the caller waits for whatever part exceeds
+ * the burst allowance. Nothing is allocated once a key exists.
+ *
+ * <p>A delivery passes four tiers together: global, webhook URL, route and (optionally) caller.
+ * Booking them together is not lock-free: it claims each tier's TAT in a fixed order by swapping in
+ * a marker, schedules itself at the earliest instant all of them allow, and writes the booked TATs
+ * back, so each claim is a short spinlock on that key. A delivery that finds a tier already claimed
+ * restores the ones it holds and starts over, so a failed attempt leaves every tier exactly as it
+ * was: no token is lost and none is handed out twice. Anyone else who needs a claimed key, single-
+ * tier acquires and 429 push-backs included, waits until the claim is released; the claim lasts a
+ * few instructions, but if its holder is preempted every sender on that key stalls until it runs
+ * again. Waiters spin briefly and then yield the CPU on every retry ({@link #backOff}), and
+ * {@link #available}, which runs on the server thread, never waits at all.
+ *
+ * <p>A limiter whose TAT has fallen behind the clock holds a full bucket, the same state a new one
+ * starts with, so limiters idle for {@code rateLimit.idleTtlMs} are dropped by a sweep that runs
+ * at most once per TTL and are recreated on next use. Reconfiguring does not touch existing
+ * limiters; each picks up its new rule the next time it is looked up.
+ *
+ * <p>Limiter keys passed to {@code send} get a separate GCRA per route and key, allowing
+ * {@code limit} messages per window. At most {@code rateLimit.maxKeys} are tracked; keys whose
+ * bucket has refilled are dropped whenever the map is full, and a key that still finds no room is
+ * let through untracked rather than refused.
+ *
+ * <p>Routes registered at runtime carry their own rule ({@link #setRouteRule}), which wins over
+ * the config's and is applied to a live limiter in place.
+ *
+ * <p>{@link #exportState} and {@link #restoreState} carry every limiter still ahead of the clock,
+ * including webhooks paused by a 429, across a restart; see {@link LimiterStateStore}.
+ */
 final class RateLimiterRegistry {
-  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private static final String GLOBAL = "global";
+  /** TAT of a limiter removed by the sweep; whoever reads it looks the key up again. */
+  private static final long EVICTED = Long.MIN_VALUE;
+  /**
+   * TAT of a limiter locked by a multi-tier reservation for the few instructions it takes; anyone
+   * else touching the limiter spins until it is released.
+   */
+  private static final long CLAIMED = Long.MIN_VALUE + 1;
+  /** Retries spent busy-waiting on a claim before each further retry yields the CPU. */
+  private static final int SPINS_BEFORE_YIELD = 64;
+
+  private final Map<String, Config.RateLimit.Rule> routeRules = new ConcurrentHashMap<>();
+  private final Tier global = new Tier("global", false, limits -> key -> limits.global());
+  private final Tier webhooks = new Tier("webhooks", true, limits -> key -> limits.perWebhook());
+  private final Tier routes = new Tier("routes", false, limits -> key -> ruleForRoute(limits, key));
+  private final Tier callers = new Tier("callers", false, limits -> limits::ruleForCaller);
+  private final Map<String, KeyState> keys = new ConcurrentHashMap<>();
+  private final AtomicLong lastSweep = new AtomicLong(EVICTED);
+  private final AtomicLong lastKeySweep = new AtomicLong(EVICTED);
   private volatile Config.RateLimit rateLimit = Config.RateLimit.DEFAULTS;
+  private volatile long idleTtlNanos =
+      TimeUnit.MILLISECONDS.toNanos(Config.RateLimit.DEFAULT_IDLE_TTL_MS);
 
   void configure(Config.RateLimit rateLimit) {
     this.rateLimit = rateLimit;
-    buckets.forEach((route, bucket) -> bucket.configure(rateLimit.ruleFor(route)));
+    this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(rateLimit.idleTtlMs());
+    global.configure(rateLimit);
+    webhooks.configure(rateLimit);
+    routes.configure(rateLimit);
+    callers.configure(rateLimit);
+  }
+
+  /**
+   * Gives {@code route} its own rule, or hands it back to the config's with {@code null}. A
+   * limiter that already exists keeps its TAT and follows the new rule from its next booking.
+   */
+  void setRouteRule(String route, Config.RateLimit.Rule rule) {
+    if (rule != null) {
+      routeRules.put(route, rule);
+    } else {
+      routeRules.remove(route);
+    }
+    // Locks out a concurrent creation, which would otherwise build the limiter from the old rule.
+    routes.limiters.computeIfPresent(route, (key, limiter) -> {
+      limiter.limit = Limit.of(ruleForRoute(rateLimit, key));
+      return limiter;
+    });
+  }
+
+  private Config.RateLimit.Rule ruleForRoute(Config.RateLimit limits, String route) {
+    Config.RateLimit.Rule rule = route != null ? routeRules.get(route) : null;
+    return rule != null ? rule : limits.ruleFor(route);
   }
 
   Duration acquire(String key, TimeSource timeSource) {
-    Config.RateLimit.Rule rule = rateLimit.ruleFor(key);
-    TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(rule, timeSource));
-    bucket.configure(rule);
-    return bucket.acquire(timeSource);
+    long nanos = acquireNanos(key, timeSource);
+    return nanos == 0L ? Duration.ZERO : Duration.ofNanos(nanos);
+  }
+
+  /** Reserves one token on the route tier only; returns how long to wait before using it. */
+  long acquireNanos(String key, TimeSource timeSource) {
+    return acquireOne(routes, key, timeSource);
   }
 
-  private static final class TokenBucket {
-    private double capacity;
-    private double refillPerSecond;
-    private double tokens;
-    private long lastCheck;
+  /**
+   * Reserves one slot on {@code url}'s webhook tier only, for a delivery that moves to another
+   * webhook after its other tiers were booked.
+   */
+  long acquireWebhookNanos(String url, TimeSource timeSource) {
+    return acquireOne(webhooks, url, timeSource);
+  }
 
-    TokenBucket(Config.RateLimit.Rule rule, TimeSource timeSource) {
-      configure(rule);
-      this.tokens = capacity;
-      this.lastCheck = timeSource.nanoTime();
+  private long acquireOne(Tier tier, String key, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    sweepIfDue(now);
+    while (true) {
+      long wait = tier.limiter(key, now).acquire(now);
+      if (wait >= 0L) {
+        return wait;
+      }
     }
+  }
 
-    synchronized Duration acquire(TimeSource timeSource) {
-      long now = timeSource.nanoTime();
-      refill(now);
-      if (tokens >= 1.0d) {
-        tokens -= 1.0d;
-        return Duration.ZERO;
+  /**
+   * Reserves one slot on every tier that applies to a delivery and returns how long to wait
+   * before sending. {@code url} and {@code caller} may be {@code null} to skip those tiers.
+   */
+  long acquireNanos(String url, String route, String caller, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    sweepIfDue(now);
+    boolean limitCaller = caller != null && rateLimit.ruleForCaller(caller) != null;
+    for (int attempt = 0; ; attempt++) {
+      Gcra first = global.limiter(GLOBAL, now);
+      Gcra second = url != null ? webhooks.limiter(url, now) : null;
+      Gcra third = routes.limiter(route, now);
+      Gcra fourth = limitCaller ? callers.limiter(caller, now) : null;
+      // Claim every tier in a fixed order, backing out of all of them if one is taken or swept.
+      long tat1 = first.claim();
+      if (isMarker(tat1)) {
+        backOff(attempt);
+        continue;
+      }
+      long tat2 = second != null ? second.claim() : 0L;
+      if (isMarker(tat2)) {
+        first.unclaim(tat1);
+        backOff(attempt);
+        continue;
+      }
+      long tat3 = third.claim();
+      if (isMarker(tat3)) {
+        unclaim(second, tat2);
+        first.unclaim(tat1);
+        backOff(attempt);
+        continue;
+      }
+      long tat4 = fourth != null ? fourth.claim() : 0L;
+      if (isMarker(tat4)) {
+        third.unclaim(tat3);
+        unclaim(second, tat2);
+        first.unclaim(tat1);
+        backOff(attempt);
+        continue;
+      }
+      // Nothing else can move a claimed TAT, so the slot planned here is the slot booked.
+      long start = Math.max(first.earliest(tat1, now), third.earliest(tat3, now));
+      if (second != null) {
+        start = Math.max(start, second.earliest(tat2, now));
+      }
+      if (fourth != null) {
+        start = Math.max(start, fourth.earliest(tat4, now));
       }
-      double needed = 1.0d - tokens;
-      double seconds = needed / Math.max(0.0001d, refillPerSecond);
-      long nanos = (long) Math.ceil(seconds * 1_000_000_000L);
-      tokens = Math.max(-capacity, tokens - 1.0d);
-      return Duration.ofNanos(Math.max(0L, nanos));
+      first.book(tat1, start);
+      if (second != null) {
+        second.book(tat2, start);
+      }
+      third.book(tat3, start);
+      if (fourth != null) {
+        fourth.book(tat4, start);
+      }
+      return start - now;
+    }
+  }
+
+  private static boolean isMarker(long tat) {
+    return tat == EVICTED || tat == CLAIMED;
+  }
+
+  /** Waits out a claim: spins for the first retries, then yields so a preempted holder can run. */
+  private static void backOff(int attempt) {
+    if (attempt < SPINS_BEFORE_YIELD) {
+      Thread.onSpinWait();
+    } else {
+      Thread.yield();
     }
+  }
 
-    synchronized void configure(Config.RateLimit.Rule rule) {
-      this.capacity = rule.burst();
-      this.refillPerSecond = rule.refillTokensPerSecond();
-      if (tokens > capacity) {
-        tokens = capacity;
+  private static void unclaim(Gcra limiter, long observedTat) {
+    if (limiter != null) {
+      limiter.unclaim(observedTat);
+    }
+  }
+
+  /**
+   * Records a 429 from {@code url}: nothing more is scheduled on that webhook until
+   * {@code retryAfterNanos} has passed, after which it resumes one request per interval.
+   */
+  void throttle(String url, long retryAfterNanos, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    while (!webhooks.limiter(url, now).pushBack(now + retryAfterNanos)) {
+      // Swept between lookup and update; the replacement takes the pause.
+    }
+  }
+
+  /**
+   * Counts one message for {@code key} on {@code route} against {@code limit}. If it conforms,
+   * returns how many of the key's messages were refused since the last one admitted (and resets
+   * that count); otherwise returns the negated number refused so far, this one included.
+   */
+  long admitKey(String route, String key, Config.RateLimit.KeyLimit limit, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    sweepIfDue(now);
+    String id = route + '\n' + key;
+    long interval = limit.intervalNanos();
+    long window = interval * limit.limit();
+    while (true) {
+      KeyState state = keys.get(id);
+      if (state == null) {
+        if (keys.size() >= rateLimit.maxKeys() && !makeRoomForKey(now)) {
+          return 0L;
+        }
+        state = keys.computeIfAbsent(id, k -> new KeyState(now));
+      }
+      long previous = state.tat.get();
+      if (previous == EVICTED) {
+        continue;
       }
-      if (tokens < -capacity) {
-        tokens = -capacity;
+      long next = Math.max(previous, now) + interval;
+      if (next - now > window) {
+        return -state.refused.incrementAndGet();
+      }
+      if (state.tat.compareAndSet(previous, next)) {
+        return state.refused.getAndSet(0);
       }
     }
+  }
 
-    private void refill(long now) {
-      long elapsed = Math.max(0L, now - lastCheck);
-      if (elapsed <= 0L) {
+  /**
+   * Captures every limiter still ahead of the clock, converting TATs to epoch milliseconds
+   * (rounded up) so they can be restored against a different monotonic clock after a restart.
+   */
+  LimiterStateStore.Snapshot exportState(TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    long wall = timeSource.now().toEpochMilli();
+    LimiterStateStore.Snapshot snapshot = new LimiterStateStore.Snapshot();
+    snapshot.savedAtMillis = wall;
+    for (Tier tier : List.of(global, webhooks, routes, callers)) {
+      Map<String, Long> saved = tier.export(now, wall);
+      if (!saved.isEmpty()) {
+        snapshot.tiers.put(tier.name, saved);
+      }
+    }
+    keys.forEach((id, state) -> {
+      long tat = state.tat.get();
+      long refused = state.refused.get();
+      if (tat == EVICTED || (tat <= now && refused == 0L)) {
         return;
       }
-      double seconds = elapsed / 1_000_000_000d;
-      tokens = Math.min(capacity, tokens + seconds * refillPerSecond);
-      lastCheck = now;
+      snapshot.keys.put(id, toWallMillis(Math.max(tat, now), now, wall));
+      if (refused != 0L) {
+        snapshot.refused.put(id, refused);
+      }
+    });
+    return snapshot;
+  }
+
+  /**
+   * Loads a snapshot taken by {@link #exportState}. Time that passed since it was saved counts as
+   * refill; limiters are re-created from it lazily, on first use of their key.
+   */
+  void restoreState(LimiterStateStore.Snapshot snapshot, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    long wall = timeSource.now().toEpochMilli();
+    for (Tier tier : List.of(global, webhooks, routes, callers)) {
+      Map<String, Long> saved = snapshot.tiers != null ? snapshot.tiers.get(tier.name) : null;
+      if (saved != null) {
+        saved.forEach((key, millis) -> {
+          long tat = toNanos(millis, now, wall);
+          if (tat > now) {
+            tier.restored.put(key, tat);
+          }
+        });
+      }
+    }
+    if (snapshot.keys != null) {
+      int room = rateLimit.maxKeys();
+      for (Map.Entry<String, Long> entry : snapshot.keys.entrySet()) {
+        if (keys.size() >= room) {
+          break;
+        }
+        long refused =
+            snapshot.refused != null ? snapshot.refused.getOrDefault(entry.getKey(), 0L) : 0L;
+        long tat = toNanos(entry.getValue(), now, wall);
+        if (tat > now || refused != 0L) {
+          KeyState state = new KeyState(Math.max(tat, now));
+          state.refused.set(refused);
+          keys.putIfAbsent(entry.getKey(), state);
+        }
+      }
+    }
+  }
+
+  private static long toWallMillis(long tat, long now, long wallMillis) {
+    return wallMillis + Math.ceilDiv(tat - now, 1_000_000L);
+  }
+
+  private static long toNanos(long millis, long now, long wallMillis) {
+    return now + (millis - wallMillis) * 1_000_000L;
+  }
+
+  /** Limiter keys currently tracked. */
+  int keyCount() {
+    return keys.size();
+  }
+
+  /** Limiters currently held across all tiers. */
+  int size() {
+    return global.limiters.size()
+        + webhooks.limiters.size()
+        + routes.limiters.size()
+        + callers.limiters.size();
+  }
+
+  /** Drops limiters whose bucket has been full for a whole TTL; runs at most once per TTL. */
+  private void sweepIfDue(long now) {
+    long ttl = idleTtlNanos;
+    long last = lastSweep.get();
+    if (last == EVICTED) {
+      lastSweep.compareAndSet(EVICTED, now);
+      return;
+    }
+    if (now - last < ttl || !lastSweep.compareAndSet(last, now)) {
+      return;
+    }
+    long cutoff = now - ttl;
+    global.sweep(cutoff);
+    webhooks.sweep(cutoff);
+    routes.sweep(cutoff);
+    callers.sweep(cutoff);
+    sweepKeys(now, cutoff);
+    for (Tier tier : List.of(global, webhooks, routes, callers)) {
+      tier.restored.values().removeIf(tat -> tat <= now);
+    }
+  }
+
+  /** Sweeps keys when the map is full, at most once a second; {@code true} if room was made. */
+  private boolean makeRoomForKey(long now) {
+    long last = lastKeySweep.get();
+    if (last != EVICTED && now - last < TimeUnit.SECONDS.toNanos(1)) {
+      return false;
+    }
+    if (lastKeySweep.compareAndSet(last, now)) {
+      sweepKeys(now, now - idleTtlNanos);
+    }
+    return keys.size() < rateLimit.maxKeys();
+  }
+
+  private void sweepKeys(long now, long staleBefore) {
+    keys.forEach((id, state) -> {
+      if (state.evictIfIdle(now, staleBefore)) {
+        keys.remove(id, state);
+      }
+    });
+  }
+
+  /**
+   * Whole tokens {@code key}'s route and the global tier allow right now; consumes nothing. Called
+   * from the server thread, so a tier claimed by a reservation in flight counts as empty rather
+   * than being waited for.
+   */
+  int available(String key, TimeSource timeSource) {
+    long now = timeSource.nanoTime();
+    Gcra route = routes.limiters.get(key);
+    Gcra shared = global.limiters.get(GLOBAL);
+    int routeTokens =
+        route != null ? route.available(now) : ruleForRoute(rateLimit, key).burst();
+    int globalTokens = shared != null ? shared.available(now) : rateLimit.global().burst();
+    return Math.min(routeTokens, globalTokens);
+  }
+
+  /**
+   * One level of the hierarchy: a limiter per key, each following the rule its key maps to. A
+   * limiter remembers which rule mapping it was built from and re-reads its rule when that changes.
+   */
+  private static final class Tier {
+    final String name;
+    final Map<String, Gcra> limiters = new ConcurrentHashMap<>();
+    /** TATs loaded from disk, by {@link #diskKey}, waiting for their limiter to be created. */
+    final Map<String, Long> restored = new ConcurrentHashMap<>();
+    private final boolean hashKeys;
+    private final Function<Config.RateLimit, Function<String, Config.RateLimit.Rule>> rules;
+    private volatile Function<String, Config.RateLimit.Rule> ruleFor;
+
+    Tier(
+        String name,
+        boolean hashKeys,
+        Function<Config.RateLimit, Function<String, Config.RateLimit.Rule>> rules) {
+      this.name = name;
+      this.hashKeys = hashKeys;
+      this.rules = rules;
+      this.ruleFor = rules.apply(Config.RateLimit.DEFAULTS);
+    }
+
+    void configure(Config.RateLimit rateLimit) {
+      ruleFor = rules.apply(rateLimit);
+    }
+
+    Gcra limiter(String key, long now) {
+      Function<String, Config.RateLimit.Rule> current = ruleFor;
+      Gcra limiter = limiters.get(key);
+      if (limiter == null) {
+        limiter =
+            limiters.computeIfAbsent(
+                key, k -> new Gcra(current, Limit.of(current.apply(k)), initialTat(k, now)));
+      }
+      if (limiter.source != current) {
+        limiter.limit = Limit.of(current.apply(key));
+        limiter.source = current;
+      }
+      return limiter;
+    }
+
+    private long initialTat(String key, long now) {
+      if (restored.isEmpty()) {
+        return now;
+      }
+      Long tat = restored.remove(diskKey(key));
+      return tat != null ? Math.max(tat, now) : now;
+    }
+
+    Map<String, Long> export(long now, long wallMillis) {
+      Map<String, Long> saved = new LinkedHashMap<>();
+      limiters.forEach((key, limiter) -> {
+        long tat = limiter.tat.get();
+        if (tat != EVICTED && tat > now) {
+          saved.put(diskKey(key), toWallMillis(tat, now, wallMillis));
+        }
+      });
+      restored.forEach((key, tat) -> {
+        if (tat > now) {
+          saved.putIfAbsent(key, toWallMillis(tat, now, wallMillis));
+        }
+      });
+      return saved;
+    }
+
+    /** Webhook URLs embed their token, so that tier is written to disk by hash only. */
+    private String diskKey(String key) {
+      if (!hashKeys) {
+        return key;
+      }
+      try {
+        byte[] digest =
+            MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 unavailable", e);
+      }
+    }
+
+    void sweep(long cutoff) {
+      limiters.forEach((key, limiter) -> {
+        if (limiter.evictIfIdle(cutoff)) {
+          limiters.remove(key, limiter);
+        }
+      });
+    }
+  }
+
+  /**
+   * Emission interval and burst allowance of a rule, both in nanoseconds. A {@code null} rule
+   * (a caller without a limit) never makes anyone wait.
+   */
+  private record Limit(long intervalNanos, long burstNanos, int burst) {
+    private static final Limit UNLIMITED = new Limit(0L, 0L, Integer.MAX_VALUE);
+
+    static Limit of(Config.RateLimit.Rule rule) {
+      if (rule == null) {
+        return UNLIMITED;
+      }
+      long interval = rule.emissionIntervalNanos();
+      return new Limit(interval, interval * rule.burst(), rule.burst());
+    }
+  }
+
+  /** A limiter key's TAT plus the messages it has had refused since its last admitted one. */
+  private static final class KeyState {
+    final AtomicLong tat;
+    final AtomicLong refused = new AtomicLong();
+
+    KeyState(long now) {
+      this.tat = new AtomicLong(now);
+    }
+
+    /**
+     * Marks this key swept once its bucket has refilled, unless refusals are still waiting to be
+     * reported; those are given up only after the key has been idle since {@code staleBefore}.
+     */
+    boolean evictIfIdle(long now, long staleBefore) {
+      long previous = tat.get();
+      if (previous == EVICTED || previous > now) {
+        return false;
+      }
+      if (previous > staleBefore && refused.get() != 0L) {
+        return false;
+      }
+      return tat.compareAndSet(previous, EVICTED);
+    }
+  }
+
+  private static final class Gcra {
+    final AtomicLong tat;
+    volatile Limit limit;
+    volatile Function<String, Config.RateLimit.Rule> source;
+
+    Gcra(Function<String, Config.RateLimit.Rule> source, Limit limit, long now) {
+      this.source = source;
+      this.limit = limit;
+      this.tat = new AtomicLong(now);
+    }
+
+    /** Books the next slot and returns the wait, or -1 if this limiter was swept. */
+    long acquire(long now) {
+      Limit current = limit;
+      for (int attempt = 0; ; attempt++) {
+        long previous = tat.get();
+        if (previous == EVICTED) {
+          return -1L;
+        }
+        if (previous == CLAIMED) {
+          backOff(attempt);
+          continue;
+        }
+        long next = Math.max(previous, now) + current.intervalNanos;
+        if (tat.compareAndSet(previous, next)) {
+          return Math.max(0L, next - now - current.burstNanos);
+        }
+      }
+    }
+
+    /** Swaps in {@link #CLAIMED} and returns the TAT it replaced, or the marker found instead. */
+    long claim() {
+      while (true) {
+        long previous = tat.get();
+        if (isMarker(previous) || tat.compareAndSet(previous, CLAIMED)) {
+          return previous;
+        }
+      }
+    }
+
+    void unclaim(long observedTat) {
+      tat.set(observedTat);
+    }
+
+    /** Earliest instant at or after {@code now} at which one more request conforms. */
+    long earliest(long observedTat, long now) {
+      Limit current = limit;
+      return Math.max(now, observedTat + current.intervalNanos - current.burstNanos);
+    }
+
+    /** Releases a claim by booking the slot at {@code start}. */
+    void book(long observedTat, long start) {
+      tat.set(Math.max(observedTat, start) + limit.intervalNanos);
+    }
+
+    /** Returns {@code false}, changing nothing, if this limiter was swept. */
+    boolean pushBack(long notBefore) {
+      Limit current = limit;
+      // The next request conforms once the clock reaches notBefore.
+      long target = notBefore + current.burstNanos - current.intervalNanos;
+      for (int attempt = 0; ; attempt++) {
+        long previous = tat.get();
+        if (previous == EVICTED) {
+          return false;
+        }
+        if (previous == CLAIMED) {
+          backOff(attempt);
+          continue;
+        }
+        if (previous >= target || tat.compareAndSet(previous, target)) {
+          return true;
+        }
+      }
+    }
+
+    /** Marks this limiter swept if its bucket has been full since {@code cutoff}. */
+    boolean evictIfIdle(long cutoff) {
+      long previous = tat.get();
+      return !isMarker(previous) && previous <= cutoff && tat.compareAndSet(previous, EVICTED);
+    }
+
+    int available(long now) {
+      Limit current = limit;
+      if (current.intervalNanos == 0L) {
+        return current.burst;
+      }
+      long observed = tat.get();
+      if (observed == CLAIMED) {
+        return 0;
+      }
+      long headroom = now + current.burstNanos - Math.max(observed, now);
+      return (int) Math.max(0L, Math.min(current.burst, headroom / current.intervalNanos));
     }
   }
 }
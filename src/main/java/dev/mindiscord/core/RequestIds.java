@@ -0,0 +1,30 @@
+package dev.mindiscord.core;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request ids as a per-boot random prefix plus a process-wide counter. Taking an id is a single
+ * atomic increment; the text form ({@code 9f3c1a7e-2b}) is only built when a result or ledger entry
+ * needs it. Unlike {@code UUID.randomUUID()} this never touches {@link SecureRandom} per send.
+ */
+final class RequestIds {
+  private static final String PREFIX =
+      String.format("%08x-", new SecureRandom().nextInt());
+  private static final AtomicLong COUNTER = new AtomicLong();
+
+  private RequestIds() {}
+
+  static long next() {
+    return COUNTER.incrementAndGet();
+  }
+
+  static String format(long id) {
+    return PREFIX + Long.toHexString(id);
+  }
+
+  /** A fresh id in text form, for results that never reach the queue. */
+  static String nextText() {
+    return format(next());
+  }
+}
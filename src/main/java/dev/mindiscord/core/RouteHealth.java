@@ -0,0 +1,153 @@
+package dev.mindiscord.core;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks delivery health per webhook URL so the worker can fail over to a secondary target. A URL
+ * that has been healthy, with no failure recorded, for a whole cooldown holds nothing worth keeping;
+ * a sweep running at most once per cooldown drops it, so webhooks removed by a reload or unregistered
+ * at runtime do not stay tracked.
+ */
+final class RouteHealth {
+  private static final long NEVER = Long.MIN_VALUE;
+
+  private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+  private final AtomicLong lastSweep = new AtomicLong(NEVER);
+
+  private volatile Config.Failover config = Config.Failover.DEFAULTS;
+
+  void configure(Config.Failover failover) {
+    this.config = failover;
+  }
+
+  /** Returns {@code false} while the webhook is inside its unhealthy cooldown window. */
+  boolean isHealthy(String url, long nowNanos) {
+    State state = states.get(url);
+    return state == null || state.healthy(nowNanos);
+  }
+
+  /** Records a completed attempt; responses slower than the latency threshold count as failures. */
+  void recordResponse(String url, boolean success, long latencyNanos, long nowNanos) {
+    Config.Failover cfg = this.config;
+    sweepIfDue(cfg, nowNanos);
+    boolean slow = latencyNanos > Duration.ofMillis(cfg.latencyThresholdMs()).toNanos();
+    if (success && !slow) {
+      State state = states.get(url);
+      if (state != null) {
+        state.reset();
+      }
+      return;
+    }
+    while (!states.computeIfAbsent(url, k -> new State()).fail(cfg, nowNanos)) {
+      // Swept between the lookup and the update; the next lookup creates a fresh state.
+    }
+  }
+
+  /**
+   * Records an execute answered with 401, 403 or 404: the webhook was deleted or its token revoked,
+   * so it is skipped for a whole cooldown at once instead of after repeated failures.
+   */
+  void recordGone(String url, long nowNanos) {
+    Config.Failover cfg = this.config;
+    sweepIfDue(cfg, nowNanos);
+    long until = nowNanos + Duration.ofMillis(cfg.cooldownMs()).toNanos();
+    while (!states.computeIfAbsent(url, k -> new State()).block(until, nowNanos)) {
+      // Swept; retry on a fresh state.
+    }
+  }
+
+  /**
+   * Records a 429 from Discord. A {@code Retry-After} longer than the latency threshold marks the
+   * webhook unhealthy until the bucket resets.
+   */
+  boolean recordThrottle(String url, Duration retryAfter, long nowNanos) {
+    Config.Failover cfg = this.config;
+    sweepIfDue(cfg, nowNanos);
+    if (retryAfter == null || retryAfter.toMillis() <= cfg.latencyThresholdMs()) {
+      return false;
+    }
+    long until = nowNanos + retryAfter.toNanos();
+    while (!states.computeIfAbsent(url, k -> new State()).block(until, nowNanos)) {
+      // Swept; retry on a fresh state.
+    }
+    return true;
+  }
+
+  /** URLs currently tracked. */
+  int size() {
+    return states.size();
+  }
+
+  /** Drops states idle for a whole cooldown; runs at most once per cooldown. */
+  private void sweepIfDue(Config.Failover cfg, long now) {
+    long ttl = Duration.ofMillis(cfg.cooldownMs()).toNanos();
+    long last = lastSweep.get();
+    if (last == NEVER) {
+      lastSweep.compareAndSet(NEVER, now);
+      return;
+    }
+    if (now - last < ttl || !lastSweep.compareAndSet(last, now)) {
+      return;
+    }
+    long cutoff = now - ttl;
+    states.forEach((url, state) -> {
+      if (state.evictIfIdle(now, cutoff)) {
+        states.remove(url, state);
+      }
+    });
+  }
+
+  private static final class State {
+    private int consecutiveFailures;
+    private long unhealthyUntil;
+    private long lastFailure;
+    private boolean blocked;
+    private boolean evicted;
+
+    synchronized boolean healthy(long now) {
+      return !blocked || now - unhealthyUntil >= 0;
+    }
+
+    /** Returns {@code false}, changing nothing, if this state was swept. */
+    synchronized boolean fail(Config.Failover cfg, long now) {
+      if (evicted) {
+        return false;
+      }
+      consecutiveFailures++;
+      lastFailure = now;
+      if (consecutiveFailures >= cfg.failureThreshold()) {
+        block(now + Duration.ofMillis(cfg.cooldownMs()).toNanos(), now);
+      }
+      return true;
+    }
+
+    /** Returns {@code false}, changing nothing, if this state was swept. */
+    synchronized boolean block(long until, long now) {
+      if (evicted) {
+        return false;
+      }
+      if (!blocked || until - unhealthyUntil > 0) {
+        unhealthyUntil = until;
+      }
+      blocked = true;
+      lastFailure = now;
+      return true;
+    }
+
+    synchronized void reset() {
+      consecutiveFailures = 0;
+      blocked = false;
+    }
+
+    /** Marks this state swept once it is healthy and has had no failure since {@code cutoff}. */
+    synchronized boolean evictIfIdle(long now, long cutoff) {
+      if (!healthy(now) || (consecutiveFailures > 0 && lastFailure - cutoff > 0)) {
+        return false;
+      }
+      evicted = true;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.AllowedMentions;
+import dev.mindiscord.api.SendResult;
+import dev.mindiscord.api.WebhookMessage;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Feeds a publisher's messages into one route, requesting only as many as the route can take. The
+ * window is the route's spare rate-limit tokens capped by free queue slots; up to a window of
+ * messages is in flight and as many again may wait here. Waiting content-only messages are merged,
+ * so while the route is saturated a burst collapses into a few Discord messages instead of queueing.
+ * A failed send settles only its own message; the subscription is cancelled once the bus closes.
+ */
+final class RouteSubscriber implements Flow.Subscriber<WebhookMessage> {
+  private static final Logger LOGGER = LogManager.getLogger("MinDiscord/AnnounceBus");
+
+  private final String route;
+  private final AnnounceBusImpl bus;
+  private final String caller;
+  private final ArrayDeque<WebhookMessage> pending = new ArrayDeque<>();
+  private Flow.Subscription subscription;
+  private int inFlight;
+  private long requested;
+  private boolean cancelled;
+  private boolean draining;
+  private boolean missed;
+
+  RouteSubscriber(String route, AnnounceBusImpl bus, String caller) {
+    this.route = Objects.requireNonNull(route, "route");
+    this.bus = bus;
+    this.caller = caller;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription, "subscription");
+    synchronized (this) {
+      if (this.subscription != null) {
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+    }
+    replenish();
+  }
+
+  @Override
+  public void onNext(WebhookMessage message) {
+    Objects.requireNonNull(message, "message");
+    synchronized (this) {
+      requested = Math.max(0, requested - 1);
+      WebhookMessage last = pending.peekLast();
+      WebhookMessage merged = last != null ? merge(last, message) : null;
+      if (merged != null) {
+        pending.pollLast();
+        pending.addLast(merged);
+      } else {
+        pending.addLast(message);
+      }
+    }
+    replenish();
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    LOGGER.warn("Publisher for route {} failed; flushing what it already sent", route, throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    // Anything still pending goes out as in-flight sends finish.
+  }
+
+  /**
+   * Sends what the window allows, then asks the publisher for the rest of the window. Re-entrant
+   * calls (a synchronous publisher answering {@code request}, a send completing inline) only flag
+   * another pass, so the stack stays flat.
+   */
+  private void replenish() {
+    synchronized (this) {
+      if (draining) {
+        missed = true;
+        return;
+      }
+      draining = true;
+    }
+    while (true) {
+      long want;
+      Flow.Subscription target;
+      synchronized (this) {
+        missed = false;
+        if (subscription == null || cancelled) {
+          draining = false;
+          return;
+        }
+        if (bus.isClosed()) {
+          cancelled = true;
+          pending.clear();
+          draining = false;
+          subscription.cancel();
+          return;
+        }
+        int window = bus.demandWindow(route);
+        while (inFlight < window && !pending.isEmpty()) {
+          inFlight++;
+          WebhookMessage next = pending.pollFirst();
+          CompletableFuture<SendResult> future =
+              caller != null ? bus.asCaller(caller, () -> bus.send(route, next)) : bus.send(route, next);
+          if (!future.isDone()) {
+            future.whenComplete((result, error) -> onSent());
+            continue;
+          }
+          // Settled already, failures included; the next message gets its own chance.
+          inFlight--;
+        }
+        // A waiting message that can still absorb content does not count against the buffer.
+        int open = canAbsorb(pending.peekLast()) ? 1 : 0;
+        want = 2L * window - inFlight - (pending.size() - open) - requested;
+        if (want <= 0 && !missed) {
+          draining = false;
+          return;
+        }
+        requested += Math.max(0, want);
+        target = subscription;
+      }
+      if (want > 0) {
+        // Outside the lock: a synchronous publisher calls onNext from inside request().
+        target.request(want);
+      }
+    }
+  }
+
+  private void onSent() {
+    synchronized (this) {
+      inFlight--;
+    }
+    replenish();
+  }
+
+  /**
+   * Joins two content-only messages with a newline if they share username, avatar and mentions and
+   * still fit Discord's content limit; {@code null} when they must stay separate.
+   */
+  static WebhookMessage merge(WebhookMessage first, WebhookMessage second) {
+    if (!contentOnly(first) || !contentOnly(second)) {
+      return null;
+    }
+    if (!Objects.equals(first.username, second.username)
+        || !Objects.equals(first.avatarUrl, second.avatarUrl)
+        || !sameMentions(first.allowedMentions, second.allowedMentions)) {
+      return null;
+    }
+    if (first.content.length() + 1 + second.content.length() > PayloadWriter.MAX_CONTENT) {
+      return null;
+    }
+    WebhookMessage merged = new WebhookMessage();
+    merged.username = first.username;
+    merged.avatarUrl = first.avatarUrl;
+    merged.allowedMentions = first.allowedMentions;
+    merged.content = first.content + '\n' + second.content;
+    return merged;
+  }
+
+  /** {@link AllowedMentions} has no {@code equals}; messages built apart carry distinct copies. */
+  private static boolean sameMentions(AllowedMentions a, AllowedMentions b) {
+    if (a == b) {
+      return true;
+    }
+    return a != null
+        && b != null
+        && a.parseRoles == b.parseRoles
+        && a.parseUsers == b.parseUsers
+        && a.parseEveryone == b.parseEveryone
+        && Objects.equals(a.roles, b.roles)
+        && Objects.equals(a.users, b.users);
+  }
+
+  private static boolean canAbsorb(WebhookMessage message) {
+    return message != null
+        && contentOnly(message)
+        && message.content.length() < PayloadWriter.MAX_CONTENT - 1;
+  }
+
+  private static boolean contentOnly(WebhookMessage message) {
+    return message.content != null
+        && !message.content.isBlank()
+        && (message.embeds == null || message.embeds.isEmpty())
+        && (message.attachments == null || message.attachments.isEmpty());
+  }
+}
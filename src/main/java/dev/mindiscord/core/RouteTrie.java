@@ -0,0 +1,100 @@
+package dev.mindiscord.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dot-separated route patterns compiled into a trie. {@code *} matches exactly one segment and a
+ * trailing {@code **} one or more; a literal segment beats {@code *}, which beats {@code **}. A
+ * lookup visits at most the name's segments (plus backtracking between the three choices), however
+ * many patterns are stored.
+ */
+final class RouteTrie<T> {
+  private final Node<T> root = new Node<>();
+  private boolean empty = true;
+
+  static boolean isPattern(String name) {
+    return name != null && name.indexOf('*') >= 0;
+  }
+
+  /** @throws IllegalArgumentException unless every {@code *} is a whole segment and {@code **} is last */
+  static void checkPattern(String pattern) {
+    String[] segments = pattern.split("\\.", -1);
+    for (int i = 0; i < segments.length; i++) {
+      String segment = segments[i];
+      if (segment.equals("**") && i != segments.length - 1) {
+        throw new IllegalArgumentException("'**' must be the last segment: " + pattern);
+      }
+      if (segment.indexOf('*') >= 0 && !segment.equals("*") && !segment.equals("**")) {
+        throw new IllegalArgumentException("Wildcards must span a whole segment: " + pattern);
+      }
+    }
+  }
+
+  /** Whether {@code name} matches the single {@code pattern}; for one-off checks outside a trie. */
+  static boolean matches(String pattern, String name) {
+    RouteTrie<Boolean> trie = new RouteTrie<>();
+    trie.add(pattern, Boolean.TRUE);
+    return trie.match(name) != null;
+  }
+
+  void add(String pattern, T value) {
+    checkPattern(pattern);
+    Node<T> node = root;
+    for (String segment : pattern.split("\\.", -1)) {
+      if (segment.equals("**")) {
+        if (node.rest == null) {
+          node.rest = value;
+        }
+        empty = false;
+        return;
+      }
+      node =
+          segment.equals("*")
+              ? (node.star != null ? node.star : (node.star = new Node<>()))
+              : node.children.computeIfAbsent(segment, key -> new Node<>());
+    }
+    if (node.value == null) {
+      node.value = value;
+    }
+    empty = false;
+  }
+
+  boolean isEmpty() {
+    return empty;
+  }
+
+  /** The value of the most specific pattern matching {@code name}, or {@code null}. */
+  T match(String name) {
+    return empty || name == null ? null : match(root, name, 0);
+  }
+
+  private static <T> T match(Node<T> node, String name, int from) {
+    int dot = name.indexOf('.', from);
+    boolean last = dot < 0;
+    String segment = name.substring(from, last ? name.length() : dot);
+    Node<T> literal = node.children.get(segment);
+    if (literal != null) {
+      T found = last ? literal.value : match(literal, name, dot + 1);
+      if (found != null) {
+        return found;
+      }
+    }
+    if (node.star != null) {
+      T found = last ? node.star.value : match(node.star, name, dot + 1);
+      if (found != null) {
+        return found;
+      }
+    }
+    return node.rest;
+  }
+
+  private static final class Node<T> {
+    final Map<String, Node<T>> children = new HashMap<>();
+    Node<T> star;
+    /** Value of a pattern ending here. */
+    T value;
+    /** Value of a pattern ending here in {@code **}. */
+    T rest;
+  }
+}
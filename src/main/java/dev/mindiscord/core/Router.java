@@ -1,90 +1,367 @@
 package dev.mindiscord.core;
 
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
-/** Resolves logical route names to webhook targets. */
+/**
+ * Resolves logical route names to webhook targets. Each config load builds a table that resolves a
+ * name the first time it is used and keeps the finished resolution and allow-list verdict, so later
+ * sends cost one hash lookup and allocate nothing, and loading tens of thousands of routes does no
+ * per-route work up front. {@code env:} targets are read on a route's first use and again only
+ * after {@link #refreshEnvironment()} or the next reload.
+ *
+ * <p>Pattern routes and allow-list entries ({@code drops.*}, {@code events.**}) go into a
+ * {@link RouteTrie}; a name neither listed nor configured is matched there once and the result
+ * kept in a bounded memo, so later sends of that name cost the same as a configured one.
+ *
+ * <p>Routes added with {@link #putRoute} sit on top of the config, survive reloads and change only
+ * their own cached resolution, unless other routes resolve through them.
+ */
 public final class Router {
-  private final AtomicReference<RouteTable> table = new AtomicReference<>(RouteTable.empty());
+  private final AtomicReference<RouteTable> table = new AtomicReference<>(RouteTable.EMPTY);
+  private final Function<String, String> environment;
+  private final Map<String, Config.RouteDefinition> added = new ConcurrentHashMap<>();
+  private volatile Config config;
 
-  public void update(Config config) {
-    table.set(RouteTable.from(config));
+  public Router() {
+    this(System::getenv);
+  }
+
+  Router(Function<String, String> environment) {
+    this.environment = environment;
+  }
+
+  public synchronized void update(Config config) {
+    this.config = config;
+    table.set(RouteTable.from(config, added, environment));
+  }
+
+  /** Re-reads the environment variables behind {@code env:} routes. */
+  public synchronized void refreshEnvironment() {
+    rebuild();
+  }
+
+  /**
+   * Adds or replaces a route without reloading the config; it wins over a configured route of the
+   * same name until removed.
+   *
+   * @throws IllegalArgumentException if the target is blank or the name an invalid pattern
+   */
+  public synchronized void putRoute(String name, String target) {
+    if (RouteTrie.isPattern(name)) {
+      RouteTrie.checkPattern(name);
+    }
+    Config.RouteDefinition previous = added.put(name, Config.RouteDefinition.of(name, target));
+    changed(name, previous == null);
+  }
+
+  /** Removes a route added with {@link #putRoute}; configured routes are left alone. */
+  public synchronized boolean removeRoute(String name) {
+    if (added.remove(name) == null) {
+      return false;
+    }
+    changed(name, true);
+    return true;
+  }
+
+  private void changed(String name, boolean namesChanged) {
+    RouteTable current = table.get();
+    if (current.dependsOn(name)) {
+      rebuild();
+    } else {
+      current.forget(name, namesChanged);
+    }
+  }
+
+  private void rebuild() {
+    Config current = config;
+    if (current != null) {
+      table.set(RouteTable.from(current, added, environment));
+    }
   }
 
   public RouteResolution resolve(String requestedRoute) {
-    return table.get().resolve(requestedRoute);
+    return table.get().resolve(requestedRoute, false);
   }
 
+  /** Like {@link #resolve}, but {@code null} when {@code announce.allowedRoutes} excludes the route. */
+  public RouteResolution resolveAllowed(String requestedRoute) {
+    return table.get().resolve(requestedRoute, true);
+  }
+
+  /** Every route, ordered by name. Builds an entry per route; commands should use {@link #routes}. */
   public List<RouteInfo> snapshot() {
-    return table.get().snapshot();
+    return routes(null, 1, Integer.MAX_VALUE).items();
+  }
+
+  /** One page of the routes whose names contain {@code filter}, ordered by name. */
+  public Page<RouteInfo> routes(String filter, int page, int pageSize) {
+    RouteTable current = table.get();
+    return Page.ofSorted(current.sortedNames(), filter, page, pageSize, current::info);
   }
 
-  private record RouteTable(
-      Map<String, Config.RouteDefinition> routes,
-      Config.RouteDefinition defaultRoute,
-      boolean allowFallback) {
+  /** A resolved name: its resolution and whether the allow-list admits it. */
+  private record Entry(RouteResolution resolution, boolean allowed) {}
+
+  private static final class RouteTable {
+    static final RouteTable EMPTY = new RouteTable();
+    /** Most pattern-resolved names remembered per table; the memo starts over when full. */
+    private static final int MEMO_LIMIT = 4096;
+
+    private final Map<String, Config.RouteDefinition> configured;
+    private final Map<String, Config.RouteDefinition> added;
+    private final boolean allowAll;
+    private final Set<String> allowedNames;
+    private final RouteTrie<Boolean> allowPatterns;
+    private final RouteTrie<Config.RouteDefinition> patterns;
+    /** Names other resolutions are built from; changing one rebuilds the table. */
+    private final Set<String> dependents;
+    private final Compiler compiler;
+    /** Configured, added and exactly allow-listed names, filled in as they are first used. */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> memo = new ConcurrentHashMap<>();
+    private String[] sortedNames;
 
-    static RouteTable empty() {
-      return new RouteTable(Map.of(), null, false);
+    private RouteTable() {
+      this.configured = Map.of();
+      this.added = Map.of();
+      this.allowAll = true;
+      this.allowedNames = Set.of();
+      this.allowPatterns = new RouteTrie<>();
+      this.patterns = new RouteTrie<>();
+      this.dependents = Set.of();
+      this.compiler = null;
     }
 
-    static RouteTable from(Config config) {
-      Map<String, Config.RouteDefinition> copy = new LinkedHashMap<>(config.routes());
-      return new RouteTable(copy, copy.get("default"), config.announce().allowFallbackToDefault());
+    private RouteTable(
+        Config config,
+        Map<String, Config.RouteDefinition> added,
+        Function<String, String> environment) {
+      this.configured = config.routes();
+      this.added = added;
+      Config.Announce announce = config.announce();
+      this.allowAll = announce.allowedRoutes().isEmpty();
+      this.allowedNames = announce.allowedNames();
+      this.allowPatterns = announce.allowedPatterns();
+      Map<String, String> env = new ConcurrentHashMap<>();
+      this.compiler =
+          new Compiler(
+              config,
+              this::definition,
+              def -> def.environment()
+                  ? env.computeIfAbsent(def.envVariable(), environment)
+                  : def.rawTarget());
+      Set<String> dependents = new HashSet<>();
+      dependents.add("default");
+      config.failover().targets().forEach((route, to) -> dependents.add(to));
+      this.patterns = new RouteTrie<>();
+      List<Config.RouteDefinition> patternRoutes = new ArrayList<>(config.patternRoutes());
+      for (Config.RouteDefinition def : added.values()) {
+        if (RouteTrie.isPattern(def.name())) {
+          patternRoutes.add(def);
+        }
+      }
+      for (Config.RouteDefinition def : patternRoutes) {
+        // A pattern may name another route instead of a URL; it then shares that route's webhook.
+        Config.RouteDefinition alias = def.environment() ? null : definition(def.rawTarget());
+        if (alias != null && !RouteTrie.isPattern(alias.name())) {
+          dependents.add(alias.name());
+          patterns.add(def.name(), alias);
+        } else {
+          patterns.add(def.name(), def);
+        }
+      }
+      this.dependents = Set.copyOf(dependents);
+    }
+
+    static RouteTable from(
+        Config config,
+        Map<String, Config.RouteDefinition> added,
+        Function<String, String> environment) {
+      return new RouteTable(config, added, environment);
     }
 
-    RouteResolution resolve(String requested) {
-      String normalized = requested;
-      if (normalized == null || normalized.isBlank()) {
-        normalized = "default";
+    Config.RouteDefinition definition(String name) {
+      Config.RouteDefinition def = added.get(name);
+      return def != null ? def : configured.get(name);
+    }
+
+    boolean dependsOn(String name) {
+      return compiler != null && (RouteTrie.isPattern(name) || dependents.contains(name));
+    }
+
+    /** Drops what was cached for {@code name}; a send racing this resolves it afresh. */
+    void forget(String name, boolean namesChanged) {
+      entries.remove(name);
+      memo.remove(name);
+      if (namesChanged) {
+        synchronized (this) {
+          sortedNames = null;
+        }
       }
-      Config.RouteDefinition direct = routes.get(normalized);
-      if (direct != null) {
-        String resolved = resolveTarget(direct);
-        if (resolved != null && !resolved.isBlank()) {
-          return success(normalized, direct, resolved, false);
+    }
+
+    RouteResolution resolve(String requested, boolean checkAllowed) {
+      String normalized = requested == null || requested.isBlank() ? "default" : requested;
+      Entry entry = entries.get(normalized);
+      if (entry == null) {
+        if (compiler == null) {
+          return new RouteResolution(normalized, null, null, Status.NO_ROUTE, false, null, null, false);
         }
-        if (allowFallback && !"default".equals(normalized)) {
-        RouteResolution fallbackResolution = attemptFallback(normalized);
-          if (fallbackResolution != null) {
-            return fallbackResolution;
+        entry = materialize(normalized, checkAllowed);
+        if (entry == null) {
+          return null;
+        }
+      }
+      return checkAllowed && !entry.allowed() ? null : entry.resolution();
+    }
+
+    /**
+     * Resolves a name on first use. Configured and listed names are kept for the table's life;
+     * computing inside {@code computeIfAbsent} means {@link #forget} cannot be overtaken by a
+     * resolution of the old definition. Other names go through the patterns into the memo.
+     */
+    private Entry materialize(String name, boolean checkAllowed) {
+      if (!RouteTrie.isPattern(name) && definition(name) != null) {
+        return entries.computeIfAbsent(name, key -> {
+          Config.RouteDefinition def = definition(key);
+          RouteResolution resolution =
+              def != null ? compiler.resolve(key, def) : compiler.resolve(key, patterns.match(key));
+          return new Entry(resolution, isAllowed(key));
+        });
+      }
+      if (allowedNames.contains(name)) {
+        return entries.computeIfAbsent(
+            name, key -> new Entry(compiler.resolve(key, patterns.match(key)), true));
+      }
+      if (checkAllowed && !allowAll && allowPatterns.isEmpty()) {
+        return null;
+      }
+      Entry entry = memo.get(name);
+      if (entry != null) {
+        return entry;
+      }
+      entry = new Entry(compiler.resolve(name, patterns.match(name)), isAllowed(name));
+      if (memo.size() >= MEMO_LIMIT) {
+        memo.clear();
+      }
+      memo.put(name, entry);
+      return entry;
+    }
+
+    private boolean isAllowed(String name) {
+      return allowAll || allowedNames.contains(name) || allowPatterns.match(name) != null;
+    }
+
+    /** Configured and added names in order; sorted on the first listing after a change. */
+    synchronized String[] sortedNames() {
+      if (sortedNames == null) {
+        List<String> names = new ArrayList<>(configured.size() + added.size());
+        names.addAll(configured.keySet());
+        for (String name : added.keySet()) {
+          if (!configured.containsKey(name)) {
+            names.add(name);
           }
         }
-        return failure(normalized, direct);
+        String[] sorted = names.toArray(new String[0]);
+        Arrays.sort(sorted);
+        sortedNames = sorted;
+      }
+      return sortedNames;
+    }
+
+    /** {@code null} once {@code name} is gone. */
+    RouteInfo info(String name) {
+      Config.RouteDefinition def = definition(name);
+      if (def == null || compiler == null) {
+        return null;
+      }
+      String resolved = compiler.target(def);
+      return new RouteInfo(
+          def.name(),
+          def.rawTarget(),
+          def.environment(),
+          def.envVariable(),
+          resolved != null && !resolved.isBlank());
+    }
+  }
+
+  /**
+   * Builds resolutions; {@code lookup} finds route definitions and {@code target} supplies each
+   * definition's URL.
+   */
+  private static final class Compiler {
+    private final Config.RouteDefinition defaultRoute;
+    private final boolean allowFallback;
+    private final Map<String, Config.RouteDefinition> failover = new LinkedHashMap<>();
+    private final Function<Config.RouteDefinition, String> target;
+
+    Compiler(
+        Config config,
+        Function<String, Config.RouteDefinition> lookup,
+        Function<Config.RouteDefinition, String> target) {
+      this.defaultRoute = lookup.apply("default");
+      this.allowFallback = config.announce().allowFallbackToDefault();
+      this.target = target;
+      config.failover().targets().forEach((route, to) -> {
+        Config.RouteDefinition named = lookup.apply(to);
+        // A raw target gets a name of its own, so failed-over sends are not reported as the primary.
+        failover.put(
+            route, named != null ? named : Config.RouteDefinition.of(route + "#failover", to));
+      });
+    }
+
+    String target(Config.RouteDefinition def) {
+      return target.apply(def);
+    }
+
+    /** Resolves {@code requested} as if it were configured with {@code direct}'s target. */
+    RouteResolution resolve(String requested, Config.RouteDefinition direct) {
+      if (direct != null) {
+        String resolved = target(direct);
+        if (resolved != null && !resolved.isBlank()) {
+          return success(requested, direct, resolved, false);
+        }
       }
-      if (allowFallback && !"default".equals(normalized)) {
-        RouteResolution fallbackResolution = attemptFallback(normalized);
+      if (allowFallback && !"default".equals(requested)) {
+        RouteResolution fallbackResolution = attemptFallback(requested);
         if (fallbackResolution != null) {
           return fallbackResolution;
         }
       }
-      return new RouteResolution(
-          normalized,
-          null,
-          null,
-          Status.NO_ROUTE,
-          false,
-          null,
-          null,
-          false);
+      if (direct != null) {
+        return failure(requested, direct);
+      }
+      return new RouteResolution(requested, null, null, Status.NO_ROUTE, false, null, null, false);
     }
 
     private RouteResolution attemptFallback(String requested) {
       if (defaultRoute == null) {
         return null;
       }
-      String resolved = resolveTarget(defaultRoute);
+      String resolved = target(defaultRoute);
       if (resolved == null || resolved.isBlank()) {
         return null;
       }
       return success(requested, defaultRoute, resolved, true);
     }
 
-    private static RouteResolution success(
+    private RouteResolution success(
         String requested, Config.RouteDefinition definition, String url, boolean fallback) {
+      Config.RouteDefinition secondary = failover.get(definition.name());
+      String secondaryUrl = secondary != null ? target(secondary) : null;
+      if (secondaryUrl != null && (secondaryUrl.isBlank() || secondaryUrl.equals(url))) {
+        secondaryUrl = null;
+      }
       return new RouteResolution(
           requested,
           definition.name(),
@@ -93,7 +370,20 @@ public final class Router {
           definition.environment(),
           definition.envVariable(),
           definition.rawTarget(),
-          fallback);
+          fallback,
+          secondaryUrl != null ? secondary.name() : null,
+          secondaryUrl,
+          parse(url),
+          secondaryUrl != null ? parse(secondaryUrl) : null);
+    }
+
+    /** {@code null} for a target that is not a valid URI; its sends fail at delivery. */
+    private static URI parse(String url) {
+      try {
+        return URI.create(url);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
     }
 
     private static RouteResolution failure(String requested, Config.RouteDefinition definition) {
@@ -108,28 +398,6 @@ public final class Router {
           definition.rawTarget(),
           false);
     }
-
-    private static String resolveTarget(Config.RouteDefinition def) {
-      if (!def.environment()) {
-        return def.rawTarget();
-      }
-      return System.getenv(def.envVariable());
-    }
-
-    List<RouteInfo> snapshot() {
-      List<RouteInfo> list = new ArrayList<>();
-      for (Config.RouteDefinition def : routes.values()) {
-        String resolved = def.environment() ? System.getenv(def.envVariable()) : def.rawTarget();
-        list.add(
-            new RouteInfo(
-                def.name(),
-                def.rawTarget(),
-                def.environment(),
-                def.envVariable(),
-                resolved != null && !resolved.isBlank()));
-      }
-      return list;
-    }
   }
 
   public record RouteInfo(
@@ -143,10 +411,42 @@ public final class Router {
       boolean environment,
       String envVariable,
       String rawTarget,
-      boolean fallback) {
+      boolean fallback,
+      String failoverRoute,
+      String failoverUrl,
+      URI uri,
+      URI failoverUri) {
+    public RouteResolution(
+        String requestedRoute,
+        String resolvedRoute,
+        String url,
+        Status status,
+        boolean environment,
+        String envVariable,
+        String rawTarget,
+        boolean fallback) {
+      this(
+          requestedRoute,
+          resolvedRoute,
+          url,
+          status,
+          environment,
+          envVariable,
+          rawTarget,
+          fallback,
+          null,
+          null,
+          null,
+          null);
+    }
+
     public boolean ok() {
       return status == Status.OK || status == Status.FALLBACK;
     }
+
+    public boolean hasFailover() {
+      return failoverUrl != null;
+    }
   }
 
   public enum Status {
@@ -0,0 +1,187 @@
+package dev.mindiscord.core;
+
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.WebhookMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Config.Rule}s compiled for the send path. Rules are grouped by the route they apply to, so
+ * a send only walks the rules that can match its route; within a rule the cheap checks run first
+ * and the first failing one ends it. The message's username and embed colours are read once per
+ * send, and only if some rule looks at them.
+ */
+final class RuleEngine {
+  static final RuleEngine NONE = new RuleEngine(Map.of(), new Compiled[0], 0, null);
+
+  private static final int USERNAME = 1;
+  private static final int COLORS = 1 << 1;
+
+  /** Rules that can match a route with exact {@code from} rules, in configured order. */
+  private final Map<String, Compiled[]> byRoute;
+  /** Rules without an exact {@code from}; all that can match any other route. */
+  private final Compiled[] other;
+  private final int needs;
+  private final String defaultUsername;
+
+  private RuleEngine(
+      Map<String, Compiled[]> byRoute, Compiled[] other, int needs, String defaultUsername) {
+    this.byRoute = byRoute;
+    this.other = other;
+    this.needs = needs;
+    this.defaultUsername = defaultUsername;
+  }
+
+  static RuleEngine compile(List<Config.Rule> rules, Config.Defaults defaults) {
+    if (rules.isEmpty()) {
+      return NONE;
+    }
+    List<Compiled> other = new ArrayList<>();
+    Map<String, List<Compiled>> exact = new LinkedHashMap<>();
+    int needs = 0;
+    List<Compiled> all = new ArrayList<>(rules.size());
+    for (Config.Rule rule : rules) {
+      Compiled compiled = Compiled.of(rule);
+      needs |= compiled.needs;
+      all.add(compiled);
+      if (rule.from() != null && !RouteTrie.isPattern(rule.from())) {
+        exact.computeIfAbsent(rule.from(), key -> new ArrayList<>());
+      }
+    }
+    for (Compiled compiled : all) {
+      String from = compiled.rule.from();
+      if (from != null && !RouteTrie.isPattern(from)) {
+        exact.get(from).add(compiled);
+        continue;
+      }
+      other.add(compiled);
+      // Keeps each exact route's list in configured order with the generic rules interleaved.
+      exact.values().forEach(list -> list.add(compiled));
+    }
+    Map<String, Compiled[]> byRoute = new HashMap<>();
+    exact.forEach((route, list) -> byRoute.put(route, list.toArray(new Compiled[0])));
+    return new RuleEngine(
+        Map.copyOf(byRoute), other.toArray(new Compiled[0]), needs, defaults.username());
+  }
+
+  boolean isEmpty() {
+    return this == NONE;
+  }
+
+  /** Where {@code message}, requested for {@code route}, should go. */
+  String route(String route, WebhookMessage message) {
+    if (this == NONE) {
+      return route;
+    }
+    String username =
+        (needs & USERNAME) != 0 && message.username != null && !message.username.isBlank()
+            ? message.username
+            : defaultUsername;
+    return route(route, username, message.content, (needs & COLORS) != 0 ? colors(message) : null);
+  }
+
+  /** Where a plain {@code content} message, sent under the default username, should go. */
+  String route(String route, String content) {
+    return this == NONE ? route : route(route, defaultUsername, content, null);
+  }
+
+  private String route(String route, String username, String content, int[] colors) {
+    String requested = route == null || route.isBlank() ? "default" : route;
+    Compiled[] candidates = byRoute.getOrDefault(requested, other);
+    Fields fields = new Fields(requested, username, content, colors);
+    for (Compiled rule : candidates) {
+      if (rule.test(fields)) {
+        return rule.rule.to();
+      }
+    }
+    return route;
+  }
+
+  private static int[] colors(WebhookMessage message) {
+    List<Embed> embeds = message.embeds;
+    if (embeds == null || embeds.isEmpty()) {
+      return null;
+    }
+    int[] colors = new int[embeds.size()];
+    int count = 0;
+    for (Embed embed : embeds) {
+      if (embed != null && embed.color != null) {
+        colors[count++] = embed.color;
+      }
+    }
+    return count == colors.length ? colors : Arrays.copyOf(colors, count);
+  }
+
+  /** A message's fields, read once and shared by every rule tried on it. */
+  private record Fields(String route, String username, String content, int[] colors) {}
+
+  private static final class Compiled {
+    final Config.Rule rule;
+    final int needs;
+    final boolean hasColor;
+    final int color;
+    /** The single-pattern trie for a wildcard {@code from}; exact ones are handled by grouping. */
+    final RouteTrie<Boolean> fromPattern;
+
+    private Compiled(Config.Rule rule, int needs, RouteTrie<Boolean> fromPattern) {
+      this.rule = rule;
+      this.needs = needs;
+      this.hasColor = rule.embedColor() != null;
+      this.color = hasColor ? rule.embedColor() : 0;
+      this.fromPattern = fromPattern;
+    }
+
+    static Compiled of(Config.Rule rule) {
+      int needs = 0;
+      if (rule.username() != null) {
+        needs |= USERNAME;
+      }
+      if (rule.embedColor() != null) {
+        needs |= COLORS;
+      }
+      RouteTrie<Boolean> fromPattern = null;
+      if (RouteTrie.isPattern(rule.from())) {
+        fromPattern = new RouteTrie<>();
+        fromPattern.add(rule.from(), Boolean.TRUE);
+      }
+      return new Compiled(rule, needs, fromPattern);
+    }
+
+    /** Cheapest checks first; the regular expression, if any, runs last. */
+    boolean test(Fields fields) {
+      if (fromPattern != null && fromPattern.match(fields.route()) == null) {
+        return false;
+      }
+      if (rule.username() != null && !rule.username().equals(fields.username())) {
+        return false;
+      }
+      if (hasColor && !contains(fields.colors(), color)) {
+        return false;
+      }
+      String content = fields.content();
+      if (rule.contentContains() != null
+          && (content == null || !content.contains(rule.contentContains()))) {
+        return false;
+      }
+      Pattern matches = rule.contentMatches();
+      return matches == null || (content != null && matches.matcher(content).find());
+    }
+
+    private static boolean contains(int[] values, int wanted) {
+      if (values == null) {
+        return false;
+      }
+      for (int value : values) {
+        if (value == wanted) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package dev.mindiscord.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.mindiscord.api.RouteLimits;
+import dev.mindiscord.api.RouteRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Routes registered through the API while the server runs. Each change touches only the route's
+ * own entry in the {@link Router} and its own limiter, so nothing is reloaded or reconfigured and
+ * sends to other routes never wait on it. Persistent registrations are written to a small JSON
+ * file in the background, at most one write in flight, and registered again on the next start.
+ */
+final class RuntimeRoutes implements RouteRegistry {
+  private static final Logger LOGGER = LogManager.getLogger("MinDiscord/Routes");
+
+  static final Path DEFAULT_PATH = Path.of("config/mindiscord-routes.json");
+
+  private final Router router;
+  private final RateLimiterRegistry rateLimiter;
+  private final Path path;
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  /** Persistent registrations by name; guarded by {@code this}. */
+  private final Map<String, Saved> persisted = new TreeMap<>();
+  private final AtomicBoolean savePending = new AtomicBoolean();
+  private final ExecutorService saver =
+      Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MinDiscord-RouteStore");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  RuntimeRoutes(Router router, RateLimiterRegistry rateLimiter, Path path) {
+    this.router = Objects.requireNonNull(router, "router");
+    this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter");
+    this.path = path;
+  }
+
+  @Override
+  public synchronized void registerRoute(
+      String name, String url, RouteLimits limits, boolean persist) {
+    put(name, url, limits);
+    Saved saved = persist ? new Saved(url.trim(), limits) : null;
+    Saved previous = saved != null ? persisted.put(name, saved) : persisted.remove(name);
+    if (saved != null || previous != null) {
+      scheduleSave();
+    }
+  }
+
+  private void put(String name, String url, RouteLimits limits) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Route name may not be blank");
+    }
+    if (RouteTrie.isPattern(name)) {
+      throw new IllegalArgumentException("Runtime routes must be plain names: " + name);
+    }
+    Config.RouteDefinition.of(name, url == null ? "" : url);
+    // The rule goes first, so the route's first send already builds its limiter from it.
+    rateLimiter.setRouteRule(
+        name,
+        limits != null
+            ? new Config.RateLimit.Rule(limits.tokensPerMinute(), limits.burst())
+            : Config.RateLimit.Rule.DEFAULT);
+    router.putRoute(name, url);
+  }
+
+  @Override
+  public synchronized boolean unregisterRoute(String name) {
+    if (name == null || !router.removeRoute(name)) {
+      return false;
+    }
+    rateLimiter.setRouteRule(name, null);
+    if (persisted.remove(name) != null) {
+      scheduleSave();
+    }
+    return true;
+  }
+
+  /** Registers the routes saved by an earlier run; a missing or unreadable file adds none. */
+  synchronized void load() {
+    if (path == null || !Files.isRegularFile(path)) {
+      return;
+    }
+    Map<String, Saved> saved;
+    try {
+      saved = mapper.readValue(path.toFile(), new TypeReference<Map<String, Saved>>() {});
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Ignoring unreadable runtime routes in {}", path, e);
+      return;
+    }
+    saved.forEach((name, route) -> {
+      try {
+        put(name, route.url, route.limits());
+        persisted.put(name, route);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Skipping saved route '{}': {}", name, e.getMessage());
+      }
+    });
+  }
+
+  /** Writes any pending change and stops the background writer. */
+  void close() {
+    saver.shutdown();
+    try {
+      saver.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (savePending.getAndSet(false)) {
+      save();
+    }
+  }
+
+  private void scheduleSave() {
+    if (path != null && savePending.compareAndSet(false, true)) {
+      try {
+        saver.execute(() -> {
+          savePending.set(false);
+          save();
+        });
+      } catch (RuntimeException e) {
+        // Shutting down; close() writes what is pending.
+        savePending.set(true);
+      }
+    }
+  }
+
+  private void save() {
+    Map<String, Saved> snapshot;
+    synchronized (this) {
+      snapshot = new TreeMap<>(persisted);
+    }
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      mapper.writeValue(temp.toFile(), snapshot);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to save runtime routes to {}", path, e);
+    }
+  }
+
+  /** On-disk form of one route; the limits are {@code null} for the default per-route limit. */
+  public static final class Saved {
+    public String url;
+    public Integer tokensPerMinute;
+    public Integer burst;
+
+    public Saved() {}
+
+    Saved(String url, RouteLimits limits) {
+      this.url = url;
+      if (limits != null) {
+        this.tokensPerMinute = limits.tokensPerMinute();
+        this.burst = limits.burst();
+      }
+    }
+
+    RouteLimits limits() {
+      return tokensPerMinute != null && burst != null
+          ? new RouteLimits(tokensPerMinute, burst)
+          : null;
+    }
+  }
+}
@@ -1,7 +1,24 @@
 package dev.mindiscord.core;
 
+import dev.mindiscord.api.Attachment;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
 interface WebhookClient {
-  WebhookTransport.TransportResponse postJson(String url, String json);
+  WebhookTransport.TransportResponse postJson(URI uri, byte[] json);
+
+  /** Issues {@code method} against {@code uri}. {@code json} is {@code null} for bodiless requests. */
+  WebhookTransport.TransportResponse exchange(String method, URI uri, byte[] json);
+
+  /** Sends the UTF-8 {@code json} as {@code payload_json} with the files streamed as multipart parts. */
+  WebhookTransport.TransportResponse exchangeMultipart(
+      String method, URI uri, byte[] json, List<Attachment> attachments);
+
+  /** Per-host latency percentiles; empty for clients that do not measure. */
+  default Map<String, WebhookTransport.LatencyStats> latency() {
+    return Map.of();
+  }
 
   default void configure(Config.Transport transport) {
     // no-op by default
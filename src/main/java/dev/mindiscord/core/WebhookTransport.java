@@ -1,19 +1,35 @@
 package dev.mindiscord.core;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.mindiscord.api.Attachment;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public final class WebhookTransport implements WebhookClient {
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final ConcurrentHashMap<String, LatencyTracker> latency = new ConcurrentHashMap<>();
+
   private volatile HttpClient client;
   private volatile Duration requestTimeout;
+  private volatile Config.Transport settings;
 
   public WebhookTransport() {
     configure(Config.Transport.DEFAULTS);
@@ -24,25 +40,169 @@ public final class WebhookTransport implements WebhookClient {
     Duration connect = Duration.ofMillis(transport.connectTimeoutMs());
     this.client = HttpClient.newBuilder().connectTimeout(connect).build();
     this.requestTimeout = Duration.ofMillis(transport.readTimeoutMs());
+    this.settings = transport;
   }
 
   @Override
-  public TransportResponse postJson(String url, String json) {
+  public TransportResponse postJson(URI uri, byte[] json) {
+    LatencyTracker tracker = tracker(uri);
+    long started = System.nanoTime();
     try {
-      var req = HttpRequest.newBuilder(URI.create(url))
+      var req = HttpRequest.newBuilder(uri)
           .header("Content-Type", "application/json")
-          .timeout(requestTimeout)
-          .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+          .timeout(effectiveTimeout(tracker))
+          .POST(HttpRequest.BodyPublishers.ofByteArray(json))
           .build();
       var resp = client.send(req, HttpResponse.BodyHandlers.discarding());
+      tracker.record(System.nanoTime() - started);
       int status = resp.statusCode();
       Duration retry = parseRetryAfter(resp.headers().firstValue("Retry-After"));
       return new TransportResponse(status >= 200 && status < 300, status, retry, null);
+    } catch (HttpTimeoutException e) {
+      // A timed-out request still widens the window, so a slow edge cannot ratchet timeouts down.
+      tracker.record(System.nanoTime() - started);
+      return new TransportResponse(false, -1, null, e);
     } catch (Exception e) {
       return new TransportResponse(false, -1, null, e);
     }
   }
 
+  /** Latency percentiles and the effective timeout currently used per webhook host. */
+  @Override
+  public Map<String, LatencyStats> latency() {
+    Map<String, LatencyStats> out = new TreeMap<>();
+    latency.forEach((host, tracker) -> {
+      LatencyTracker.Percentiles p = tracker.percentiles();
+      out.put(
+          host,
+          new LatencyStats(
+              p.samples(),
+              toMillis(p.p50Nanos()),
+              toMillis(p.p90Nanos()),
+              toMillis(p.p99Nanos()),
+              effectiveTimeout(tracker).toMillis()));
+    });
+    return out;
+  }
+
+  /**
+   * {@code p99 * timeoutMultiplier}, clamped to [minTimeoutMs, readTimeoutMs]. Falls back to the
+   * configured maximum until the host has enough samples or when adaptation is disabled.
+   */
+  Duration effectiveTimeout(LatencyTracker tracker) {
+    Config.Transport cfg = this.settings;
+    if (!cfg.adaptiveTimeouts() || tracker == null) {
+      return requestTimeout;
+    }
+    LatencyTracker.Percentiles p = tracker.percentiles();
+    if (p.samples() < LatencyTracker.MIN_SAMPLES) {
+      return requestTimeout;
+    }
+    long millis = (long) Math.ceil(toMillis(p.p99Nanos()) * cfg.timeoutMultiplier());
+    return Duration.ofMillis(Math.max(cfg.minTimeoutMs(), Math.min(cfg.readTimeoutMs(), millis)));
+  }
+
+  private LatencyTracker tracker(URI uri) {
+    String host = uri.getHost();
+    return latency.computeIfAbsent(host != null ? host : "unknown", k -> new LatencyTracker());
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  @Override
+  public TransportResponse exchange(String method, URI uri, byte[] json) {
+    if (json == null) {
+      return send(method, uri, null, HttpRequest.BodyPublishers.noBody());
+    }
+    return send(
+        method,
+        uri,
+        "application/json",
+        HttpRequest.BodyPublishers.ofByteArray(json));
+  }
+
+  @Override
+  public TransportResponse exchangeMultipart(
+      String method, URI uri, byte[] json, List<Attachment> attachments) {
+    MultipartBody body;
+    try {
+      body = MultipartBody.of(json, attachments);
+    } catch (IOException e) {
+      return new TransportResponse(false, TransportResponse.UNREADABLE_ATTACHMENT, null, e);
+    }
+    return send(method, uri, body.contentType(), body.publisher());
+  }
+
+  private TransportResponse send(
+      String method, URI uri, String contentType, HttpRequest.BodyPublisher publisher) {
+    // Uploads scale with file size, not edge latency, so they always get the configured maximum.
+    boolean upload = contentType != null && contentType.startsWith("multipart/");
+    LatencyTracker tracker = upload ? null : tracker(uri);
+    long started = System.nanoTime();
+    try {
+      var builder = HttpRequest.newBuilder(uri).timeout(effectiveTimeout(tracker));
+      if (contentType != null) {
+        builder.header("Content-Type", contentType);
+      }
+      var req = builder.method(method, publisher).build();
+      var resp = client.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+      if (tracker != null) {
+        tracker.record(System.nanoTime() - started);
+      }
+      int status = resp.statusCode();
+      Duration retry = parseRetryAfter(resp.headers().firstValue("Retry-After"));
+      boolean ok = status >= 200 && status < 300;
+      return new TransportResponse(ok, status, retry, null, ok ? parseMessageId(resp.body()) : null);
+    } catch (HttpTimeoutException e) {
+      if (tracker != null) {
+        tracker.record(System.nanoTime() - started);
+      }
+      return new TransportResponse(false, -1, null, e);
+    } catch (Exception e) {
+      return new TransportResponse(false, -1, null, e);
+    }
+  }
+
+  /** Appends {@code wait=true} so Discord answers with the created message object. */
+  static String withWait(String webhookUrl) {
+    return webhookUrl + (webhookUrl.indexOf('?') >= 0 ? "&" : "?") + "wait=true";
+  }
+
+  /** Builds {@code <webhook>/messages/<id>}, keeping any query string (e.g. {@code thread_id}). */
+  static String messageUrl(String webhookUrl, String messageId) {
+    int query = webhookUrl.indexOf('?');
+    String base = query >= 0 ? webhookUrl.substring(0, query) : webhookUrl;
+    String suffix = query >= 0 ? webhookUrl.substring(query) : "";
+    if (base.endsWith("/")) {
+      base = base.substring(0, base.length() - 1);
+    }
+    return base + "/messages/" + messageId + suffix;
+  }
+
+  private static String parseMessageId(String body) {
+    if (body == null || body.isBlank()) {
+      return null;
+    }
+    try (JsonParser parser = JSON.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("id".equals(name) && value.isScalarValue()) {
+          return parser.getValueAsString();
+        }
+        parser.skipChildren();
+      }
+      return null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   private static Duration parseRetryAfter(Optional<String> header) {
     if (header.isEmpty()) {
       return null;
@@ -71,5 +231,15 @@ public final class WebhookTransport implements WebhookClient {
     }
   }
 
-  public record TransportResponse(boolean success, int statusCode, Duration retryAfter, Throwable error) {}
+  public record LatencyStats(int samples, long p50Ms, long p90Ms, long p99Ms, long timeoutMs) {}
+
+  public record TransportResponse(
+      boolean success, int statusCode, Duration retryAfter, Throwable error, String messageId) {
+    /** Status of an upload that never left this host because a file attachment was unreadable. */
+    public static final int UNREADABLE_ATTACHMENT = -2;
+
+    public TransportResponse(boolean success, int statusCode, Duration retryAfter, Throwable error) {
+      this(success, statusCode, retryAfter, error, null);
+    }
+  }
 }
@@ -0,0 +1,25 @@
+package dev.mindiscord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import org.junit.jupiter.api.Test;
+
+class MinDiscordModTest {
+  @Test
+  void serverStopClosesTheRuntime() {
+    AtomicInteger ticks = new AtomicInteger();
+    AtomicInteger closes = new AtomicInteger();
+    MinDiscordMod.registerLifecycle(ticks::incrementAndGet, closes::incrementAndGet);
+
+    ServerTickEvents.END_SERVER_TICK.invoker().onEndTick(null);
+    ServerLifecycleEvents.SERVER_STOPPING.invoker().onServerStopping(null);
+    assertEquals(1, ticks.get());
+    assertEquals(0, closes.get());
+
+    ServerLifecycleEvents.SERVER_STOPPED.invoker().onServerStopped(null);
+    assertEquals(1, closes.get());
+  }
+}
@@ -2,13 +2,29 @@ package dev.mindiscord.core;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import dev.mindiscord.api.AllowedMentions;
+import dev.mindiscord.api.Attachment;
+import dev.mindiscord.api.BatchResult;
+import dev.mindiscord.api.BroadcastResult;
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.PreparedMessage;
+import dev.mindiscord.api.RoutedMessage;
 import dev.mindiscord.api.SendResult;
+import dev.mindiscord.api.WebhookMessage;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -116,7 +132,627 @@ class AnnounceBusImplTest {
     assertEquals("ROUTE_DISABLED", result.code());
   }
 
+  @Test
+  void unhealthyPrimaryFailsOverToSecondaryRoute() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, List.of("default", "drops")))
+            .putRoute("default", "https://example/default")
+            .putRoute("drops", "https://example/drops")
+            .transport(new Config.Transport(3000, 5000, 3))
+            .failover(new Config.Failover(Map.of("drops", "default"), 2, 4000, 30_000))
+            .build();
+    PrimaryDownTransport transport = new PrimaryDownTransport("https://example/drops");
+    bus = buildBus(cfg, transport);
+
+    SendResult first = bus.send("drops", "hello").get(1, TimeUnit.SECONDS);
+    assertTrue(first.ok());
+    assertEquals("FAILOVER", first.code());
+    assertEquals(2, transport.primaryAttempts);
+
+    SendResult second = bus.send("drops", "again").get(1, TimeUnit.SECONDS);
+    assertEquals("FAILOVER", second.code());
+    assertEquals(2, transport.primaryAttempts, "unhealthy primary should be skipped");
+    assertEquals("https://example/default", transport.lastUrl);
+  }
+
+  @Test
+  void deletedPrimaryWebhookFailsOverAtOnce() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, List.of("default", "drops", "chat")))
+            .putRoute("default", "https://example/default")
+            .putRoute("drops", "https://example/drops")
+            .putRoute("chat", "https://example/chat")
+            .transport(new Config.Transport(3000, 5000, 3))
+            .failover(new Config.Failover(Map.of("drops", "default"), 2, 4000, 30_000))
+            .build();
+    PrimaryDownTransport transport = new PrimaryDownTransport("https://example/drops", 404);
+    bus = buildBus(cfg, transport);
+
+    assertEquals("FAILOVER", bus.send("drops", "hello").get(1, TimeUnit.SECONDS).code());
+    assertEquals(1, transport.primaryAttempts);
+    assertEquals("FAILOVER", bus.send("drops", "again").get(1, TimeUnit.SECONDS).code());
+    assertEquals(1, transport.primaryAttempts, "deleted primary should be skipped");
+
+    // Without a failover the request still fails at once rather than being retried.
+    PrimaryDownTransport revoked = new PrimaryDownTransport("https://example/chat", 401);
+    bus.close();
+    bus = buildBus(cfg, revoked);
+    assertEquals("BAD_PAYLOAD", bus.send("chat", "hello").get(1, TimeUnit.SECONDS).code());
+    assertEquals(1, revoked.primaryAttempts);
+  }
+
+  @Test
+  void failedOverDeliveriesAreChargedToTheFailoverWebhook() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, List.of("default", "drops")))
+            .putRoute("default", "https://example/default")
+            .putRoute("drops", "https://example/drops")
+            .transport(new Config.Transport(3000, 5000, 3))
+            .rateLimit(
+                new Config.RateLimit(
+                    Map.of("default", Config.RateLimit.Rule.DEFAULT),
+                    Config.QueueOverflowPolicy.DROP_OLDEST,
+                    Config.RateLimit.Rule.GLOBAL,
+                    new Config.RateLimit.Rule(60, 1),
+                    Map.of()))
+            .failover(new Config.Failover(Map.of("drops", "default"), 2, 4000, 30_000))
+            .build();
+    RateLimiterRegistry limiter = new RateLimiterRegistry();
+    bus = buildBus(cfg, new PrimaryDownTransport("https://example/drops"), limiter);
+
+    // Moves to the failover mid-delivery, then starts there once the primary is unhealthy.
+    assertEquals("FAILOVER", bus.send("drops", "hello").get(1, TimeUnit.SECONDS).code());
+    assertEquals("FAILOVER", bus.send("drops", "again").get(1, TimeUnit.SECONDS).code());
+
+    // Seen from time zero, the failover webhook's one-slot bucket holds both bookings.
+    long booked = limiter.acquireWebhookNanos("https://example/default", new FakeTimeSource());
+    assertTrue(booked >= Duration.ofSeconds(2).toNanos(), "booked " + booked);
+  }
+
+  @Test
+  void queuedEditsToSameMessageAreCoalesced() throws Exception {
+    Config cfg = Config.builder().putRoute("default", "https://example/default").build();
+    EditRecordingTransport transport = new EditRecordingTransport();
+    bus = buildBus(cfg, transport);
+
+    CompletableFuture<SendResult> blocker = bus.send("default", "first");
+    assertTrue(transport.started.await(1, TimeUnit.SECONDS));
+    CompletableFuture<SendResult> firstEdit = bus.edit("default", "42", message("score 1"));
+    CompletableFuture<SendResult> secondEdit = bus.edit("default", "42", message("score 2"));
+    transport.release.countDown();
+
+    assertTrue(blocker.get(1, TimeUnit.SECONDS).ok());
+    SendResult result = secondEdit.get(1, TimeUnit.SECONDS);
+    assertTrue(result.ok());
+    assertEquals("42", result.messageId());
+    assertSame(result, firstEdit.get(1, TimeUnit.SECONDS));
+    assertEquals(List.of("PATCH https://example/default/messages/42"), transport.exchanges);
+    assertTrue(transport.lastJson.contains("score 2"));
+  }
+
+  @Test
+  void oversizedAttachmentsAreRejectedBeforeEnqueue() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .attachments(new Config.Attachments(true, 4))
+            .build();
+    RecordingTransport transport = new RecordingTransport();
+    bus = buildBus(cfg, transport);
+    WebhookMessage msg = message("crash report");
+    msg.attachments = List.of(Attachment.ofBytes("crash.txt", ByteBuffer.wrap(new byte[5])));
+
+    SendResult result = bus.send("default", msg).get(1, TimeUnit.SECONDS);
+
+    assertFalse(result.ok());
+    assertEquals("BAD_PAYLOAD", result.code());
+    assertNull(transport.lastUrl);
+  }
+
+  @Test
+  void attachmentDeletedAfterPrepareFailsAsBadPayloadWithoutRetry() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .putRoute("spare", "https://example/spare")
+            .failover(new Config.Failover(Map.of("default", "spare"), 1, 4000, 30_000))
+            .build();
+    Path file = Files.createTempFile("mindiscord", ".log");
+    Files.writeString(file, "crash", StandardCharsets.UTF_8);
+    UploadingTransport transport = new UploadingTransport();
+    bus = buildBus(cfg, transport);
+    WebhookMessage msg = message("crash report");
+    msg.attachments = List.of(Attachment.ofFile(file));
+    PreparedMessage prepared = bus.prepare(msg);
+    Files.delete(file);
+
+    SendResult result = bus.send("default", prepared).get(1, TimeUnit.SECONDS);
+
+    assertEquals("BAD_PAYLOAD", result.code());
+    assertTrue(result.message().contains(file.getFileName().toString()), result.message());
+    assertEquals(1, transport.uploads.get());
+    // The webhook was never reached, so the next send is not failed over.
+    assertTrue(bus.send("default", "next").get(1, TimeUnit.SECONDS).ok());
+    assertEquals("https://example/default", transport.lastUrl);
+  }
+
+  @Test
+  void preparedMessageIsUnaffectedByLaterMutation() throws Exception {
+    Config cfg = Config.builder().putRoute("default", "https://example/default").build();
+    RecordingTransport transport = new RecordingTransport();
+    bus = buildBus(cfg, transport);
+    Embed embed = new Embed();
+    embed.title = "Restart in 5 minutes";
+    WebhookMessage msg = new WebhookMessage();
+    msg.embeds = new ArrayList<>(List.of(embed));
+    PreparedMessage prepared = bus.prepare(msg);
+    embed.title = "changed";
+    msg.embeds.add(new Embed());
+
+    assertEquals(1, prepared.embedCount());
+    assertTrue(bus.send("default", prepared).get(1, TimeUnit.SECONDS).ok());
+    assertTrue(transport.lastJson.contains("Restart in 5 minutes"));
+    assertTrue(transport.lastJson.contains("\"username\":\"MinDiscord\""));
+    assertTrue(bus.send("default", prepared).get(1, TimeUnit.SECONDS).ok());
+    assertFalse(transport.lastJson.contains("changed"));
+  }
+
+  @Test
+  void prepareRejectsInvalidMessages() {
+    Config cfg = Config.builder().putRoute("default", "https://example/default").build();
+    bus = buildBus(cfg, new SuccessTransport());
+    assertThrows(IllegalArgumentException.class, () -> bus.prepare(new WebhookMessage()));
+  }
+
+  @Test
+  void configTemplateOverridesRegisteredTemplate() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .putTemplate("join", List.of("player"), message("Welcome, **{player}**!"))
+            .build();
+    RecordingTransport transport = new RecordingTransport();
+    bus = buildBus(cfg, transport);
+    bus.registerTemplate("join", List.of("player"), message("{player} joined"));
+    bus.registerTemplate("leave", List.of("player"), message("{player} left"));
+
+    assertTrue(bus.sendTemplate("default", "join", "Alex").get(1, TimeUnit.SECONDS).ok());
+    assertTrue(transport.lastJson.contains("\"content\":\"Welcome, **Alex**!\""));
+    assertTrue(bus.sendTemplate("default", "leave", "Alex").get(1, TimeUnit.SECONDS).ok());
+    assertTrue(transport.lastJson.contains("\"content\":\"Alex left\""));
+    SendResult unknown = bus.sendTemplate("default", "missing").get(1, TimeUnit.SECONDS);
+    assertEquals("BAD_PAYLOAD", unknown.code());
+  }
+
+  @Test
+  void broadcastSharesOnePayloadAcrossRoutes() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, true, List.of("default", "events", "drops", "missing")))
+            .putRoute("default", "https://example/default")
+            .putRoute("events", "https://example/events")
+            .putRoute("drops", "https://example/drops")
+            .build();
+    PayloadCapturingTransport transport = new PayloadCapturingTransport();
+    bus = buildBus(cfg, transport);
+
+    BroadcastResult result =
+        bus.broadcast(List.of("events", "drops", "missing", "nope"), message("Restarting in 5m"));
+    Map<String, SendResult> all = result.all().get(1, TimeUnit.SECONDS);
+
+    assertEquals(List.of("events", "drops", "missing", "nope"), List.copyOf(all.keySet()));
+    assertEquals("OK", all.get("events").code());
+    assertEquals("OK", all.get("drops").code());
+    assertEquals("BAD_ROUTE_FALLBACK", all.get("missing").code());
+    assertEquals("ROUTE_DISABLED", all.get("nope").code());
+    assertEquals(3, transport.payloads.size());
+    assertSame(transport.payloads.get(0), transport.payloads.get(1));
+  }
+
+  @Test
+  void postQueuesWithoutResultAndIsCountedInDiagnostics() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, List.of("default", "missing")))
+            .putRoute("default", "https://example/default")
+            .build();
+    PayloadCapturingTransport transport = new PayloadCapturingTransport();
+    bus = buildBus(cfg, transport);
+
+    assertTrue(bus.post("default", "first"));
+    assertTrue(bus.post("default", message("second")));
+    assertFalse(bus.post("missing", "lost"));
+    assertFalse(bus.post("nope", "lost"));
+    assertFalse(bus.post("default", new WebhookMessage()));
+    // The worker is FIFO, so once this settles both posts have been delivered.
+    assertTrue(bus.send("default", "third").get(1, TimeUnit.SECONDS).ok());
+
+    assertEquals(3, transport.payloads.size());
+    assertEquals(3, bus.diagnostics().routes().get("default").sent());
+  }
+
+  @Test
+  void callbacksRunOnCompletionPoolNotWorker() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .completion(new Config.Completion(Config.CompletionMode.POOL, 1))
+            .build();
+    BlockingTransport transport = new BlockingTransport();
+    bus = buildBus(cfg, transport);
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    // Hold the delivery so the callback is chained before the future can complete.
+    bus.send("default", "hello").thenAccept(result -> thread.complete(Thread.currentThread().getName()));
+    transport.release.countDown();
+
+    assertTrue(thread.get(1, TimeUnit.SECONDS).startsWith("MinDiscord-Callback-"));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (bus.diagnostics().callbacks().get("default") == null) {
+      assertTrue(System.nanoTime() < deadline, "callback was not timed");
+      Thread.sleep(5);
+    }
+    assertEquals(1, bus.diagnostics().callbacks().get("default").count());
+
+    // A caller's callbacks are charged to the caller, not to the route it sent to.
+    CompletableFuture<Void> callerCallback =
+        bus.forCaller("plugin-a").send("default", "hello").thenAccept(result -> {});
+    callerCallback.get(1, TimeUnit.SECONDS);
+    while (bus.diagnostics().callbacks().get("plugin-a") == null) {
+      assertTrue(System.nanoTime() < deadline + TimeUnit.SECONDS.toNanos(1), "callback was not timed");
+      Thread.sleep(5);
+    }
+    assertEquals(1, bus.diagnostics().callbacks().get("plugin-a").count());
+    assertEquals(1, bus.diagnostics().callbacks().get("default").count());
+  }
+
+  @Test
+  void workerFailureCompletesOnCompletionPool() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .completion(new Config.Completion(Config.CompletionMode.POOL, 1))
+            .build();
+    ThrowingTransport transport = new ThrowingTransport();
+    bus = buildBus(cfg, transport);
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    CompletableFuture<SendResult> result = bus.send("default", "hello");
+    result.thenAccept(ignored -> thread.complete(Thread.currentThread().getName()));
+    transport.release.countDown();
+
+    // Waiting on the callback, not on the result, which could run the callback on this thread.
+    assertTrue(thread.get(1, TimeUnit.SECONDS).startsWith("MinDiscord-Callback-"));
+    assertEquals("GIVE_UP", result.getNow(null).code());
+    assertEquals(1, bus.diagnostics().routes().get("default").failed());
+  }
+
+  @Test
+  void requestsEvictedByReloadCompleteOnCompletionPool() throws Exception {
+    Config.Builder builder =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .completion(new Config.Completion(Config.CompletionMode.POOL, 1));
+    BlockingTransport transport = new BlockingTransport();
+    bus = buildBus(builder.build(), transport);
+    bus.send("default", "held");
+    assertTrue(transport.started.await(1, TimeUnit.SECONDS));
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    CompletableFuture<SendResult> evicted = bus.send("default", "oldest");
+    evicted.thenAccept(ignored -> thread.complete(Thread.currentThread().getName()));
+    bus.send("default", "newest");
+
+    bus.applyConfig(
+        builder.queue(new Config.Queue(1, 1, Config.QueueOverflowPolicy.DROP_OLDEST)).build());
+    transport.release.countDown();
+
+    assertTrue(thread.get(1, TimeUnit.SECONDS).startsWith("MinDiscord-Callback-"));
+    assertEquals("QUEUE_FULL", evicted.getNow(null).code());
+    assertEquals(1, bus.diagnostics().routes().get("default").dropped());
+  }
+
+  @Test
+  void serverThreadModeCompletesOnDrain() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .completion(new Config.Completion(Config.CompletionMode.SERVER_THREAD, 1))
+            .build();
+    bus = buildBus(cfg, new SuccessTransport());
+    CompletableFuture<SendResult> future = bus.send("default", "hello");
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (bus.diagnostics().routes().get("default") == null) {
+      assertTrue(System.nanoTime() < deadline, "deliveries did not finish");
+      Thread.sleep(5);
+    }
+    assertFalse(future.isDone());
+
+    bus.onServerTick();
+    assertTrue(future.isDone());
+    assertTrue(future.get().ok());
+  }
+
+  @Test
+  void subscriberFollowsRouteWindowAndMergesWhileSaturated() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .rateLimit(
+                new Config.RateLimit(
+                    Map.of("default", new Config.RateLimit.Rule(60, 1)),
+                    Config.QueueOverflowPolicy.DROP_OLDEST))
+            .build();
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> delivered = new java.util.concurrent.CopyOnWriteArrayList<>();
+    bus =
+        buildBus(
+            cfg,
+            new FakeTransport() {
+              @Override
+              public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+                try {
+                  release.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                delivered.add(new String(json, StandardCharsets.UTF_8));
+                return new WebhookTransport.TransportResponse(true, 204, null, null);
+              }
+            });
+    long[] demand = new long[1];
+    var subscriber = bus.subscribe("default");
+    subscriber.onSubscribe(
+        new java.util.concurrent.Flow.Subscription() {
+          @Override
+          public void request(long n) {
+            demand[0] += n;
+          }
+
+          @Override
+          public void cancel() {}
+        });
+    // One token: one message in flight plus one waiting.
+    assertEquals(2, demand[0]);
+    subscriber.onNext(message("first"));
+    subscriber.onNext(message("second"));
+    // The waiting message can still absorb content, so the publisher may keep going.
+    assertEquals(3, demand[0]);
+    subscriber.onNext(message("third"));
+    release.countDown();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (delivered.size() < 2) {
+      assertTrue(System.nanoTime() < deadline, "stream was not delivered");
+      Thread.sleep(5);
+    }
+    assertTrue(delivered.get(0).contains("\"content\":\"first\""));
+    assertTrue(delivered.get(1).contains("\"content\":\"second\\nthird\""));
+  }
+
+  @Test
+  void subscriberKeepsRequestingAfterFailedSendsUntilTheBusCloses() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .announce(new Config.Announce(false, true, List.of()))
+            .build();
+    bus = buildBus(cfg, new SuccessTransport());
+    long[] demand = new long[1];
+    boolean[] cancelled = new boolean[1];
+    var subscriber = bus.subscribe("default");
+    subscriber.onSubscribe(
+        new java.util.concurrent.Flow.Subscription() {
+          @Override
+          public void request(long n) {
+            demand[0] += n;
+          }
+
+          @Override
+          public void cancel() {
+            cancelled[0] = true;
+          }
+        });
+    long before = demand[0];
+
+    // Each send completes DISABLED at once; that fails the message, not the subscription.
+    subscriber.onNext(message("first"));
+    subscriber.onNext(message("second"));
+    assertFalse(cancelled[0]);
+    assertTrue(demand[0] > before);
+
+    bus.close();
+    subscriber.onNext(message("third"));
+    assertTrue(cancelled[0]);
+  }
+
+  @Test
+  void subscriberMergesMessagesWithEqualMentionSettings() {
+    WebhookMessage first = message("first");
+    WebhookMessage second = message("second");
+    first.allowedMentions = mentions("1");
+    second.allowedMentions = mentions("1");
+    assertEquals("first\nsecond", RouteSubscriber.merge(first, second).content);
+
+    second.allowedMentions = mentions("2");
+    assertNull(RouteSubscriber.merge(first, second));
+    second.allowedMentions = null;
+    assertNull(RouteSubscriber.merge(first, second));
+  }
+
+  @Test
+  void sendAllReturnsResultsInOrder() throws Exception {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, List.of("default", "events", "missing")))
+            .putRoute("default", "https://example/default")
+            .putRoute("events", "https://example/events")
+            .build();
+    PayloadCapturingTransport transport = new PayloadCapturingTransport();
+    bus = buildBus(cfg, transport);
+
+    BatchResult result =
+        bus.sendAll(
+            List.of(
+                new RoutedMessage("events", message("round over")),
+                new RoutedMessage("default", new WebhookMessage()),
+                new RoutedMessage("missing", message("lost")),
+                new RoutedMessage("default", message("next round"))));
+    List<SendResult> all = result.all().get(1, TimeUnit.SECONDS);
+
+    assertEquals(4, result.results().size());
+    assertEquals(
+        List.of("OK", "BAD_PAYLOAD", "BAD_ROUTE", "OK"),
+        all.stream().map(SendResult::code).toList());
+    assertEquals(2, transport.payloads.size());
+  }
+
+  @Test
+  void tickAlignedSendsFromServerThreadWaitForEndOfTick() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .queue(
+                new Config.Queue(
+                    512, 1, Config.QueueOverflowPolicy.DROP_OLDEST, Config.Queue.DEFAULT_MAX_BYTES, true))
+            .build();
+    PayloadCapturingTransport transport = new PayloadCapturingTransport();
+    bus = buildBus(cfg, transport);
+    // The first tick identifies this thread as the server thread.
+    bus.onServerTick();
+
+    CompletableFuture<SendResult> first = bus.send("default", "one");
+    assertTrue(bus.post("default", "two"));
+    CompletableFuture<SendResult> other =
+        CompletableFuture.supplyAsync(() -> bus.send("default", "off-thread")).join();
+    assertTrue(other.get(1, TimeUnit.SECONDS).ok());
+    assertFalse(first.isDone());
+    assertEquals(1, transport.payloads.size());
+
+    bus.onServerTick();
+    assertTrue(first.get(1, TimeUnit.SECONDS).ok());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (transport.payloads.size() < 3) {
+      assertTrue(System.nanoTime() < deadline, "posted message was not delivered");
+      Thread.sleep(5);
+    }
+  }
+
+  private static WebhookMessage message(String content) {
+    WebhookMessage msg = new WebhookMessage();
+    msg.content = content;
+    return msg;
+  }
+
+  private static AllowedMentions mentions(String... users) {
+    AllowedMentions mentions = new AllowedMentions();
+    mentions.users = List.of(users);
+    return mentions;
+  }
+
+  @Test
+  void closeOffTheServerThreadSettlesTickBufferedSends() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .queue(
+                new Config.Queue(
+                    512, 1, Config.QueueOverflowPolicy.DROP_OLDEST, Config.Queue.DEFAULT_MAX_BYTES, true))
+            .build();
+    bus = buildBus(cfg, new SuccessTransport());
+    CompletableFuture<CompletableFuture<SendResult>> buffered = new CompletableFuture<>();
+    // The server thread buffers one send and never ticks again, as when it stops first.
+    Thread server = new Thread(() -> {
+      bus.onServerTick();
+      buffered.complete(bus.send("default", "buffered"));
+    }, "server");
+    server.start();
+    CompletableFuture<SendResult> result = buffered.get(1, TimeUnit.SECONDS);
+    server.join(1000);
+    assertFalse(result.isDone());
+
+    bus.close();
+
+    assertNotNull(result.get(1, TimeUnit.SECONDS), "buffered send was left pending by close()");
+  }
+
+  @Test
+  void perKeyLimitDropsAndSummarizesOverflow() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .rateLimit(
+                new Config.RateLimit(
+                    Map.of("default", new Config.RateLimit.Rule(6000, 100)),
+                    Config.QueueOverflowPolicy.DROP_OLDEST,
+                    new Config.RateLimit.Rule(6000, 100),
+                    new Config.RateLimit.Rule(6000, 100),
+                    Map.of(),
+                    600_000,
+                    Map.of(
+                        "default",
+                        new Config.RateLimit.KeyLimit(
+                            2, 600_000, Config.RateLimit.OverLimit.SUMMARIZE, 10)),
+                    100))
+            .build();
+    PayloadCapturingTransport transport = new PayloadCapturingTransport();
+    FakeTimeSource time = new FakeTimeSource();
+    MinCoreBridge bridge = new MinCoreBridge();
+    bus =
+        new AnnounceBusImpl(
+            new Router(),
+            new DispatchQueue(),
+            transport,
+            new RateLimiterRegistry(),
+            new StatsStore(bridge),
+            bridge,
+            time,
+            new FakeSleeper(time),
+            cfg);
+
+    assertTrue(bus.send("default", "steve", message("drop 1")).get(1, TimeUnit.SECONDS).ok());
+    assertTrue(bus.send("default", "steve", message("drop 2")).get(1, TimeUnit.SECONDS).ok());
+    assertEquals("KEY_LIMITED", bus.send("default", "steve", message("drop 3")).get(1, TimeUnit.SECONDS).code());
+    assertEquals("KEY_LIMITED", bus.send("default", "steve", message("drop 4")).get(1, TimeUnit.SECONDS).code());
+    assertTrue(bus.send("default", "alex", message("drop 5")).get(1, TimeUnit.SECONDS).ok());
+    assertTrue(bus.send("default", null, message("unkeyed")).get(1, TimeUnit.SECONDS).ok());
+
+    time.advance(Duration.ofMinutes(5));
+    assertTrue(bus.send("default", "steve", message("drop 6")).get(1, TimeUnit.SECONDS).ok());
+
+    assertEquals(5, transport.payloads.size());
+    String last = new String(transport.payloads.get(4), StandardCharsets.UTF_8);
+    assertTrue(last.contains("drop 6\\n(+2 more suppressed)"), last);
+  }
+
+  @Test
+  void rulesRedirectMatchingMessagesBeforeRouting() throws Exception {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .putRoute("alerts", "https://example/alerts")
+            .announce(new Config.Announce(true, false, List.of("default", "alerts")))
+            .addRule(new Config.Rule(null, null, null, null, 0xFF0000, "alerts"))
+            .build();
+    RecordingTransport transport = new RecordingTransport();
+    bus = buildBus(cfg, transport);
+
+    WebhookMessage red = new WebhookMessage();
+    Embed embed = new Embed();
+    embed.color = 0xFF0000;
+    red.embeds = List.of(embed);
+    assertTrue(bus.send("default", red).get(1, TimeUnit.SECONDS).ok());
+    assertEquals("https://example/alerts", transport.lastUrl);
+    assertTrue(bus.send("default", message("plain")).get(1, TimeUnit.SECONDS).ok());
+    assertEquals("https://example/default", transport.lastUrl);
+  }
+
   private AnnounceBusImpl buildBus(Config config, WebhookClient transport) {
+    return buildBus(config, transport, new RateLimiterRegistry());
+  }
+
+  private AnnounceBusImpl buildBus(
+      Config config, WebhookClient transport, RateLimiterRegistry rateLimiter) {
     FakeTimeSource time = new FakeTimeSource();
     FakeSleeper sleeper = new FakeSleeper(time);
     Router router = new Router();
@@ -126,7 +762,7 @@ class AnnounceBusImplTest {
             router,
             new DispatchQueue(),
             transport,
-            new RateLimiterRegistry(),
+            rateLimiter,
             new StatsStore(bridge),
             bridge,
             time,
@@ -135,29 +771,123 @@ class AnnounceBusImplTest {
     return instance;
   }
 
-  private static final class SuccessTransport implements WebhookClient {
+  /** Answers every exchange, with or without files, the way the fake answers a webhook execute. */
+  private abstract static class FakeTransport implements WebhookClient {
+    @Override
+    public WebhookTransport.TransportResponse exchange(String method, URI uri, byte[] json) {
+      return postJson(uri, json);
+    }
+
+    @Override
+    public WebhookTransport.TransportResponse exchangeMultipart(
+        String method, URI uri, byte[] json, List<Attachment> attachments) {
+      return postJson(uri, json);
+    }
+  }
+
+  private static final class SuccessTransport extends FakeTransport {
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      return new WebhookTransport.TransportResponse(true, 204, null, null);
+    }
+  }
+
+  private static final class RecordingTransport extends FakeTransport {
+    volatile String lastUrl;
+    volatile String lastJson;
+
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      this.lastUrl = uri.toString();
+      this.lastJson = new String(json, StandardCharsets.UTF_8);
+      return new WebhookTransport.TransportResponse(true, 204, null, null);
+    }
+  }
+
+  private static final class PayloadCapturingTransport extends FakeTransport {
+    final List<byte[]> payloads = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      payloads.add(json);
+      return new WebhookTransport.TransportResponse(true, 204, null, null);
+    }
+  }
+
+  private static final class PrimaryDownTransport extends FakeTransport {
+    private final String primary;
+    private final int primaryStatus;
+    volatile int primaryAttempts;
+    volatile String lastUrl;
+
+    PrimaryDownTransport(String primary) { this(primary, 503); }
+
+    PrimaryDownTransport(String primary, int primaryStatus) {
+      this.primary = primary;
+      this.primaryStatus = primaryStatus;
+    }
+
     @Override
-    public WebhookTransport.TransportResponse postJson(String url, String json) {
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      lastUrl = uri.toString();
+      if (primary.equals(lastUrl)) {
+        primaryAttempts++;
+        return new WebhookTransport.TransportResponse(false, primaryStatus, null, null);
+      }
       return new WebhookTransport.TransportResponse(true, 204, null, null);
     }
   }
 
-  private static final class RecordingTransport implements WebhookClient {
+  private static final class EditRecordingTransport extends FakeTransport {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<String> exchanges = new java.util.concurrent.CopyOnWriteArrayList<>();
+    volatile String lastJson;
+
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      started.countDown();
+      try {
+        release.await(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new WebhookTransport.TransportResponse(true, 204, null, null);
+    }
+
+    @Override
+    public WebhookTransport.TransportResponse exchange(String method, URI uri, byte[] json) {
+      exchanges.add(method + " " + uri);
+      lastJson = new String(json, StandardCharsets.UTF_8);
+      return new WebhookTransport.TransportResponse(true, 200, null, null, "42");
+    }
+  }
+
+  /** Builds uploads with the real transport, which fails before connecting if a file is gone. */
+  private static final class UploadingTransport extends FakeTransport {
+    final AtomicInteger uploads = new AtomicInteger();
     volatile String lastUrl;
 
     @Override
-    public WebhookTransport.TransportResponse postJson(String url, String json) {
-      this.lastUrl = url;
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      lastUrl = uri.toString();
       return new WebhookTransport.TransportResponse(true, 204, null, null);
     }
+
+    @Override
+    public WebhookTransport.TransportResponse exchangeMultipart(
+        String method, URI uri, byte[] json, List<Attachment> attachments) {
+      uploads.incrementAndGet();
+      return new WebhookTransport().exchangeMultipart(method, uri, json, attachments);
+    }
   }
 
-  private static final class BlockingTransport implements WebhookClient {
+  private static final class BlockingTransport extends FakeTransport {
     final CountDownLatch started = new CountDownLatch(1);
     final CountDownLatch release = new CountDownLatch(1);
 
     @Override
-    public WebhookTransport.TransportResponse postJson(String url, String json) {
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
       started.countDown();
       try {
         release.await(1, TimeUnit.SECONDS);
@@ -168,9 +898,23 @@ class AnnounceBusImplTest {
     }
   }
 
-  private static final class FailingTransport implements WebhookClient {
+  private static final class ThrowingTransport extends FakeTransport {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      try {
+        release.await(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IllegalStateException("transport bug");
+    }
+  }
+
+  private static final class FailingTransport extends FakeTransport {
     @Override
-    public WebhookTransport.TransportResponse postJson(String url, String json) {
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
       return new WebhookTransport.TransportResponse(false, 500, null, null);
     }
   }
@@ -2,10 +2,6 @@ package dev.mindiscord.core;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-import dev.mindiscord.api.SendResult;
-import java.time.Instant;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
 
 class DispatchQueueTest {
@@ -34,14 +30,83 @@ class DispatchQueueTest {
     var result = queue.enqueue(second);
     assertTrue(result.isEnqueued());
     assertSame(first, result.dropped());
-    result.dropped().completeQueueFull();
+  }
+
+  @Test
+  void shrinkingAndClosingReturnEvictedRequests() {
+    DispatchQueue queue = new DispatchQueue();
+    queue.configure(3, Config.QueueOverflowPolicy.DROP_OLDEST);
+    PendingRequest first = request("first");
+    PendingRequest second = request("second");
+    PendingRequest third = request("third");
+    queue.enqueueAll(java.util.List.of(first, second, third));
+
+    assertEquals(java.util.List.of(first), queue.configure(2, Config.QueueOverflowPolicy.DROP_OLDEST));
+    assertTrue(queue.configure(5, Config.QueueOverflowPolicy.DROP_OLDEST).isEmpty());
+    assertEquals(java.util.List.of(second, third), queue.close());
+    assertFalse(first.future().isDone());
+    assertFalse(queue.enqueue(request("late")).isEnqueued());
+  }
+
+  @Test
+  void byteBoundDropsAsManyOldEntriesAsNeeded() {
+    DispatchQueue queue = new DispatchQueue();
+    queue.configure(10, 1000, Config.QueueOverflowPolicy.DROP_OLDEST);
+
+    PendingRequest first = request("first", 400);
+    PendingRequest second = request("second", 400);
+    PendingRequest large = request("large", 900);
+
+    assertTrue(queue.enqueue(first).isEnqueued());
+    assertTrue(queue.enqueue(second).isEnqueued());
+    var result = queue.enqueue(large);
+    assertTrue(result.isEnqueued());
+    assertEquals(java.util.List.of(first, second), result.droppedAll());
+    assertEquals(900, queue.queuedBytes());
+    assertFalse(queue.enqueue(request("oversized", 1001)).isEnqueued());
+  }
+
+  @Test
+  void coalescedEditsMoveTheQueuedByteCount() {
+    DispatchQueue queue = new DispatchQueue();
+    queue.configure(10, 1000, Config.QueueOverflowPolicy.DROP_OLDEST);
+    PendingRequest edit = request("edit", 400);
+    assertTrue(queue.enqueue(edit).isEnqueued());
+
+    assertTrue(queue.replacePayload(edit, new byte[700], 0));
+    assertEquals(700, queue.queuedBytes());
+    assertTrue(queue.replacePayload(edit, new byte[100], 0));
+    assertEquals(100, queue.queuedBytes());
+    assertFalse(queue.replacePayload(edit, new byte[1001], 0));
+    assertEquals(100, edit.payloadBytes());
+
+    assertSame(edit, queue.close().get(0));
+    assertEquals(0, queue.queuedBytes());
+  }
+
+  @Test
+  void enqueueAllAppliesOverflowPolicyPerRequest() {
+    DispatchQueue queue = new DispatchQueue();
+    queue.configure(2, Config.QueueOverflowPolicy.REJECT);
+    PendingRequest first = request("first");
+    PendingRequest second = request("second");
+    PendingRequest third = request("third");
+
+    var result = queue.enqueueAll(java.util.List.of(first, second, third));
+
+    assertEquals(java.util.List.of(third), result.rejected());
+    assertTrue(result.dropped().isEmpty());
+    assertEquals(2, queue.size());
   }
 
   private PendingRequest request(String route) {
+    return request(route, 2);
+  }
+
+  private PendingRequest request(String route, int bytes) {
     Router.RouteResolution resolution =
         new Router.RouteResolution(route, route, "https://example", Router.Status.OK, false, null, null, false);
-    CompletableFuture<SendResult> future = new CompletableFuture<>();
     return new PendingRequest(
-        UUID.randomUUID(), resolution, "{}", 2, 0, future, Instant.EPOCH);
+        RequestIds.next(), resolution, new byte[] {'{', '}'}, bytes, 0, 0L);
   }
 }
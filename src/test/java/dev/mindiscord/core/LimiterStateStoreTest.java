@@ -0,0 +1,77 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LimiterStateStoreTest {
+
+  @Test
+  void savesThrottledWebhooksByHashAndRestoresThem() throws Exception {
+    Path file = Files.createTempDirectory("mindiscord").resolve("limits.json");
+    LimiterStateStore store = new LimiterStateStore(file);
+    FakeTimeSource time = new FakeTimeSource();
+    RateLimiterRegistry before = new RateLimiterRegistry();
+    before.configure(limits());
+    before.throttle("https://discord.com/api/webhooks/1/secret", Duration.ofMinutes(1).toNanos(), time);
+
+    store.save(before, time);
+
+    String saved = Files.readString(file, StandardCharsets.UTF_8);
+    assertFalse(saved.contains("secret"), saved);
+    RateLimiterRegistry after = new RateLimiterRegistry();
+    time.advance(Duration.ofSeconds(15));
+    store.restore(after, time);
+    after.configure(limits());
+    assertEquals(
+        Duration.ofSeconds(45).toNanos(),
+        after.acquireNanos("https://discord.com/api/webhooks/1/secret", "route", null, time));
+  }
+
+  @Test
+  void unreadableFileRestoresNothing() throws Exception {
+    Path file = Files.createTempDirectory("mindiscord").resolve("limits.json");
+    Files.writeString(file, "{ not json", StandardCharsets.UTF_8);
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+
+    new LimiterStateStore(file).restore(registry, time);
+
+    assertEquals(0L, registry.acquireNanos("https://a", "route", null, time));
+  }
+
+  private static Config.RateLimit limits() {
+    return new Config.RateLimit(
+        Map.of("default", new Config.RateLimit.Rule(6000, 100)),
+        Config.QueueOverflowPolicy.DROP_OLDEST,
+        new Config.RateLimit.Rule(6000, 100),
+        new Config.RateLimit.Rule(6000, 100),
+        Map.of());
+  }
+
+  private static final class FakeTimeSource implements TimeSource {
+    private Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+    private long nanos;
+
+    @Override
+    public Instant now() {
+      return instant;
+    }
+
+    @Override
+    public long nanoTime() {
+      return nanos;
+    }
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+      nanos += duration.toNanos();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.mindiscord.api.AllowedMentions;
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.WebhookMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MessageTemplateTest {
+  private static final List<String> PARAMS = List.of("player", "item", "x");
+
+  @Test
+  void renderMatchesSerializingTheFilledMessage() throws Exception {
+    MessageTemplate template =
+        MessageTemplate.compile(
+            "rareDrop", PARAMS, drop("{player}", "{item}", "{x}"), Config.Defaults.DEFAULTS);
+    String player = "Alex \"the\" \\Great\\\n";
+    String item = "Totem — Ünïcode 🎉 \u0001";
+
+    byte[] rendered = template.render(new Object[] {player, item, -120});
+
+    byte[] expected =
+        PayloadWriter.write(drop(player, item, "-120"), "MinDiscord", "");
+    assertEquals(
+        new String(expected, StandardCharsets.UTF_8), new String(rendered, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void undeclaredPlaceholdersStayLiteral() throws Exception {
+    WebhookMessage msg = new WebhookMessage();
+    msg.content = "{player} joined {server}";
+    MessageTemplate template =
+        MessageTemplate.compile("join", List.of("player"), msg, Config.Defaults.DEFAULTS);
+
+    String json = new String(template.render(new Object[] {"Steve"}), StandardCharsets.UTF_8);
+
+    assertTrue(json.contains("\"content\":\"Steve joined {server}\""));
+  }
+
+  @Test
+  void argumentsAreCheckedAgainstFieldLimits() throws Exception {
+    MessageTemplate template =
+        MessageTemplate.compile(
+            "rareDrop", PARAMS, drop("{player}", "{item}", "{x}"), Config.Defaults.DEFAULTS);
+
+    assertThrows(
+        PayloadWriter.InvalidPayloadException.class,
+        () -> template.render(new Object[] {"p", "i".repeat(300), 1}));
+    assertThrows(
+        PayloadWriter.InvalidPayloadException.class,
+        () -> template.render(new Object[] {"p", "i"}));
+    assertDoesNotThrow(() -> template.render(new Object[] {"p", "i".repeat(200), 1}));
+  }
+
+  @Test
+  void requiredFieldsMayNotRenderBlank() throws Exception {
+    WebhookMessage msg = new WebhookMessage();
+    Embed embed = new Embed();
+    embed.title = "Leaderboard";
+    Embed.Field field = new Embed.Field();
+    field.name = "Top";
+    field.value = "{player}";
+    embed.fields = List.of(field);
+    embed.footer = new Embed.Footer();
+    embed.footer.text = "by {server}";
+    msg.embeds = List.of(embed);
+    MessageTemplate template =
+        MessageTemplate.compile(
+            "top", List.of("player", "server"), msg, Config.Defaults.DEFAULTS);
+
+    assertThrows(
+        PayloadWriter.InvalidPayloadException.class,
+        () -> template.render(new Object[] {null, "hub"}));
+    assertThrows(
+        PayloadWriter.InvalidPayloadException.class,
+        () -> template.render(new Object[] {"  ", "hub"}));
+    // The footer keeps its static text, so an empty server name still renders a valid footer.
+    assertDoesNotThrow(() -> template.render(new Object[] {"Alex", ""}));
+  }
+
+  @Test
+  void rejectsPlaceholdersOutsideTextAndUrlFields() {
+    WebhookMessage msg = new WebhookMessage();
+    msg.content = "hi";
+    msg.allowedMentions = new AllowedMentions();
+    msg.allowedMentions.users = List.of("{player}");
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> MessageTemplate.compile("bad", List.of("player"), msg, Config.Defaults.DEFAULTS));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> MessageTemplate.compile("bad", List.of("a b"), drop("", "", ""), Config.Defaults.DEFAULTS));
+  }
+
+  private static WebhookMessage drop(String player, String item, String x) {
+    Embed embed = new Embed();
+    embed.title = player + " found " + item;
+    embed.url = "https://example.org/map?x=" + x;
+    Embed.Field field = new Embed.Field();
+    field.name = "Where";
+    field.value = "x=" + x;
+    embed.fields = List.of(field);
+    WebhookMessage msg = new WebhookMessage();
+    msg.content = "Rare drop for " + player;
+    msg.embeds = List.of(embed);
+    return msg;
+  }
+}
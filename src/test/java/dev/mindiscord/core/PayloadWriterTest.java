@@ -0,0 +1,97 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.mindiscord.api.AllowedMentions;
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.WebhookMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PayloadWriterTest {
+  @Test
+  void writesDiscordFieldNamesAsUtf8() throws Exception {
+    Embed embed = new Embed();
+    embed.title = "Winners — PvP Cup";
+    embed.color = 0xFFAA00;
+    embed.footer = new Embed.Footer();
+    embed.footer.text = "Café";
+    Embed.Field field = new Embed.Field();
+    field.name = "#1";
+    field.value = "Notch";
+    embed.fields = List.of(field);
+    WebhookMessage msg = new WebhookMessage();
+    msg.username = "MinDiscord";
+    msg.content = "say \"hi\"";
+    msg.embeds = List.of(embed);
+    msg.allowedMentions = new AllowedMentions();
+
+    byte[] json = PayloadWriter.write(msg);
+
+    assertEquals(
+        "{\"username\":\"MinDiscord\",\"content\":\"say \\\"hi\\\"\",\"embeds\":[{\"title\":"
+            + "\"Winners — PvP Cup\",\"color\":16755200,\"footer\":{\"text\":\"Café\"},"
+            + "\"fields\":[{\"name\":\"#1\",\"value\":\"Notch\",\"inline\":false}]}]}",
+        new String(json, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void reusedBufferDoesNotLeakPreviousPayload() throws Exception {
+    WebhookMessage big = new WebhookMessage();
+    big.content = "x".repeat(1500);
+    WebhookMessage small = new WebhookMessage();
+    small.content = "y";
+
+    PayloadWriter.write(big);
+    byte[] json = PayloadWriter.write(small);
+
+    assertEquals("{\"content\":\"y\"}", new String(json, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void rejectsEmbedsOverCombinedCharacterLimit() {
+    WebhookMessage msg = new WebhookMessage();
+    msg.embeds = List.of(embed("a".repeat(4000)), embed("b".repeat(2001)));
+
+    var error =
+        assertThrows(PayloadWriter.InvalidPayloadException.class, () -> PayloadWriter.write(msg));
+    assertEquals("Embeds exceed 6000 characters combined", error.getMessage());
+  }
+
+  @Test
+  void rejectsNonHttpFooterIcon() {
+    Embed embed = embed("ok");
+    embed.footer = new Embed.Footer();
+    embed.footer.text = "footer";
+    embed.footer.iconUrl = "ftp://example/icon.png";
+    WebhookMessage msg = new WebhookMessage();
+    msg.embeds = List.of(embed);
+
+    assertThrows(PayloadWriter.InvalidPayloadException.class, () -> PayloadWriter.write(msg));
+    embed.footer.iconUrl = "attachment://icon.png";
+    assertDoesNotThrow(() -> PayloadWriter.write(msg));
+  }
+
+  private static Embed embed(String description) {
+    Embed embed = new Embed();
+    embed.description = description;
+    return embed;
+  }
+
+  @Test
+  void contentFastPathMatchesGeneralWriter() throws Exception {
+    String content = "Alex said \"hi\" — über\n\u0007 🎉";
+    WebhookMessage msg = new WebhookMessage();
+    msg.content = content;
+
+    byte[] expected = PayloadWriter.write(msg, "MinDiscord", "https://example.org/a.png");
+    byte[] actual = PayloadWriter.writeContent(content, "MinDiscord", "https://example.org/a.png");
+
+    assertEquals(
+        new String(expected, StandardCharsets.UTF_8), new String(actual, StandardCharsets.UTF_8));
+    assertThrows(
+        PayloadWriter.InvalidPayloadException.class,
+        () -> PayloadWriter.writeContent(" ", "MinDiscord", ""));
+  }
+}
@@ -4,7 +4,10 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class RateLimiterRegistryTest {
@@ -35,6 +38,314 @@ class RateLimiterRegistryTest {
     assertEquals(Duration.ZERO, registry.acquire("route", time));
   }
 
+  @Test
+  void concurrentAcquiresReserveDistinctSlots() throws Exception {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(60, 1)),
+            Config.QueueOverflowPolicy.DROP_OLDEST));
+    int threads = 4;
+    int perThread = 1000;
+
+    // With time frozen, every reservation must land on its own one-second slot.
+    Set<Long> slots =
+        distinctSlots(threads, perThread, (thread, i) -> registry.acquireNanos("route", time));
+    assertEquals(0L, (long) Collections.min(slots));
+    assertEquals((threads * perThread - 1) * 1_000_000_000L, (long) Collections.max(slots));
+    assertEquals(0, registry.available("route", time));
+  }
+
+  @Test
+  void availableCountsWholeTokensWithoutConsuming() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(60, 3)),
+            Config.QueueOverflowPolicy.DROP_OLDEST));
+
+    assertEquals(3, registry.available("route", time));
+    registry.acquireNanos("route", time);
+    registry.acquireNanos("route", time);
+    assertEquals(1, registry.available("route", time));
+    assertEquals(1, registry.available("route", time));
+    time.advance(Duration.ofMillis(1500));
+    assertEquals(2, registry.available("route", time));
+  }
+
+  @Test
+  void globalTierCapsDeliveriesAcrossRoutes() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(tiers(new Config.RateLimit.Rule(60, 2), Map.of()));
+
+    assertEquals(0L, registry.acquireNanos("https://a", "one", null, time));
+    assertEquals(0L, registry.acquireNanos("https://b", "two", null, time));
+    // Each route and webhook still has room; only the shared tier is spent.
+    assertEquals(1_000_000_000L, registry.acquireNanos("https://c", "three", null, time));
+  }
+
+  @Test
+  void callerTierOnlyLimitsThatCaller() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        tiers(
+            new Config.RateLimit.Rule(6000, 100),
+            Map.of("chatty", new Config.RateLimit.Rule(60, 1))));
+
+    assertEquals(0L, registry.acquireNanos("https://a", "one", "chatty", time));
+    assertEquals(0L, registry.acquireNanos("https://c", "three", "quiet", time));
+    assertEquals(0L, registry.acquireNanos("https://d", "four", null, time));
+    assertEquals(1_000_000_000L, registry.acquireNanos("https://b", "two", "chatty", time));
+  }
+
+  @Test
+  void concurrentMultiTierAcquiresDoNotLeakTokens() throws Exception {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(tiers(new Config.RateLimit.Rule(60, 1), Map.of()));
+    int threads = 4;
+    int perThread = 500;
+
+    // The global tier admits one per second: every slot distinct and none skipped.
+    Set<Long> slots =
+        distinctSlots(
+            threads,
+            perThread,
+            (thread, i) ->
+                registry.acquireNanos("https://" + thread, "route" + (i % 3), null, time));
+    assertEquals((threads * perThread - 1) * 1_000_000_000L, (long) Collections.max(slots));
+  }
+
+  @Test
+  void failedLaterTierNeverHandsBackAnotherDeliverysSlot() throws Exception {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    // Global and route tiers equally tight, so attempts on the shared route often win the first
+    // and lose the third; the others, each on its own route, are bound by the global tier alone.
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(60, 1)),
+            Config.QueueOverflowPolicy.DROP_OLDEST,
+            new Config.RateLimit.Rule(60, 1),
+            new Config.RateLimit.Rule(6000, 100),
+            Map.of()));
+    int threads = 8;
+    int perThread = 5000;
+
+    Set<Long> slots =
+        distinctSlots(
+            threads,
+            perThread,
+            (thread, i) -> {
+              String route = thread % 2 == 0 ? "route" : "own" + thread;
+              return registry.acquireNanos("https://" + thread, route, null, time);
+            });
+    assertEquals((threads * perThread - 1) * 1_000_000_000L, (long) Collections.max(slots));
+    // A fresh route and webhook see only the global tier, which must end one interval past the
+    // last slot: a rollback that handed back a later delivery's interval would leave it short.
+    assertEquals(
+        threads * perThread * 1_000_000_000L,
+        registry.acquireNanos("https://fresh", "fresh", null, time));
+  }
+
+  @Test
+  void throttlePausesOnlyTheWebhook() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(tiers(new Config.RateLimit.Rule(6000, 100), Map.of()));
+
+    registry.throttle("https://a", Duration.ofSeconds(3).toNanos(), time);
+
+    assertEquals(0L, registry.acquireNanos("https://b", "two", null, time));
+    assertEquals(3_000_000_000L, registry.acquireNanos("https://a", "one", null, time));
+  }
+
+  @Test
+  void idleLimitersAreSweptAndRecreatedFull() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(60, 1)),
+            Config.QueueOverflowPolicy.DROP_OLDEST,
+            new Config.RateLimit.Rule(600_000, 1000),
+            new Config.RateLimit.Rule(600_000, 1000),
+            Map.of(),
+            60_000));
+
+    for (int i = 0; i < 100; i++) {
+      registry.acquireNanos("https://example/" + i, "route" + i, null, time);
+    }
+    // route0 stays busy: its bucket is booked ten minutes ahead.
+    for (int i = 0; i < 600; i++) {
+      registry.acquireNanos("route0", time);
+    }
+    assertEquals(201, registry.size());
+
+    time.advance(Duration.ofMinutes(2));
+    registry.acquireNanos("https://example/new", "new", null, time);
+
+    // Only the busy route survives, next to the three limiters the new delivery created.
+    assertEquals(4, registry.size());
+    assertEquals(0L, registry.acquireNanos("route7", time));
+    assertEquals(
+        Duration.ofMinutes(8).toNanos() + 1_000_000_000L, registry.acquireNanos("route0", time));
+  }
+
+  @Test
+  void reconfiguredRuleAppliesOnNextUse() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(60, 1)),
+            Config.QueueOverflowPolicy.DROP_OLDEST));
+    registry.acquireNanos("route", time);
+    assertEquals(1_000_000_000L, registry.acquireNanos("route", time));
+
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(120, 4)),
+            Config.QueueOverflowPolicy.DROP_OLDEST));
+
+    // The TAT carries over; the new interval and burst apply from here on.
+    assertEquals(500_000_000L, registry.acquireNanos("route", time));
+  }
+
+  @Test
+  void keyLimitCountsRefusalsUntilTheNextAdmit() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    Config.RateLimit.KeyLimit limit =
+        new Config.RateLimit.KeyLimit(3, 600_000, Config.RateLimit.OverLimit.DROP, 10);
+
+    assertEquals(0L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(0L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(0L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(-1L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(-2L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(0L, registry.admitKey("drops", "alex", limit, time));
+    assertEquals(0L, registry.admitKey("events", "steve", limit, time));
+
+    // One of the three slots frees up every 200 seconds.
+    time.advance(Duration.ofSeconds(200));
+    assertEquals(2L, registry.admitKey("drops", "steve", limit, time));
+    assertEquals(-1L, registry.admitKey("drops", "steve", limit, time));
+  }
+
+  @Test
+  void keyMapStaysWithinMaxKeys() {
+    RateLimiterRegistry registry = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    registry.configure(
+        new Config.RateLimit(
+            Map.of("default", Config.RateLimit.Rule.DEFAULT),
+            Config.QueueOverflowPolicy.DROP_OLDEST,
+            Config.RateLimit.Rule.GLOBAL,
+            Config.RateLimit.Rule.WEBHOOK,
+            Map.of(),
+            600_000,
+            Map.of(),
+            100));
+    Config.RateLimit.KeyLimit limit =
+        new Config.RateLimit.KeyLimit(1, 60_000, Config.RateLimit.OverLimit.DROP, 10);
+
+    for (int i = 0; i < 1000; i++) {
+      registry.admitKey("drops", "player" + i, limit, time);
+    }
+    assertEquals(100, registry.keyCount());
+    // Untracked once the map is full, so a key past the cap is admitted every time.
+    assertEquals(0L, registry.admitKey("drops", "player999", limit, time));
+    assertEquals(0L, registry.admitKey("drops", "player999", limit, time));
+
+    time.advance(Duration.ofMinutes(1));
+    assertEquals(0L, registry.admitKey("drops", "late", limit, time));
+    assertEquals(1, registry.keyCount());
+  }
+
+  @Test
+  void exportedStateSurvivesRestartMinusDowntime() {
+    Config.RateLimit limits =
+        new Config.RateLimit(
+            Map.of("default", new Config.RateLimit.Rule(6, 1)),
+            Config.QueueOverflowPolicy.DROP_OLDEST,
+            new Config.RateLimit.Rule(6000, 100),
+            new Config.RateLimit.Rule(6000, 100),
+            Map.of());
+    RateLimiterRegistry before = new RateLimiterRegistry();
+    FakeTimeSource time = new FakeTimeSource();
+    time.advance(Duration.ofHours(1));
+    before.configure(limits);
+    before.acquireNanos("https://a", "route", null, time);
+    before.acquireNanos("https://a", "route", null, time);
+    before.throttle("https://b", Duration.ofSeconds(30).toNanos(), time);
+    LimiterStateStore.Snapshot snapshot = before.exportState(time);
+
+    // A new process: its monotonic clock restarts, and ten seconds passed while it was down.
+    RateLimiterRegistry after = new RateLimiterRegistry();
+    FakeTimeSource restarted = new FakeTimeSource();
+    restarted.advance(Duration.ofHours(1).plusSeconds(10));
+    after.restoreState(snapshot, restarted);
+    after.configure(limits);
+
+    // The route had its slots booked to t=20s; the 429 pause on webhook b ran to t=30s.
+    assertEquals(0L, after.acquireNanos("https://a", "third", null, restarted));
+    assertEquals(
+        Duration.ofSeconds(10).toNanos(),
+        after.acquireNanos("https://c", "route", null, restarted));
+    assertEquals(
+        Duration.ofSeconds(20).toNanos(),
+        after.acquireNanos("https://b", "other", null, restarted));
+  }
+
+  /**
+   * Runs {@code perThread} acquires on each of {@code threads} threads at once and returns the
+   * waits they got, asserting that no two acquires were handed the same slot.
+   */
+  private static Set<Long> distinctSlots(int threads, int perThread, Acquire acquire)
+      throws InterruptedException {
+    long[][] waits = new long[threads][perThread];
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      int index = t;
+      workers[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          waits[index][i] = acquire.nanos(index, i);
+        }
+      });
+      workers[t].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    Set<Long> distinct = new HashSet<>();
+    for (long[] row : waits) {
+      for (long wait : row) {
+        assertTrue(distinct.add(wait), "two acquires got the same slot: " + wait);
+      }
+    }
+    return distinct;
+  }
+
+  /** One acquire made by worker {@code thread} on its {@code attempt}-th turn. */
+  private interface Acquire {
+    long nanos(int thread, int attempt);
+  }
+
+  private static Config.RateLimit tiers(
+      Config.RateLimit.Rule global, Map<String, Config.RateLimit.Rule> perCaller) {
+    return new Config.RateLimit(
+        Map.of("default", new Config.RateLimit.Rule(6000, 100)),
+        Config.QueueOverflowPolicy.DROP_OLDEST,
+        global,
+        new Config.RateLimit.Rule(6000, 100),
+        perCaller);
+  }
+
   private static final class FakeTimeSource implements TimeSource {
     private Instant instant = Instant.EPOCH;
     private long nanos;
@@ -0,0 +1,31 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RouteHealthTest {
+  private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+  @Test
+  void webhooksIdleForACooldownAreSweptWhileUnhealthyOnesAreKept() {
+    RouteHealth health = new RouteHealth();
+    health.configure(new Config.Failover(Map.of(), 1, 4000, 30_000));
+
+    health.recordResponse("https://example/removed", false, 0L, 0L);
+    assertFalse(health.isHealthy("https://example/removed", SECOND));
+    health.recordGone("https://example/revoked", 20 * SECOND);
+    assertEquals(2, health.size());
+
+    // The first sweep after a cooldown drops the recovered webhook but keeps the blocked one.
+    health.recordResponse("https://example/live", true, 0L, 31 * SECOND);
+    assertEquals(1, health.size());
+    assertFalse(health.isHealthy("https://example/revoked", 31 * SECOND));
+
+    health.recordResponse("https://example/live", true, 0L, 62 * SECOND);
+    assertEquals(0, health.size());
+    assertTrue(health.isHealthy("https://example/revoked", 62 * SECOND));
+  }
+}
@@ -0,0 +1,89 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression gate for config load and route lookup at 50k routes. Budgets are loose enough for a
+ * slow CI machine; what they catch is per-route work creeping back into loads or lookups.
+ */
+class RouteScaleTest {
+  private static final int ROUTES = 50_000;
+  private static final long LOAD_BUDGET_MILLIS = 2_000;
+  private static final long LOOKUP_BUDGET_NANOS = 2_000;
+
+  @Test
+  void fiftyThousandRoutesLoadAndResolveWithinBudget() {
+    Config.Raw raw = new Config.Raw();
+    raw.routes = new LinkedHashMap<>();
+    for (int i = 0; i < ROUTES; i++) {
+      raw.routes.put("guild." + i, i % 2 == 0 ? "https://example/" + i : "env:HOOK_" + i);
+    }
+    raw.routes.put("default", "https://example/default");
+    AtomicInteger envReads = new AtomicInteger();
+    Router router = new Router(name -> {
+      envReads.incrementAndGet();
+      return "https://example/" + name;
+    });
+
+    // Warm up the load path once, then time a reload the way the config watcher does it.
+    router.update(Config.fromRaw(raw));
+    long started = System.nanoTime();
+    Config cfg = Config.fromRaw(raw);
+    router.update(cfg);
+    long loadMillis = (System.nanoTime() - started) / 1_000_000;
+    assertEquals(0, envReads.get(), "load read the environment");
+    assertTrue(
+        loadMillis <= LOAD_BUDGET_MILLIS,
+        "loading " + ROUTES + " routes took " + loadMillis + " ms, budget " + LOAD_BUDGET_MILLIS);
+    assertTrue(cfg.rateLimit().perRoute().size() < 10, "rate limits copied every route");
+
+    String[] names = new String[ROUTES];
+    for (int i = 0; i < ROUTES; i++) {
+      names[i] = "guild." + i;
+    }
+    for (String name : names) {
+      assertTrue(router.resolveAllowed(name) == null || router.resolve(name).ok());
+    }
+    started = System.nanoTime();
+    int ok = 0;
+    for (int round = 0; round < 10; round++) {
+      for (String name : names) {
+        ok += router.resolve(name).ok() ? 1 : 0;
+      }
+    }
+    long perLookup = (System.nanoTime() - started) / (10L * ROUTES);
+    assertEquals(10 * ROUTES, ok);
+    assertTrue(
+        perLookup <= LOOKUP_BUDGET_NANOS,
+        "lookup took " + perLookup + " ns at " + ROUTES + " routes, budget " + LOOKUP_BUDGET_NANOS);
+
+    Page<Router.RouteInfo> page = router.routes("guild.4999", 1, Page.DEFAULT_SIZE);
+    assertEquals(11, page.total());
+    assertEquals("guild.4999", page.items().get(0).name());
+  }
+
+  @Test
+  void addingARouteDoesNotRecompileTheOthers() {
+    Map<String, String> routes = new LinkedHashMap<>();
+    for (int i = 0; i < ROUTES; i++) {
+      routes.put("guild." + i, "https://example/" + i);
+    }
+    Router router = new Router();
+    router.update(Config.builder().routes(routes).build());
+    Router.RouteResolution first = router.resolve("guild.1");
+
+    long started = System.nanoTime();
+    for (int i = 0; i < 1_000; i++) {
+      router.putRoute("team." + i, "https://example/team/" + i);
+    }
+    long perPut = (System.nanoTime() - started) / 1_000;
+    assertSame(first, router.resolve("guild.1"));
+    assertEquals("https://example/team/7", router.resolve("team.7").url());
+    assertTrue(perPut <= 100_000, "putRoute took " + perPut + " ns at " + ROUTES + " routes");
+  }
+}
@@ -1,6 +1,9 @@
 package dev.mindiscord.core;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 public class RouterTest {
@@ -30,6 +33,48 @@ public class RouterTest {
     assertEquals(Router.Status.FALLBACK, r.resolve("unknown-route").status());
   }
 
+  @Test
+  void resolutionsCarryTheirParsedUris() {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "http://example/default")
+            .putRoute("drops", "http://example/drops")
+            .failover(new Config.Failover(Map.of("drops", "default"), 2, 4000, 30_000))
+            .build();
+    Router r = new Router();
+    r.update(cfg);
+    Router.RouteResolution drops = r.resolve("drops");
+    assertEquals(URI.create("http://example/drops"), drops.uri());
+    assertEquals(URI.create("http://example/default"), drops.failoverUri());
+    assertSame(drops.uri(), r.resolve("drops").uri());
+    assertNull(r.resolve("default").failoverUri());
+    assertEquals("default", drops.failoverRoute());
+
+    r.update(
+        Config.builder()
+            .putRoute("default", "http://example/default")
+            .putRoute("drops", "http://example/drops")
+            .failover(new Config.Failover(Map.of("drops", "http://example/spare"), 2, 4000, 30_000))
+            .build());
+    assertEquals("drops#failover", r.resolve("drops").failoverRoute());
+    assertEquals("http://example/spare", r.resolve("drops").failoverUrl());
+  }
+
+  @Test
+  void rejectsFailoverTargetsThatAreNotRoutesUrlsOrEnv() {
+    Config.Builder builder =
+        Config.builder()
+            .putRoute("default", "http://example/default")
+            .putRoute("drops", "http://example/drops");
+    builder.failover(new Config.Failover(Map.of("drops", "defualt"), 2, 4000, 30_000));
+    assertThrows(IllegalArgumentException.class, builder::build);
+
+    builder.failover(new Config.Failover(Map.of("drops", "https://example/spare"), 2, 4000, 30_000));
+    assertEquals("https://example/spare", builder.build().failover().targets().get("drops"));
+    builder.failover(new Config.Failover(Map.of("drops", "env:SPARE_HOOK"), 2, 4000, 30_000));
+    builder.build();
+  }
+
   @Test
   void returnsNullWhenUnknownAndNoDefault() {
     Config cfg = Config.builder().putRoute("known", "http://example/known").build();
@@ -39,4 +84,160 @@ public class RouterTest {
     assertNull(res.url());
     assertEquals(Router.Status.NO_ROUTE, res.status());
   }
+
+  @Test
+  void envTargetsAreReadOnceUntilRefreshed() {
+    java.util.Map<String, String> env = new java.util.HashMap<>();
+    java.util.concurrent.atomic.AtomicInteger reads = new java.util.concurrent.atomic.AtomicInteger();
+    Router r = new Router(name -> {
+      reads.incrementAndGet();
+      return env.get(name);
+    });
+    env.put("DROPS_HOOK", "http://example/drops");
+    r.update(Config.builder().putRoute("drops", "env:DROPS_HOOK").build());
+    // Nothing is read until a route is first used.
+    assertEquals(0, reads.get());
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals("http://example/drops", r.resolve("drops").url());
+    }
+    assertTrue(r.snapshot().get(0).available());
+    assertEquals(1, reads.get());
+
+    env.remove("DROPS_HOOK");
+    assertEquals("http://example/drops", r.resolve("drops").url());
+    r.refreshEnvironment();
+    assertEquals(Router.Status.ENV_MISSING, r.resolve("drops").status());
+    assertFalse(r.snapshot().get(0).available());
+  }
+
+  @Test
+  void resolveAllowedAppliesTheCompiledAllowList() {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, true, java.util.List.of("default", "drops")))
+            .putRoute("default", "http://example/default")
+            .putRoute("hidden", "http://example/hidden")
+            .build();
+    Router r = new Router();
+    r.update(cfg);
+
+    assertNull(r.resolveAllowed("hidden"));
+    assertNull(r.resolveAllowed("never-configured"));
+    assertEquals("http://example/hidden", r.resolve("hidden").url());
+    Router.RouteResolution drops = r.resolveAllowed("drops");
+    assertEquals(Router.Status.FALLBACK, drops.status());
+    assertEquals("drops", drops.requestedRoute());
+    // Compiled names hand back the same resolution every time.
+    assertSame(drops, r.resolveAllowed("drops"));
+    assertSame(r.resolveAllowed(null), r.resolveAllowed("default"));
+  }
+
+  @Test
+  void patternRoutesMatchMostSpecificFirst() {
+    Config cfg =
+        Config.builder()
+            .putRoute("rareDrops", "http://example/rare")
+            .putRoute("drops.*", "rareDrops")
+            .putRoute("drops.legendary", "http://example/legendary")
+            .putRoute("events.**", "http://example/events")
+            .putRoute("events.*.boss", "http://example/boss")
+            .build();
+    Router r = new Router();
+    r.update(cfg);
+
+    Router.RouteResolution diamond = r.resolve("drops.diamond");
+    assertEquals("http://example/rare", diamond.url());
+    // An alias shares its target's route key, and with it the target's rate limit.
+    assertEquals("rareDrops", diamond.resolvedRoute());
+    assertEquals("drops.diamond", diamond.requestedRoute());
+    assertEquals("http://example/legendary", r.resolve("drops.legendary").url());
+    assertEquals(Router.Status.NO_ROUTE, r.resolve("drops.diamond.extra").status());
+    assertEquals("http://example/boss", r.resolve("events.nether.boss").url());
+    assertEquals("http://example/events", r.resolve("events.nether.raid").url());
+    assertEquals("http://example/events", r.resolve("events.start").url());
+    assertEquals(Router.Status.NO_ROUTE, r.resolve("events").status());
+    assertSame(diamond, r.resolve("drops.diamond"));
+  }
+
+  @Test
+  void allowListPatternsAdmitMatchingNames() {
+    Config cfg =
+        Config.builder()
+            .announce(new Config.Announce(true, false, java.util.List.of("default", "drops.*")))
+            .putRoute("default", "http://example/default")
+            .putRoute("drops.*", "http://example/drops")
+            .putRoute("chat.**", "http://example/chat")
+            .build();
+    Router r = new Router();
+    r.update(cfg);
+
+    assertEquals("http://example/drops", r.resolveAllowed("drops.rare").url());
+    assertNull(r.resolveAllowed("chat.global"));
+    assertEquals("http://example/chat", r.resolve("chat.global").url());
+    assertTrue(cfg.announce().isRouteAllowed("drops.rare"));
+    assertFalse(cfg.announce().isRouteAllowed("drops"));
+  }
+
+  @Test
+  void rejectsMalformedPatterns() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Config.builder().putRoute("drops.rare*", "http://example/x"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Config.builder().putRoute("events.**.boss", "http://example/x"));
+  }
+
+  @Test
+  void addedRoutesApplyWithoutReloadAndSurviveIt() {
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "http://example/default")
+            .putRoute("team.red", "http://example/red")
+            .build();
+    Router r = new Router();
+    r.update(cfg);
+    Router.RouteResolution red = r.resolve("team.red");
+    assertEquals(Router.Status.FALLBACK, r.resolve("team.blue").status());
+
+    r.putRoute("team.blue", "http://example/blue");
+    assertEquals("http://example/blue", r.resolve("team.blue").url());
+    // Unrelated routes keep their cached resolution.
+    assertSame(red, r.resolve("team.red"));
+
+    r.update(cfg);
+    assertEquals("http://example/blue", r.resolve("team.blue").url());
+    assertTrue(r.removeRoute("team.blue"));
+    assertFalse(r.removeRoute("team.red"));
+    assertEquals(Router.Status.FALLBACK, r.resolve("team.blue").status());
+
+    // Fallbacks resolve through default, so replacing it reaches every route that falls back.
+    r.putRoute("default", "http://example/new-default");
+    assertEquals("http://example/new-default", r.resolve("team.blue").url());
+  }
+
+  @Test
+  void routesArePagedAndFilteredByName() {
+    Config.Builder builder = Config.builder().putRoute("default", "http://example/default");
+    for (int i = 0; i < 25; i++) {
+      builder.putRoute(String.format("team.%02d", i), "http://example/" + i);
+    }
+    Router r = new Router();
+    r.update(builder.build());
+    r.putRoute("guild.a", "http://example/a");
+
+    Page<Router.RouteInfo> first = r.routes(null, 1, 10);
+    assertEquals(27, first.total());
+    assertEquals(3, first.pages());
+    assertEquals("default", first.items().get(0).name());
+    assertEquals("guild.a", first.items().get(1).name());
+
+    Page<Router.RouteInfo> teams = r.routes("TEAM", 3, 10);
+    assertEquals(25, teams.total());
+    assertEquals(List.of("team.20", "team.21", "team.22", "team.23", "team.24"),
+        teams.items().stream().map(Router.RouteInfo::name).toList());
+    assertEquals(3, r.routes("team", 99, 10).page());
+    assertEquals(0, r.routes("nothing", 1, 10).total());
+  }
 }
@@ -0,0 +1,102 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.mindiscord.api.Embed;
+import dev.mindiscord.api.WebhookMessage;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RuleEngineTest {
+  private static final int WARMUP = 200_000;
+  private static final int MEASURED = 200_000;
+  /** 100 non-matching rules, regex ones included; generous so slow CI machines stay green. */
+  private static final long BUDGET_NANOS_PER_MESSAGE = 20_000;
+
+  @Test
+  void firstMatchingRuleWinsInConfiguredOrder() {
+    Config cfg =
+        Config.builder()
+            .defaults(new Config.Defaults("Server", ""))
+            .addRule(new Config.Rule(null, "Moderator", null, null, null, "staff"))
+            .addRule(new Config.Rule("drops", null, null, null, 0xFF0000, "alerts"))
+            .addRule(new Config.Rule(null, null, "[urgent]", null, null, "pager"))
+            .addRule(new Config.Rule("events.*", null, null, "boss \\d+", null, "bosses"))
+            .build();
+    RuleEngine rules = cfg.ruleEngine();
+
+    assertEquals("staff", rules.route("drops", message("Moderator", "hi", 0xFF0000)));
+    assertEquals("alerts", rules.route("drops", message(null, "[urgent]", 0xFF0000)));
+    assertEquals("pager", rules.route("chat", message(null, "[urgent] restart", null)));
+    assertEquals("chat", rules.route("chat", message(null, "hello", 0xFF0000)));
+    assertEquals("bosses", rules.route("events.nether", message(null, "boss 3 spawned", null)));
+    assertEquals("events", rules.route("events", message(null, "boss 3 spawned", null)));
+    // Plain-content sends go out under the configured default username.
+    assertEquals("staff", Config.builder()
+        .defaults(new Config.Defaults("Moderator", ""))
+        .addRule(new Config.Rule(null, "Moderator", null, null, null, "staff"))
+        .build()
+        .ruleEngine()
+        .route("default", "plain"));
+    assertEquals("default", rules.route("default", "plain"));
+  }
+
+  @Test
+  void rawRulesParseColoursAndRejectBadInput() {
+    Config.RawRule raw = new Config.RawRule();
+    raw.embedColor = "#ff0000";
+    raw.to = "alerts";
+    assertEquals(Integer.valueOf(0xFF0000), raw.toRule(0).embedColor());
+    raw.embedColor = "16711680";
+    assertEquals(Integer.valueOf(0xFF0000), raw.toRule(0).embedColor());
+    raw.embedColor = "red";
+    assertThrows(IllegalArgumentException.class, () -> raw.toRule(0));
+    raw.embedColor = null;
+    assertThrows(IllegalArgumentException.class, () -> raw.toRule(0));
+    raw.contentMatches = "(unclosed";
+    assertThrows(IllegalArgumentException.class, () -> raw.toRule(0));
+  }
+
+  @Test
+  void hundredRulesStayWithinPerMessageBudget() {
+    Config.Builder builder = Config.builder();
+    for (int i = 0; i < 100; i++) {
+      Config.Rule rule =
+          switch (i % 4) {
+            case 0 -> new Config.Rule(null, "player" + i, null, null, null, "r" + i);
+            case 1 -> new Config.Rule(null, null, null, null, i, "r" + i);
+            case 2 -> new Config.Rule(null, null, "needle" + i, null, null, "r" + i);
+            default -> new Config.Rule("route" + i, null, null, "needle" + i + "\\d+", null, "r" + i);
+          };
+      builder.addRule(rule);
+    }
+    RuleEngine rules = builder.build().ruleEngine();
+    WebhookMessage miss = message("Steve", "Steve found a diamond at x=120 z=-40", 0xFF0000);
+
+    int sink = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      sink += rules.route("drops", miss).length();
+    }
+    long started = System.nanoTime();
+    for (int i = 0; i < MEASURED; i++) {
+      sink += rules.route("drops", miss).length();
+    }
+    long perMessage = (System.nanoTime() - started) / MEASURED;
+    assertEquals(5L * (WARMUP + MEASURED), sink);
+    assertTrue(
+        perMessage <= BUDGET_NANOS_PER_MESSAGE,
+        "100 rules took " + perMessage + " ns/message, budget " + BUDGET_NANOS_PER_MESSAGE);
+  }
+
+  private static WebhookMessage message(String username, String content, Integer color) {
+    WebhookMessage msg = new WebhookMessage();
+    msg.username = username;
+    msg.content = content;
+    if (color != null) {
+      Embed embed = new Embed();
+      embed.color = color;
+      msg.embeds = List.of(embed);
+    }
+    return msg;
+  }
+}
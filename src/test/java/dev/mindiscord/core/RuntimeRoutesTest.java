@@ -0,0 +1,142 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.mindiscord.api.RouteLimits;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RuntimeRoutesTest {
+  private static final long SECOND = Duration.ofSeconds(1).toNanos();
+  /** Two slots booked at 60/min leave the TAT 2s ahead; 6000/min with burst 100 tolerates 0.99s. */
+  private static final long CARRIED_OVER = 2 * SECOND - Duration.ofMillis(990).toNanos();
+
+  @Test
+  void registeredRoutesResolveAndLimitUntilUnregistered() {
+    Router router = router();
+    RateLimiterRegistry limiter = limiter();
+    RuntimeRoutes routes = new RuntimeRoutes(router, limiter, null);
+    FakeTimeSource time = new FakeTimeSource();
+
+    routes.registerRoute("team.red", "http://example/red", new RouteLimits(60, 1));
+
+    assertEquals("http://example/red", router.resolve("team.red").url());
+    assertEquals(0L, limiter.acquireNanos("team.red", time));
+    assertEquals(SECOND, limiter.acquireNanos("team.red", time));
+    assertEquals(0L, limiter.acquireNanos("known", time));
+
+    assertTrue(routes.unregisterRoute("team.red"));
+    assertFalse(routes.unregisterRoute("team.red"));
+    assertFalse(routes.unregisterRoute("known"));
+    assertEquals(Router.Status.FALLBACK, router.resolve("team.red").status());
+    assertEquals("http://example/known", router.resolve("known").url());
+    // Back on the config's default rule, with the booked time carried over.
+    assertEquals(CARRIED_OVER, limiter.acquireNanos("team.red", time));
+  }
+
+  @Test
+  void reRegisteringChangesTheLiveLimiterInPlace() {
+    RateLimiterRegistry limiter = limiter();
+    RuntimeRoutes routes = new RuntimeRoutes(router(), limiter, null);
+    FakeTimeSource time = new FakeTimeSource();
+
+    routes.registerRoute("team.red", "http://example/red", new RouteLimits(60, 1));
+    limiter.acquireNanos("team.red", time);
+    assertEquals(SECOND, limiter.acquireNanos("team.red", time));
+
+    routes.registerRoute("team.red", "http://example/red", new RouteLimits(6000, 100));
+    assertEquals(CARRIED_OVER, limiter.acquireNanos("team.red", time));
+    // A reload keeps the registered rule rather than the config's default one.
+    routes.registerRoute("team.red", "http://example/red", new RouteLimits(60, 1));
+    limiter.configure(limits());
+    // TAT is 2.01s ahead and 60/min tolerates nothing; the default rule would wait only 1.02s.
+    assertEquals(
+        2 * SECOND + Duration.ofMillis(10).toNanos(), limiter.acquireNanos("team.red", time));
+  }
+
+  @Test
+  void persistentRoutesAreRegisteredAgainOnLoad() throws Exception {
+    Path file = Files.createTempDirectory("mindiscord").resolve("routes.json");
+    RuntimeRoutes before = new RuntimeRoutes(router(), limiter(), file);
+    before.registerRoute("team.red", "http://example/red", new RouteLimits(60, 1), true);
+    before.registerRoute("team.blue", "http://example/blue", null, true);
+    before.registerRoute("team.green", "http://example/green", null);
+    before.registerRoute("team.blue", "http://example/blue2", null, true);
+    before.close();
+
+    String saved = Files.readString(file, StandardCharsets.UTF_8);
+    assertFalse(saved.contains("green"), saved);
+    Router router = router();
+    RateLimiterRegistry limiter = limiter();
+    RuntimeRoutes after = new RuntimeRoutes(router, limiter, file);
+    after.load();
+    FakeTimeSource time = new FakeTimeSource();
+    assertEquals("http://example/red", router.resolve("team.red").url());
+    assertEquals("http://example/blue2", router.resolve("team.blue").url());
+    assertEquals(Router.Status.FALLBACK, router.resolve("team.green").status());
+    limiter.acquireNanos("team.red", time);
+    assertEquals(SECOND, limiter.acquireNanos("team.red", time));
+
+    after.unregisterRoute("team.red");
+    after.close();
+    Router fresh = router();
+    RuntimeRoutes again = new RuntimeRoutes(fresh, limiter(), file);
+    again.load();
+    assertEquals(Router.Status.FALLBACK, fresh.resolve("team.red").status());
+    assertEquals("http://example/blue2", fresh.resolve("team.blue").url());
+  }
+
+  @Test
+  void rejectsBlankTargetsAndWildcards() {
+    Router router = router();
+    RuntimeRoutes routes = new RuntimeRoutes(router, limiter(), null);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> routes.registerRoute("team.**", "http://x", null));
+    assertThrows(IllegalArgumentException.class, () -> routes.registerRoute("team", " ", null));
+    assertThrows(IllegalArgumentException.class, () -> routes.registerRoute(" ", "http://x", null));
+    assertThrows(IllegalArgumentException.class, () -> new RouteLimits(0, 1));
+    assertEquals(Router.Status.FALLBACK, router.resolve("team").status());
+  }
+
+  private static Router router() {
+    Router router = new Router();
+    router.update(
+        Config.builder()
+            .putRoute("default", "http://example/default")
+            .putRoute("known", "http://example/known")
+            .build());
+    return router;
+  }
+
+  private static RateLimiterRegistry limiter() {
+    RateLimiterRegistry limiter = new RateLimiterRegistry();
+    limiter.configure(limits());
+    return limiter;
+  }
+
+  private static Config.RateLimit limits() {
+    return new Config.RateLimit(
+        Map.of("default", new Config.RateLimit.Rule(6000, 100)),
+        Config.QueueOverflowPolicy.DROP_OLDEST);
+  }
+
+  private static final class FakeTimeSource implements TimeSource {
+    private long nanos;
+
+    @Override
+    public Instant now() {
+      return Instant.EPOCH.plusNanos(nanos);
+    }
+
+    @Override
+    public long nanoTime() {
+      return nanos;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package dev.mindiscord.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.mindiscord.api.Attachment;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression gate for garbage produced per {@code send}/{@code post}. Uses the JVM's per-thread
+ * allocation counters, read for the calling (server) thread and the delivery worker.
+ */
+class SubmitAllocationTest {
+  private static final int WARMUP = 50_000;
+  private static final int MEASURED = 50_000;
+  /** json bytes + payload holder + request envelope + future, with headroom for JIT variance. */
+  private static final long BUDGET_BYTES_PER_SEND = 400;
+
+  @Test
+  void sendStaysWithinAllocationBudget() throws Exception {
+    long perSend = measure(bus -> bus.send("default", "Server restarting in 5 minutes"))[0];
+    assertTrue(
+        perSend <= BUDGET_BYTES_PER_SEND,
+        "send allocated " + perSend + " bytes/op, budget " + BUDGET_BYTES_PER_SEND);
+  }
+
+  /**
+   * {@code post} saves its garbage on the worker (no future, no {@link dev.mindiscord.api.SendResult}),
+   * so this compares allocation on the caller and worker together, delivery included.
+   */
+  @Test
+  void postAllocatesLessThanSendEndToEnd() throws Exception {
+    long perSend = measure(bus -> bus.send("default", "Server restarting in 5 minutes"))[1];
+    long perPost = measure(bus -> bus.post("default", "Server restarting in 5 minutes"))[1];
+    assertTrue(perPost < perSend, "post allocated " + perPost + " bytes/op, send " + perSend);
+  }
+
+  /**
+   * Bytes allocated per {@code op} on the calling thread, and on the calling plus worker thread
+   * until delivery finished; zeros where the JVM cannot tell.
+   */
+  private static long[] measure(Consumer<AnnounceBusImpl> op) throws Exception {
+    if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+        || !threads.isThreadAllocatedMemorySupported()) {
+      return new long[2];
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+    Config cfg =
+        Config.builder()
+            .putRoute("default", "https://example/default")
+            .queue(new Config.Queue(200_000, 1, Config.QueueOverflowPolicy.DROP_OLDEST))
+            .rateLimit(
+                new Config.RateLimit(
+                    Map.of("default", new Config.RateLimit.Rule(Integer.MAX_VALUE, Integer.MAX_VALUE)),
+                    Config.QueueOverflowPolicy.DROP_OLDEST))
+            .announce(new Config.Announce(true, false, List.of()))
+            .build();
+    MinCoreBridge bridge = new MinCoreBridge();
+    try (AnnounceBusImpl bus =
+        new AnnounceBusImpl(
+            new Router(),
+            new DispatchQueue(),
+            new NoOpTransport(),
+            new RateLimiterRegistry(),
+            new StatsStore(bridge),
+            bridge,
+            new SystemTimeSource(),
+            duration -> {},
+            cfg)) {
+      for (int i = 0; i < WARMUP; i++) {
+        op.accept(bus);
+      }
+      bus.send("default", "drain").get(10, TimeUnit.SECONDS);
+      long thread = Thread.currentThread().threadId();
+      long[] both = {thread, workerThreadId()};
+      long before = threads.getThreadAllocatedBytes(thread);
+      long beforeAll = total(threads.getThreadAllocatedBytes(both));
+      for (int i = 0; i < MEASURED; i++) {
+        op.accept(bus);
+      }
+      long caller = threads.getThreadAllocatedBytes(thread) - before;
+      // The worker is FIFO, so once this settles every measured op has been delivered.
+      bus.send("default", "drain").get(10, TimeUnit.SECONDS);
+      long everywhere = total(threads.getThreadAllocatedBytes(both)) - beforeAll;
+      return new long[] {caller / MEASURED, everywhere / MEASURED};
+    }
+  }
+
+  /** The newest worker thread, i.e. the one belonging to the bus just built. */
+  private static long workerThreadId() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> t.getName().equals("MinDiscord-Worker") && t.isAlive())
+        .mapToLong(Thread::threadId)
+        .max()
+        .orElseThrow();
+  }
+
+  private static long total(long[] allocated) {
+    long sum = 0;
+    for (long bytes : allocated) {
+      sum += bytes;
+    }
+    return sum;
+  }
+
+  private static final class NoOpTransport implements WebhookClient {
+    private static final WebhookTransport.TransportResponse OK =
+        new WebhookTransport.TransportResponse(true, 204, null, null);
+
+    @Override
+    public WebhookTransport.TransportResponse postJson(URI uri, byte[] json) {
+      return OK;
+    }
+
+    @Override
+    public WebhookTransport.TransportResponse exchange(String method, URI uri, byte[] json) {
+      return OK;
+    }
+
+    @Override
+    public WebhookTransport.TransportResponse exchangeMultipart(
+        String method, URI uri, byte[] json, List<Attachment> attachments) {
+      return OK;
+    }
+  }
+}
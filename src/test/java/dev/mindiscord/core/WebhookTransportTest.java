@@ -6,10 +6,17 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import dev.mindiscord.api.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.Executors;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -24,6 +31,8 @@ public class WebhookTransportTest {
   static HttpServer server;
   static volatile String lastBody;
   static volatile String lastPath;
+  static volatile String lastMethod;
+  static volatile String lastQuery;
 
   @BeforeAll
   static void start() throws Exception {
@@ -31,9 +40,20 @@ public class WebhookTransportTest {
     server.createContext("/api/webhooks/test", new HttpHandler() {
       @Override public void handle(HttpExchange ex) throws IOException {
         lastPath = ex.getRequestURI().getPath();
+        lastMethod = ex.getRequestMethod();
+        lastQuery = ex.getRequestURI().getQuery();
         try (InputStream in = ex.getRequestBody()) {
           lastBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
         }
+        if ("wait=true".equals(lastQuery) || "PATCH".equals(lastMethod)) {
+          // emulate ?wait=true / edit responses, which return the message object
+          byte[] body = "{\"type\":0,\"id\":\"1234567890\",\"content\":\"x\"}"
+              .getBytes(StandardCharsets.UTF_8);
+          ex.sendResponseHeaders(200, body.length);
+          ex.getResponseBody().write(body);
+          ex.close();
+          return;
+        }
         // emulate Discord webhook success (204 No Content)
         ex.sendResponseHeaders(204, -1);
         ex.close();
@@ -52,11 +72,92 @@ public class WebhookTransportTest {
     var url = "http://127.0.0.1:" + port + "/api/webhooks/test";
 
     WebhookTransport transport = new WebhookTransport();
-    var resp = transport.postJson(url, "{\"content\":\"Hello from MinDiscord\"}");
+    var resp = transport.postJson(URI.create(url), bytes("{\"content\":\"Hello from MinDiscord\"}"));
     assertTrue(resp.success(), "Expected transport success");
     assertEquals(204, resp.statusCode());
     assertEquals("/api/webhooks/test", lastPath);
     assertNotNull(lastBody);
     assertTrue(lastBody.contains("\"content\""));
   }
+
+  @Test
+  void waitAndEditCaptureMessageId() throws Exception {
+    var port = server.getAddress().getPort();
+    var url = "http://127.0.0.1:" + port + "/api/webhooks/test";
+
+    WebhookTransport transport = new WebhookTransport();
+    var created = transport.exchange(
+        "POST", URI.create(WebhookTransport.withWait(url)), bytes("{\"content\":\"a\"}"));
+    assertTrue(created.success());
+    assertEquals("1234567890", created.messageId());
+    assertEquals("wait=true", lastQuery);
+
+    var edited = transport.exchange(
+        "PATCH",
+        URI.create(WebhookTransport.messageUrl(url, "1234567890")),
+        bytes("{\"content\":\"b\"}"));
+    assertTrue(edited.success());
+    assertEquals("PATCH", lastMethod);
+    assertEquals("/api/webhooks/test/messages/1234567890", lastPath);
+  }
+
+  @Test
+  void streamsAttachmentsAsMultipart() throws Exception {
+    var port = server.getAddress().getPort();
+    var url = "http://127.0.0.1:" + port + "/api/webhooks/test";
+    Path file = Files.createTempFile("mindiscord", ".log");
+    try {
+      Files.writeString(file, "line one\nline two", StandardCharsets.UTF_8);
+      Attachment fromDisk = Attachment.ofFile(file);
+      Attachment direct = Attachment.ofBytes(
+          "note.txt",
+          ByteBuffer.allocateDirect(5).put("hello".getBytes(StandardCharsets.UTF_8)).flip());
+
+      var resp = new WebhookTransport()
+          .exchangeMultipart(
+              "POST", URI.create(url), bytes("{\"content\":\"crash\"}"), List.of(fromDisk, direct));
+
+      assertTrue(resp.success());
+      assertTrue(lastBody.contains("name=\"payload_json\""));
+      assertTrue(lastBody.contains("{\"content\":\"crash\"}"));
+      assertTrue(lastBody.contains("name=\"files[0]\"; filename=\"" + file.getFileName() + "\""));
+      assertTrue(lastBody.contains("line one\nline two"));
+      assertTrue(lastBody.contains("name=\"files[1]\"; filename=\"note.txt\""));
+      assertTrue(lastBody.contains("hello"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void effectiveTimeoutTracksP99WithinConfiguredBounds() {
+    WebhookTransport transport = new WebhookTransport();
+    transport.configure(new Config.Transport(3000, 5000, 4, true, 3.0d, 1000));
+    LatencyTracker tracker = new LatencyTracker();
+
+    assertEquals(Duration.ofMillis(5000), transport.effectiveTimeout(tracker));
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      tracker.record(Duration.ofMillis(100).toNanos());
+    }
+    assertEquals(Duration.ofMillis(1000), transport.effectiveTimeout(tracker));
+    for (int i = 0; i < LatencyTracker.WINDOW; i++) {
+      tracker.record(Duration.ofMillis(600).toNanos());
+    }
+    assertEquals(Duration.ofMillis(1800), transport.effectiveTimeout(tracker));
+    for (int i = 0; i < LatencyTracker.WINDOW; i++) {
+      tracker.record(Duration.ofMillis(3000).toNanos());
+    }
+    assertEquals(Duration.ofMillis(5000), transport.effectiveTimeout(tracker));
+  }
+
+  @Test
+  void messageUrlKeepsThreadQuery() {
+    assertEquals(
+        "https://discord.com/api/webhooks/1/abc/messages/9?thread_id=5",
+        WebhookTransport.messageUrl("https://discord.com/api/webhooks/1/abc?thread_id=5", "9"));
+  }
+
+  private static byte[] bytes(String json) {
+    return json.getBytes(StandardCharsets.UTF_8);
+  }
 }